@@ -0,0 +1,186 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.DefaultClient;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Builds unconnected clients in a known state for the benchmarks.
+ */
+public final class BenchmarkClient {
+    /**
+     * Sending queue which counts and discards every line, so outbound
+     * benchmarks measure line building rather than the network.
+     */
+    public static final class DiscardingQueue implements MessageSendingQueue {
+        private long count;
+        private @NonNull String last = "";
+
+        @Override
+        public void beginSending(@NonNull Consumer<String> consumer) {
+        }
+
+        @Override
+        public boolean contains(@NonNull String message) {
+            return false;
+        }
+
+        @Override
+        public @NonNull Optional<Consumer<String>> getConsumer() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void pause() {
+        }
+
+        @Override
+        public void queue(@NonNull String message) {
+            this.count++;
+            this.last = message;
+        }
+
+        @Override
+        public @NonNull Queue<String> shutdown() {
+            return new ArrayDeque<>();
+        }
+
+        /**
+         * Gets the number of lines queued.
+         *
+         * @return count of lines
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Gets the most recently queued line.
+         *
+         * @return last line, or empty if none
+         */
+        public @NonNull String getLast() {
+            return this.last;
+        }
+    }
+
+    /**
+     * Nickname of the benchmark client.
+     */
+    public static final String NICK = "Kitteh";
+    /**
+     * Channel joined by {@link #create()}.
+     */
+    public static final String CHANNEL = "#kitteh";
+
+    private static final MethodHandle HANDLE_LINE;
+
+    static {
+        try {
+            Method method = DefaultClient.class.getDeclaredMethod("handleLine", String.class);
+            method.setAccessible(true);
+            HANDLE_LINE = MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final DiscardingQueue sendingQueue = new DiscardingQueue();
+    private final Client.WithManagement client;
+
+    private BenchmarkClient() {
+        this.client = (Client.WithManagement) Client.builder().nick(NICK)
+                .listeners().exception(null).then()
+                .management().messageSendingQueueSupplier(client -> this.sendingQueue).then()
+                .build();
+    }
+
+    /**
+     * Creates a client which has registered and joined {@link #CHANNEL}
+     * alongside a handful of other users. The client never connects, and
+     * lines it sends end up in a {@link DiscardingQueue}.
+     *
+     * @return a new client
+     */
+    public static @NonNull BenchmarkClient create() {
+        BenchmarkClient benchmarkClient = new BenchmarkClient();
+        benchmarkClient.handleLine(":irc.kitteh.org 001 " + NICK + " :Welcome to the network");
+        benchmarkClient.handleLine(":irc.kitteh.org 005 " + NICK + " PREFIX=(ov)@+ CHANTYPES=# CHANMODES=b,k,l,imnpst :are supported by this server");
+        benchmarkClient.handleLine(':' + NICK + "!meow@kitteh.org JOIN " + CHANNEL);
+        benchmarkClient.handleLine(":irc.kitteh.org 353 " + NICK + " = " + CHANNEL + " :" + NICK + " @Purr +Meow Mew");
+        benchmarkClient.handleLine(":irc.kitteh.org 366 " + NICK + ' ' + CHANNEL + " :End of /NAMES list.");
+        return benchmarkClient;
+    }
+
+    /**
+     * Gets the client.
+     *
+     * @return client
+     */
+    public Client.@NonNull WithManagement getClient() {
+        return this.client;
+    }
+
+    /**
+     * Gets the queue receiving all lines sent by the client.
+     *
+     * @return sending queue
+     */
+    public @NonNull DiscardingQueue getSendingQueue() {
+        return this.sendingQueue;
+    }
+
+    /**
+     * Processes a line synchronously, as the input processor would.
+     *
+     * @param line line received from the server
+     */
+    public void handleLine(@NonNull String line) {
+        try {
+            HANDLE_LINE.invoke(this.client, line);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    public void shutdown() {
+        this.client.shutdown();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.util.CIKeyMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CIKeyMap} lookups and insertions under each
+ * {@link CaseMapping}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CIKeyMapBenchmark {
+    private static final int SIZE = 500;
+
+    @Param
+    private CaseMapping caseMapping;
+
+    private BenchmarkClient client;
+    private CIKeyMap<String> map;
+    private String[] keys;
+    private int index;
+
+    /**
+     * Creates the client and fills the map.
+     */
+    @Setup
+    public void setup() {
+        this.client = BenchmarkClient.create();
+        this.client.handleLine(":irc.kitteh.org 005 " + BenchmarkClient.NICK + " CASEMAPPING=" + this.caseMapping.name().replace('_', '-') + " :are supported by this server");
+        if (this.client.getClient().getServerInfo().getCaseMapping() != this.caseMapping) {
+            throw new IllegalStateException("Case mapping not applied: " + this.caseMapping);
+        }
+        this.map = new CIKeyMap<>(this.client.getClient());
+        this.keys = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            String key = "Kitten[" + i + "]^Nap";
+            this.map.put(key, key);
+            this.keys[i] = key.toUpperCase();
+        }
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    private String nextKey() {
+        String key = this.keys[this.index];
+        this.index = (this.index + 1) % SIZE;
+        return key;
+    }
+
+    /**
+     * Looks up an existing key in different case.
+     *
+     * @return value
+     */
+    @Benchmark
+    public String get() {
+        return this.map.get(this.nextKey());
+    }
+
+    /**
+     * Replaces an existing key's value.
+     *
+     * @return previous value
+     */
+    @Benchmark
+    public String put() {
+        String key = this.nextKey();
+        return this.map.put(key, key);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.command.ChannelModeCommand;
+import org.kitteh.irc.client.library.command.MonitorCommand;
+import org.kitteh.irc.client.library.element.mode.ChannelMode;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.element.mode.ModeStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building and sending command lines, with the sent lines
+ * discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandBenchmark {
+    private BenchmarkClient client;
+    private List<String> monitorTargets;
+    private ChannelMode ban;
+    private ChannelMode moderated;
+    private ChannelUserMode op;
+
+    /**
+     * Creates the client and resolves the modes used.
+     */
+    @Setup
+    public void setup() {
+        this.client = BenchmarkClient.create();
+        Client.WithManagement managed = this.client.getClient();
+        this.ban = managed.getServerInfo().getChannelMode('b').orElseThrow(IllegalStateException::new);
+        this.moderated = managed.getServerInfo().getChannelMode('m').orElseThrow(IllegalStateException::new);
+        this.op = managed.getServerInfo().getChannelUserMode('o').orElseThrow(IllegalStateException::new);
+        this.monitorTargets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            this.monitorTargets.add("Kitten" + i);
+        }
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    /**
+     * Sends MONITOR for a hundred targets, split over several lines.
+     *
+     * @return lines sent so far
+     */
+    @Benchmark
+    public long monitor() {
+        new MonitorCommand(this.client.getClient()).action(MonitorCommand.Action.ADD_TARGET).target(this.monitorTargets).execute();
+        return this.client.getSendingQueue().getCount();
+    }
+
+    /**
+     * Sends a MODE change mixing parameterized and plain modes.
+     *
+     * @return lines sent so far
+     */
+    @Benchmark
+    public long channelMode() {
+        new ChannelModeCommand(this.client.getClient(), BenchmarkClient.CHANNEL)
+                .add(ModeStatus.Action.ADD, this.moderated)
+                .add(ModeStatus.Action.ADD, this.op, "Purr")
+                .add(ModeStatus.Action.ADD, this.op, "Meow")
+                .add(ModeStatus.Action.ADD, this.ban, "*!*@spam.example.com")
+                .add(ModeStatus.Action.REMOVE, this.ban, "*!*@old.example.com")
+                .execute();
+        return this.client.getSendingQueue().getCount();
+    }
+}
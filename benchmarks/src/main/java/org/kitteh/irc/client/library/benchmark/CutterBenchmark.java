@@ -0,0 +1,114 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.kitteh.irc.client.library.util.Cutter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Cutter.DefaultWordCutter#split} on messages of varying
+ * length and script.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CutterBenchmark {
+    /**
+     * Word sources for generated messages.
+     */
+    public enum Script {
+        /**
+         * Short Latin words.
+         */
+        LATIN("meow purr hiss nap kitten whisker paw tail"),
+        /**
+         * Cyrillic words.
+         */
+        CYRILLIC("кот мяу мурлыка котёнок"),
+        /**
+         * Japanese text without spaces, forcing mid-word cuts.
+         */
+        CJK("猫がニャーと鳴いている猫がニャーと鳴いている");
+
+        private final String words;
+
+        Script(String words) {
+            this.words = words;
+        }
+    }
+
+    @Param
+    private Script script;
+
+    @Param({"64", "1000", "4000"})
+    private int length;
+
+    @Param({"400"})
+    private int size;
+
+    private final Cutter cutter = new Cutter.DefaultWordCutter();
+    private String message;
+
+    /**
+     * Builds the message to split.
+     */
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder(this.length + this.script.words.length());
+        while (builder.length() < this.length) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(this.script.words);
+        }
+        builder.setLength(this.length);
+        this.message = builder.toString();
+    }
+
+    /**
+     * Splits the message.
+     *
+     * @return pieces
+     */
+    @Benchmark
+    public List<String> split() {
+        return this.cutter.split(this.message, this.size);
+    }
+}
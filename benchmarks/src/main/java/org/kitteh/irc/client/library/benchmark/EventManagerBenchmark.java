@@ -0,0 +1,94 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.DefaultServerMessage;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code DefaultEventManager#callEvent} dispatching a received
+ * message through the default listener set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventManagerBenchmark {
+    @Param({"PRIVMSG", "NOTICE"})
+    private String command;
+
+    private BenchmarkClient client;
+    private EventManager eventManager;
+    private ClientReceiveCommandEvent event;
+
+    /**
+     * Creates the client and the event to dispatch.
+     */
+    @Setup
+    public void setup() {
+        this.client = BenchmarkClient.create();
+        Client.WithManagement managed = this.client.getClient();
+        this.eventManager = managed.getEventManager();
+        String line = ":Purr!purr@kitteh.org " + this.command + ' ' + BenchmarkClient.CHANNEL + " :hello there";
+        Actor actor = managed.getActorTracker().getActor("Purr!purr@kitteh.org");
+        this.event = new ClientReceiveCommandEvent(managed, new DefaultServerMessage.StringCommand(this.command, line, Collections.emptyList()), actor, this.command, Arrays.asList(BenchmarkClient.CHANNEL, "hello there"));
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    /**
+     * Dispatches the event.
+     */
+    @Benchmark
+    public void callEvent() {
+        this.eventManager.callEvent(this.event);
+    }
+}
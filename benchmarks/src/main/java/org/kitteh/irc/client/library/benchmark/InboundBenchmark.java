@@ -0,0 +1,114 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code DefaultClient#handleLine} on representative server lines,
+ * covering parsing, tag handling, actor lookup and event dispatch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InboundBenchmark {
+    /**
+     * Lines to process, keyed by a short name. Each case is processed as
+     * one sequence per invocation.
+     */
+    public enum Line {
+        /**
+         * Tagged channel message as sent by Twitch.
+         */
+        TWITCH_PRIVMSG("@badge-info=;badges=broadcaster/1;color=#0D4200;display-name=Purr;emotes=25:0-4;flags=;id=b34ccfc7-4977-403a-8a94-33c6bac34fb8;mod=0;room-id=1337;subscriber=0;tmi-sent-ts=1507246572675;turbo=1;user-id=1337;user-type=global_mod :Purr!purr@purr.tmi.twitch.tv PRIVMSG " + BenchmarkClient.CHANNEL + " :Kappa Keepo Kappa"),
+        /**
+         * Untagged channel message.
+         */
+        PRIVMSG(":Purr!purr@kitteh.org PRIVMSG " + BenchmarkClient.CHANNEL + " :hello there"),
+        /**
+         * Numeric without special handling.
+         */
+        NUMERIC(":irc.kitteh.org 372 " + BenchmarkClient.NICK + " :- Welcome to the message of the day"),
+        /**
+         * NAMES reply for the joined channel, followed by its end.
+         */
+        NAMES(":irc.kitteh.org 353 " + BenchmarkClient.NICK + " = " + BenchmarkClient.CHANNEL + " :" + BenchmarkClient.NICK + " @Purr +Meow Mew Nyan @+Tiger Lion Cheetah Puma Lynx",
+                ":irc.kitteh.org 366 " + BenchmarkClient.NICK + " " + BenchmarkClient.CHANNEL + " :End of /NAMES list.");
+
+        private final String[] lines;
+
+        Line(String... lines) {
+            this.lines = lines;
+        }
+    }
+
+    @Param
+    private Line line;
+
+    private BenchmarkClient client;
+    private String[] raw;
+
+    /**
+     * Creates the client.
+     */
+    @Setup
+    public void setup() {
+        this.client = BenchmarkClient.create();
+        this.raw = this.line.lines;
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    /**
+     * Processes the selected lines.
+     */
+    @Benchmark
+    public void handleLine() {
+        for (String raw : this.raw) {
+            this.client.handleLine(raw);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
+import org.kitteh.irc.client.library.feature.sending.QueueProcessingThreadSender;
+import org.kitteh.irc.client.library.feature.sending.SingleDelaySender;
+import org.kitteh.irc.client.library.feature.twitch.TwitchDelaySender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput and queue-to-send latency of the sending queues
+ * with several producer threads. The rate limits are configured so they
+ * never kick in, leaving only the queues' own overhead.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SendingQueueBenchmark {
+    /**
+     * Sending queue implementations.
+     */
+    public enum Sender {
+        /**
+         * Sending without delay.
+         */
+        QUEUE_PROCESSING_THREAD {
+            @Override
+            MessageSendingQueue create(Client client) {
+                return new QueueProcessingThreadSender(client, "Benchmark");
+            }
+        },
+        /**
+         * Fixed delay of zero.
+         */
+        SINGLE_DELAY {
+            @Override
+            MessageSendingQueue create(Client client) {
+                return new SingleDelaySender(client, "Benchmark", 0);
+            }
+        },
+        /**
+         * Rolling window large enough to never be reached.
+         */
+        TWITCH_DELAY {
+            @Override
+            MessageSendingQueue create(Client client) {
+                return new TwitchDelaySender(client, "Benchmark", 1 << 20);
+            }
+        };
+
+        abstract MessageSendingQueue create(Client client);
+    }
+
+    /**
+     * Sender shared by all producers.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedSender {
+        @Param
+        private Sender sender;
+
+        private BenchmarkClient client;
+        private MessageSendingQueue queue;
+        private final Map<String, Producer> producers = new ConcurrentHashMap<>();
+
+        /**
+         * Creates the sender and begins sending.
+         */
+        @Setup
+        public void setup() {
+            this.client = BenchmarkClient.create();
+            this.queue = this.sender.create(this.client.getClient());
+            this.queue.beginSending(message -> {
+                Producer producer = this.producers.get(message);
+                if (producer != null) {
+                    producer.delivered = true;
+                }
+            });
+        }
+
+        /**
+         * Shuts the sender and client down.
+         */
+        @TearDown
+        public void tearDown() {
+            this.queue.shutdown();
+            this.client.shutdown();
+        }
+    }
+
+    /**
+     * Per-thread producer with its own message.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        private static final AtomicInteger IDS = new AtomicInteger();
+
+        private String message;
+        private volatile boolean delivered;
+
+        /**
+         * Registers the producer's message.
+         *
+         * @param shared shared sender
+         */
+        @Setup
+        public void setup(SharedSender shared) {
+            this.message = "PRIVMSG #kitteh :producer " + IDS.incrementAndGet();
+            shared.producers.put(this.message, this);
+        }
+    }
+
+    /**
+     * Queues a message and waits for the sender to hand it to the consumer.
+     *
+     * @param shared shared sender
+     * @param producer this thread's producer
+     */
+    @Benchmark
+    public void send(SharedSender shared, Producer producer) {
+        producer.delivered = false;
+        shared.queue.queue(producer.message);
+        while (!producer.delivered) {
+            Thread.yield();
+        }
+    }
+}
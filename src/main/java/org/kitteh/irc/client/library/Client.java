@@ -53,6 +53,9 @@ import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
 import org.kitteh.irc.client.library.event.channel.RequestedChannelJoinCompleteEvent;
 import org.kitteh.irc.client.library.event.client.ClientNegotiationCompleteEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
 import org.kitteh.irc.client.library.event.helper.UnexpectedChannelLeaveEvent;
 import org.kitteh.irc.client.library.event.user.PrivateCtcpQueryEvent;
 import org.kitteh.irc.client.library.feature.ActorTracker;
@@ -62,11 +65,14 @@ import org.kitteh.irc.client.library.feature.EventListenerSupplier;
 import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.feature.ISupportManager;
 import org.kitteh.irc.client.library.feature.MessageTagManager;
+import org.kitteh.irc.client.library.feature.Partitioned;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageMap;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageType;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
 import org.kitteh.irc.client.library.feature.network.NetworkHandler;
 import org.kitteh.irc.client.library.feature.network.ProxyType;
+import org.kitteh.irc.client.library.feature.sending.BoundedSendingQueue;
 import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.feature.sending.SingleDelaySender;
 import org.kitteh.irc.client.library.feature.sts.StsMachine;
@@ -76,6 +82,7 @@ import org.kitteh.irc.client.library.util.HostWithPort;
 import org.kitteh.irc.client.library.util.Listener;
 import org.kitteh.irc.client.library.util.Pair;
 import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.TrafficLine;
 
 import javax.net.ssl.TrustManagerFactory;
 import java.net.InetAddress;
@@ -290,6 +297,43 @@ public interface Client extends ClientLinked {
              */
             @NonNull Listeners output(@Nullable Consumer<String> listener);
 
+            /**
+             * Sets a listener for all incoming messages from the server,
+             * receiving all lines waiting at once.
+             * <p>
+             * All messages are passed from a single, separate thread. This
+             * replaces any listener set via {@link #input(Consumer)}.
+             *
+             * @param listener batched input listener or null to not listen
+             * @return this builder
+             */
+            @NonNull Listeners inputBatch(@Nullable Consumer<List<String>> listener);
+
+            /**
+             * Sets a listener for all outgoing messages to the server,
+             * receiving all lines waiting at once.
+             * <p>
+             * All messages are passed from a single, separate thread. This
+             * replaces any listener set via {@link #output(Consumer)}.
+             *
+             * @param listener batched output listener or null to not listen
+             * @return this builder
+             */
+            @NonNull Listeners outputBatch(@Nullable Consumer<List<String>> listener);
+
+            /**
+             * Sets a listener for all traffic in both directions, receiving
+             * all lines waiting at once along with their direction and the
+             * time they were seen.
+             * <p>
+             * All messages are passed, in order, from a single, separate
+             * thread.
+             *
+             * @param listener traffic listener or null to not listen
+             * @return this builder
+             */
+            @NonNull Listeners traffic(@Nullable Consumer<List<TrafficLine>> listener);
+
             /**
              * Sets a listener for all thrown exceptions on this client. By default,
              * a consumer exists which calls Throwable#printStackTrace() on all
@@ -302,6 +346,18 @@ public interface Client extends ClientLinked {
              */
             @NonNull Listeners exception(@Nullable Consumer<Exception> listener);
 
+            /**
+             * Sets the maximum number of items held for each of the input,
+             * output and exception listeners while their consumers catch
+             * up. Once full, the oldest items are discarded. By default,
+             * there is no limit.
+             *
+             * @param capacity maximum queued items per listener
+             * @return this builder
+             * @see Listener#setCapacity(int)
+             */
+            @NonNull Listeners capacity(int capacity);
+
             /**
              * Returns to the root builder.
              *
@@ -472,6 +528,25 @@ public interface Client extends ClientLinked {
              */
             @NonNull Management eventListeners(@Nullable List<EventListenerSupplier> listenerSuppliers);
 
+            /**
+             * Sets whether raw server message events are recycled.
+             * <p>
+             * When recycling, the client reuses one
+             * {@link ClientReceiveCommandEvent} and one
+             * {@link ClientReceiveNumericEvent}, along with their parameter
+             * list, for every line received. Handlers keeping such an event
+             * beyond their invocation must keep
+             * {@link ClientReceiveServerMessageEvent#retain()} instead.
+             * Events passed to asynchronous or {@link Partitioned} handlers
+             * are retained automatically.
+             * <p>
+             * By default, events are not recycled.
+             *
+             * @param recycling true to recycle events
+             * @return this builder
+             */
+            @NonNull Management eventRecycling(boolean recycling);
+
             /**
              * Sets the supplier of the ISUPPORT manager.
              * <p>
@@ -488,7 +563,10 @@ public interface Client extends ClientLinked {
              * rate at which messages are sent by the Client to the server.
              * <p>
              * By default, the {@link SingleDelaySender} is used with a delay set
-             * to {@link SingleDelaySender#DEFAULT_MESSAGE_DELAY}.
+             * to {@link SingleDelaySender#DEFAULT_MESSAGE_DELAY}. To limit
+             * how many messages may wait to be sent, wrap a supplier with
+             * {@link BoundedSendingQueue#getSupplier(Function, int,
+             * BoundedSendingQueue.OverflowPolicy)}.
              *
              * @param supplier supplier
              * @return this builder
@@ -519,6 +597,19 @@ public interface Client extends ClientLinked {
              */
             @NonNull Management networkHandler(@NonNull NetworkHandler networkHandler);
 
+            /**
+             * Sets whether the individual WHO replies received for a channel
+             * are kept as the source of the
+             * {@link org.kitteh.irc.client.library.event.channel.ChannelUsersUpdatedEvent}.
+             * <p>
+             * When not retained, the event's source holds only the end of
+             * WHO reply. By default, replies are retained.
+             *
+             * @param retain true to retain WHO replies
+             * @return this builder
+             */
+            @NonNull Management retainWhoReplies(boolean retain);
+
             /**
              * Sets the supplier of the server info.
              * <p>
@@ -745,6 +836,15 @@ public interface Client extends ClientLinked {
          */
         boolean isConnectionAlive();
 
+        /**
+         * Gets if individual WHO replies are kept for the channel users
+         * updated event.
+         *
+         * @return true if WHO replies are retained
+         * @see Builder.Management#retainWhoReplies(boolean)
+         */
+        boolean isRetainingWhoReplies();
+
         /**
          * Gets the bind address
          *
@@ -783,6 +883,37 @@ public interface Client extends ClientLinked {
          */
         @NonNull Listener<String> getOutputListener();
 
+        /**
+         * Gets the currently set traffic listener.
+         *
+         * @return traffic listener
+         */
+        @NonNull Listener<TrafficLine> getTrafficListener();
+
+        /**
+         * Gets the metrics collected on this client's hot paths.
+         *
+         * @return metrics
+         */
+        @NonNull ClientMetrics getMetrics();
+
+        /**
+         * Sets whether raw server message events are recycled.
+         *
+         * @param recycling true to recycle events
+         * @see Builder.Management#eventRecycling(boolean)
+         */
+        void setEventRecycling(boolean recycling);
+
+        /**
+         * Sets whether individual WHO replies are kept for the channel users
+         * updated event.
+         *
+         * @param retain true to retain WHO replies
+         * @see Builder.Management#retainWhoReplies(boolean)
+         */
+        void setRetainWhoReplies(boolean retain);
+
         /**
          * Gets if the client is configured to use a proxy.
          *
@@ -859,6 +990,14 @@ public interface Client extends ClientLinked {
          */
         void processLine(@NonNull String line);
 
+        /**
+         * Runs a task on the thread processing lines from the IRC server,
+         * after any lines already queued for processing.
+         *
+         * @param task task to run
+         */
+        void processTask(@NonNull Runnable task);
+
         /**
          * Sends a nick change request.
          *
@@ -1530,6 +1669,17 @@ public interface Client extends ClientLinked {
      */
     void setOutputListener(@Nullable Consumer<String> listener);
 
+    /**
+     * Sets a listener for all traffic in both directions, receiving all
+     * lines waiting at once along with their direction and the time they
+     * were seen.
+     * <p>
+     * All messages are passed, in order, from a single, separate thread.
+     *
+     * @param listener traffic listener
+     */
+    void setTrafficListener(@Nullable Consumer<List<TrafficLine>> listener);
+
     /**
      * Begin connecting to the server.
      *
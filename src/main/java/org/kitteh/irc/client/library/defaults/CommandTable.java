@@ -0,0 +1,129 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Classifies the command of a received line without allocating for known
+ * commands or throwing for non-numerics. Known commands are returned as
+ * the same upper-case constants used in
+ * {@link org.kitteh.irc.client.library.feature.filter.CommandFilter}
+ * annotations, so they may be compared by identity.
+ */
+final class CommandTable {
+    private static final String[] COMMANDS = {
+            "ACCOUNT", "ACK", "AUTHENTICATE", "AWAY", "BATCH", "CAP", "CHGHOST", "CLEARCHAT", "ERROR", "FAIL",
+            "GLOBALUSERSTATE", "INVITE", "JOIN", "KICK", "MODE", "NICK", "NOTE", "NOTICE", "PART", "PING", "PONG",
+            "PRIVMSG", "QUIT", "ROOMSTATE", "SETNAME", "TAGMSG", "TOPIC", "USERNOTICE", "USERSTATE", "WALLOPS",
+            "WARN", "WHISPER"
+    };
+    private static final String[][] BY_LENGTH;
+    private static final String[] NUMERICS = new String[1000];
+
+    static {
+        int longest = 0;
+        for (String command : COMMANDS) {
+            longest = Math.max(longest, command.length());
+        }
+        BY_LENGTH = new String[longest + 1][];
+        for (String command : COMMANDS) {
+            String[] bucket = BY_LENGTH[command.length()];
+            if (bucket == null) {
+                bucket = new String[1];
+            } else {
+                String[] grown = new String[bucket.length + 1];
+                System.arraycopy(bucket, 0, grown, 0, bucket.length);
+                bucket = grown;
+            }
+            bucket[bucket.length - 1] = command;
+            BY_LENGTH[command.length()] = bucket;
+        }
+    }
+
+    private CommandTable() {
+    }
+
+    /**
+     * Gets the numeric value of a command, if it is three digits.
+     *
+     * @param line line containing the command
+     * @param start index of the command's first character
+     * @param end index after the command's last character
+     * @return numeric, or -1 if not a numeric
+     */
+    static int getNumeric(@NonNull String line, int start, int end) {
+        if ((end - start) != 3) {
+            return -1;
+        }
+        int numeric = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+            numeric = (numeric * 10) + (c - '0');
+        }
+        return numeric;
+    }
+
+    /**
+     * Gets the command string of a numeric, shared between lines.
+     *
+     * @param line line containing the command
+     * @param start index of the command's first character
+     * @param numeric numeric as returned by {@link #getNumeric}
+     * @return three-digit command string
+     */
+    static @NonNull String getNumericCommand(@NonNull String line, int start, int numeric) {
+        String command = NUMERICS[numeric];
+        if (command == null) {
+            command = line.substring(start, start + 3);
+            NUMERICS[numeric] = command;
+        }
+        return command;
+    }
+
+    /**
+     * Gets the constant for a known command, ignoring case.
+     *
+     * @param line line containing the command
+     * @param start index of the command's first character
+     * @param end index after the command's last character
+     * @return upper-case constant, or null if not a known command
+     */
+    static @Nullable String getKnownCommand(@NonNull String line, int start, int end) {
+        int length = end - start;
+        if ((length >= BY_LENGTH.length) || (BY_LENGTH[length] == null)) {
+            return null;
+        }
+        for (String command : BY_LENGTH[length]) {
+            if (line.regionMatches(true, start, command, 0, length)) {
+                return command;
+            }
+        }
+        return null;
+    }
+}
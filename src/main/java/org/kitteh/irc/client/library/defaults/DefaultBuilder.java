@@ -50,9 +50,11 @@ import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.feature.sending.SingleDelaySender;
 import org.kitteh.irc.client.library.feature.sts.StsStorageManager;
 import org.kitteh.irc.client.library.util.HostWithPort;
+import org.kitteh.irc.client.library.util.Listener;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.SslUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
+import org.kitteh.irc.client.library.util.TrafficLine;
 import org.kitteh.irc.client.library.util.Version;
 
 import javax.net.ssl.TrustManagerFactory;
@@ -161,12 +163,34 @@ public class DefaultBuilder implements Client.Builder {
         @Override
         public @NonNull Listeners input(@Nullable Consumer<String> listener) {
             DefaultBuilder.this.inputListener = listener;
+            DefaultBuilder.this.inputBatchListener = null;
             return this;
         }
 
         @Override
         public @NonNull Listeners output(@Nullable Consumer<String> listener) {
             DefaultBuilder.this.outputListener = listener;
+            DefaultBuilder.this.outputBatchListener = null;
+            return this;
+        }
+
+        @Override
+        public @NonNull Listeners inputBatch(@Nullable Consumer<List<String>> listener) {
+            DefaultBuilder.this.inputListener = null;
+            DefaultBuilder.this.inputBatchListener = listener;
+            return this;
+        }
+
+        @Override
+        public @NonNull Listeners outputBatch(@Nullable Consumer<List<String>> listener) {
+            DefaultBuilder.this.outputListener = null;
+            DefaultBuilder.this.outputBatchListener = listener;
+            return this;
+        }
+
+        @Override
+        public @NonNull Listeners traffic(@Nullable Consumer<List<TrafficLine>> listener) {
+            DefaultBuilder.this.trafficListener = listener;
             return this;
         }
 
@@ -176,6 +200,13 @@ public class DefaultBuilder implements Client.Builder {
             return this;
         }
 
+        @Override
+        public @NonNull Listeners capacity(int capacity) {
+            Sanity.truthiness(capacity > 0, "Capacity must be positive");
+            DefaultBuilder.this.listenerCapacity = capacity;
+            return this;
+        }
+
         @Override
         public Client.@NonNull Builder then() {
             return DefaultBuilder.this;
@@ -282,6 +313,12 @@ public class DefaultBuilder implements Client.Builder {
             return this;
         }
 
+        @Override
+        public @NonNull Management eventRecycling(boolean recycling) {
+            DefaultBuilder.this.eventRecycling = recycling;
+            return this;
+        }
+
         @Override
         public @NonNull Management iSupportManager(@Nullable Function<Client.WithManagement, ? extends ISupportManager> supplier) {
             DefaultBuilder.this.iSupportManager = (supplier != null) ? supplier : DefaultBuilder.DEFAULT_ISUPPORT_MANAGER;
@@ -306,6 +343,12 @@ public class DefaultBuilder implements Client.Builder {
             return this;
         }
 
+        @Override
+        public @NonNull Management retainWhoReplies(boolean retain) {
+            DefaultBuilder.this.retainWhoReplies = retain;
+            return this;
+        }
+
         @Override
         public @NonNull Management serverInfo(@Nullable Function<Client.WithManagement, ? extends ServerInfo.WithManagement> supplier) {
             DefaultBuilder.this.serverInfo = (supplier != null) ? supplier : DefaultBuilder.DEFAULT_SERVER_INFO;
@@ -358,6 +401,10 @@ public class DefaultBuilder implements Client.Builder {
     private @Nullable Consumer<Exception> exceptionListener = Throwable::printStackTrace;
     private @Nullable Consumer<String> inputListener = null;
     private @Nullable Consumer<String> outputListener = null;
+    private @Nullable Consumer<List<String>> inputBatchListener = null;
+    private @Nullable Consumer<List<String>> outputBatchListener = null;
+    private @Nullable Consumer<List<TrafficLine>> trafficListener = null;
+    private int listenerCapacity = Listener.UNBOUNDED;
 
     // Proxy
     private @Nullable String proxyHost;
@@ -377,10 +424,12 @@ public class DefaultBuilder implements Client.Builder {
     private @Nullable DefaultMessageMap defaultMessageMap = null;
     private Function<Client.WithManagement, ? extends EventManager> eventManager = DefaultBuilder.DEFAULT_EVENT_MANAGER;
     private List<EventListenerSupplier> eventListeners = DefaultBuilder.DEFAULT_EVENT_LISTENERS;
+    private boolean eventRecycling = false;
     private Function<Client.WithManagement, ? extends ISupportManager> iSupportManager = DefaultBuilder.DEFAULT_ISUPPORT_MANAGER;
     private Function<Client.WithManagement, ? extends MessageSendingQueue> messageSendingQueue = DefaultBuilder.DEFAULT_MESSAGE_SENDING_QUEUE;
     private Function<Client.WithManagement, ? extends MessageTagManager> messageTagManager = DefaultBuilder.DEFAULT_MESSAGE_TAG_MANAGER;
     private NetworkHandler networkHandler = NettyNetworkHandler.getInstance();
+    private boolean retainWhoReplies = true;
     private Function<Client.WithManagement, ? extends ServerInfo.WithManagement> serverInfo = DefaultBuilder.DEFAULT_SERVER_INFO;
     private @Nullable StsStorageManager stsStorageManager = null;
 
@@ -466,6 +515,21 @@ public class DefaultBuilder implements Client.Builder {
                 this.secureKeyCertChain, this.secureKey, this.secureKeyPassword, this.secureTrustManagerFactory, this.stsStorageManager,
                 this.webircHost, this.webircIP, this.webircPassword, this.webircGateway
         );
+        client.setEventRecycling(this.eventRecycling);
+        client.setRetainWhoReplies(this.retainWhoReplies);
+        client.getExceptionListener().setCapacity(this.listenerCapacity);
+        client.getInputListener().setCapacity(this.listenerCapacity);
+        client.getOutputListener().setCapacity(this.listenerCapacity);
+        client.getTrafficListener().setCapacity(this.listenerCapacity);
+        if (this.inputBatchListener != null) {
+            client.getInputListener().setBatchConsumer(this.inputBatchListener);
+        }
+        if (this.outputBatchListener != null) {
+            client.getOutputListener().setBatchConsumer(this.outputBatchListener);
+        }
+        if (this.trafficListener != null) {
+            client.getTrafficListener().setBatchConsumer(this.trafficListener);
+        }
 
         return client;
     }
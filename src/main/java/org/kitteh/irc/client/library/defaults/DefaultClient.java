@@ -64,6 +64,7 @@ import org.kitteh.irc.client.library.feature.MessageTagManager;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageMap;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageType;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
 import org.kitteh.irc.client.library.feature.network.ClientConnection;
 import org.kitteh.irc.client.library.feature.network.NetworkHandler;
 import org.kitteh.irc.client.library.feature.network.ProxyType;
@@ -78,11 +79,13 @@ import org.kitteh.irc.client.library.util.CISet;
 import org.kitteh.irc.client.library.util.CtcpUtil;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.HostWithPort;
+import org.kitteh.irc.client.library.util.LineParameters;
 import org.kitteh.irc.client.library.util.Listener;
 import org.kitteh.irc.client.library.util.Pair;
 import org.kitteh.irc.client.library.util.QueueProcessingThread;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
+import org.kitteh.irc.client.library.util.TrafficLine;
 
 import javax.net.ssl.TrustManagerFactory;
 import java.net.InetAddress;
@@ -161,15 +164,19 @@ public class DefaultClient implements Client.WithManagement {
         }
     }
 
-    private final class InputProcessor extends QueueProcessingThread<String> {
+    private final class InputProcessor extends QueueProcessingThread<Runnable> {
         private InputProcessor() {
             super("KICL Input Processor (" + DefaultClient.this.getName() + ')');
         }
 
+        private void queueLine(@NonNull String line) {
+            this.queue(() -> DefaultClient.this.handleLine(line));
+        }
+
         @Override
-        protected void processElement(@NonNull String element) {
+        protected void processElement(@NonNull Runnable element) {
             try {
-                DefaultClient.this.handleLine(element);
+                element.run();
             } catch (final Exception thrown) {
                 DefaultClient.this.exceptionListener.queue(thrown);
             }
@@ -204,6 +211,7 @@ public class DefaultClient implements Client.WithManagement {
     private Listener<Exception> exceptionListener;
     private Listener<String> inputListener;
     private Listener<String> outputListener;
+    private Listener<TrafficLine> trafficListener;
 
     private DefaultMessageMap defaultMessageMap;
 
@@ -216,6 +224,11 @@ public class DefaultClient implements Client.WithManagement {
     private MessageSendingQueue messageSendingScheduled;
     private final Object messageSendingLock = new Object();
     private boolean isSending = false;
+
+    private final ClientMetrics metrics = new ClientMetrics(this::getInputQueueSize, this::getSendQueueSize);
+    private volatile @Nullable RecycledEvents recycledEvents;
+    private volatile boolean retainWhoReplies = true;
+    private final LineParameters.Builder parameterBuilder = new LineParameters.Builder();
     private String lastSentUser;
 
     private String name;
@@ -287,6 +300,7 @@ public class DefaultClient implements Client.WithManagement {
         this.exceptionListener = new Listener<>(this, exceptionListener);
         this.inputListener = new Listener<>(this, inputListener);
         this.outputListener = new Listener<>(this, outputListener);
+        this.trafficListener = new Listener<>(this, null);
         this.secure = secure;
         this.secureKeyCertChain = secureKeyCertChain;
         this.secureKey = secureKey;
@@ -678,6 +692,15 @@ public class DefaultClient implements Client.WithManagement {
         }
     }
 
+    @Override
+    public void setTrafficListener(@Nullable Consumer<List<TrafficLine>> listener) {
+        if (listener == null) {
+            this.trafficListener.removeConsumer();
+        } else {
+            this.trafficListener.setBatchConsumer(listener);
+        }
+    }
+
     @Override
     public void shutdown() {
         this.shutdownInternal(this.defaultMessageMap.getDefault(DefaultMessageType.QUIT).orElse(null));
@@ -705,6 +728,7 @@ public class DefaultClient implements Client.WithManagement {
         this.exceptionListener.shutdown();
         this.inputListener.shutdown();
         this.outputListener.shutdown();
+        this.trafficListener.shutdown();
     }
 
     @Override
@@ -722,10 +746,15 @@ public class DefaultClient implements Client.WithManagement {
         if (line.startsWith("PING ")) {
             this.sendRawLineImmediately("PONG " + line.substring(5));
         } else if (!line.isEmpty()) {
-            this.processor.queue(line);
+            this.processor.queueLine(line);
         }
     }
 
+    @Override
+    public void processTask(@NonNull Runnable task) {
+        this.processor.queue(Sanity.nullCheck(task, "Task"));
+    }
+
     @Override
     public @NonNull ActorTracker getActorTracker() {
         return this.actorTracker;
@@ -736,6 +765,11 @@ public class DefaultClient implements Client.WithManagement {
         return (this.connection != null) && this.connection.isAlive();
     }
 
+    @Override
+    public boolean isRetainingWhoReplies() {
+        return this.retainWhoReplies;
+    }
+
     @Override
     public @NonNull Listener<String> getInputListener() {
         return this.inputListener;
@@ -751,6 +785,39 @@ public class DefaultClient implements Client.WithManagement {
         return this.outputListener;
     }
 
+    @Override
+    public @NonNull Listener<TrafficLine> getTrafficListener() {
+        return this.trafficListener;
+    }
+
+    @Override
+    public @NonNull ClientMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public void setEventRecycling(boolean recycling) {
+        this.recycledEvents = recycling ? new RecycledEvents(this) : null;
+    }
+
+    @Override
+    public void setRetainWhoReplies(boolean retain) {
+        this.retainWhoReplies = retain;
+    }
+
+    private int getInputQueueSize() {
+        InputProcessor processor = this.processor;
+        return (processor == null) ? 0 : processor.getQueueSize();
+    }
+
+    private int getSendQueueSize() {
+        MessageSendingQueue immediate = this.messageSendingImmediate;
+        MessageSendingQueue scheduled = this.messageSendingScheduled;
+        int immediateSize = (immediate == null) ? 0 : immediate.getQueueSize();
+        int scheduledSize = (scheduled == null) ? 0 : scheduled.getQueueSize();
+        return ((immediateSize < 0) || (scheduledSize < 0)) ? -1 : (immediateSize + scheduledSize);
+    }
+
     @Override
     public @NonNull String getRequestedNick() {
         return this.requestedNick;
@@ -766,7 +833,7 @@ public class DefaultClient implements Client.WithManagement {
         if (this.lastSentUser != null && this.messageSendingImmediate.contains(this.lastSentUser)) {
             return;
         }
-        this.processor.queue("");
+        this.processor.queueLine("");
 
         // If we have WebIRC information, send it before everything.
         // "The WEBIRC command MUST be the first command sent from the WebIRC gateway to the IRC server and MUST be sent before capability negotiation."
@@ -876,6 +943,7 @@ public class DefaultClient implements Client.WithManagement {
             return;
         }
 
+        long start = System.nanoTime();
         int position = 0;
         int next;
         // Skip starting spaces just in case
@@ -896,7 +964,7 @@ public class DefaultClient implements Client.WithManagement {
                 position = next + 1;
             }
         } else {
-            tags = Collections.unmodifiableList(new ArrayList<>());
+            tags = Collections.emptyList();
         }
 
         final String actorName;
@@ -908,8 +976,9 @@ public class DefaultClient implements Client.WithManagement {
         }
         final Actor actor = this.actorTracker.getActor(actorName);
 
-        String commandString = null;
-        List<String> parameters = new ArrayList<>();
+        int commandStart = -1;
+        int commandEnd = -1;
+        LineParameters.Builder parameterBuilder = this.parameterBuilder.clear();
 
         boolean noParamsWithColon = true;
         free:
@@ -920,46 +989,62 @@ public class DefaultClient implements Client.WithManagement {
                 /* I've got to */
                 break free;
             } else if (position != next) {
-                String bit = line.substring(position, next);
-                if (commandString == null) {
-                    commandString = bit;
+                if (commandStart == -1) {
+                    commandStart = position;
+                    commandEnd = next;
                 } else {
-                    parameters.add(bit);
+                    parameterBuilder.add(position, next);
                 }
             }
             position = next + 1;
         }
         if (position != line.length()) {
-            String bit = line.substring((noParamsWithColon && (line.charAt(position) == ':')) ? (position + 1) : position);
-            if (commandString == null) {
-                commandString = bit;
+            int trailing = (noParamsWithColon && (line.charAt(position) == ':')) ? (position + 1) : position;
+            if (commandStart == -1) {
+                commandStart = trailing;
+                commandEnd = line.length();
             } else {
-                parameters.add(bit);
+                parameterBuilder.add(trailing, line.length());
             }
         }
 
-        if (commandString == null) {
+        if (commandStart == -1) {
             throw new KittehServerMessageException(new DefaultServerMessage(line, tags), "Server sent a message without a command");
         }
 
+        List<String> parameters = parameterBuilder.build(line);
+        RecycledEvents recycled = this.recycledEvents;
         ClientReceiveServerMessageEvent event;
-        try {
-            int numeric = Integer.parseInt(commandString);
-            event = new ClientReceiveNumericEvent(this, new DefaultServerMessage.NumericCommand(numeric, line, tags), actor, commandString, numeric, parameters);
-        } catch (NumberFormatException exception) {
-            event = new ClientReceiveCommandEvent(this, new DefaultServerMessage.StringCommand(commandString, line, tags), actor, commandString, parameters);
-        }
-
-        Optional<MessageTag> batchTag = tags.stream().filter(tag -> CapabilityManager.Defaults.BATCH.equalsIgnoreCase(tag.getName())).findFirst();
-        if (batchTag.isPresent() && batchTag.get().getValue().isPresent()) {
-            String batch = batchTag.get().getValue().get();
-            BatchReferenceTag tag = this.batchHold.get(batch);
-            if (tag != null) {
-                tag.addEvent(event);
-                this.eventManager.callEvent(new ClientBatchMessageEvent(this, event.getSource(), tag));
-                return;
+        int numeric = CommandTable.getNumeric(line, commandStart, commandEnd);
+        if (numeric >= 0) {
+            String commandString = CommandTable.getNumericCommand(line, commandStart, numeric);
+            DefaultServerMessage.NumericCommand message = new DefaultServerMessage.NumericCommand(numeric, line, tags);
+            event = (recycled == null) ? new ClientReceiveNumericEvent(this, message, actor, commandString, numeric, parameters) : recycled.numeric(message, actor, commandString, numeric, parameters);
+        } else {
+            String commandString = CommandTable.getKnownCommand(line, commandStart, commandEnd);
+            if (commandString == null) {
+                commandString = line.substring(commandStart, commandEnd);
+            }
+            DefaultServerMessage.StringCommand message = new DefaultServerMessage.StringCommand(commandString, line, tags);
+            event = (recycled == null) ? new ClientReceiveCommandEvent(this, message, actor, commandString, parameters) : recycled.command(message, actor, commandString, parameters);
+        }
+        this.metrics.recordParseTime(System.nanoTime() - start);
+
+        for (MessageTag batchTag : tags) {
+            if (CapabilityManager.Defaults.BATCH.equalsIgnoreCase(batchTag.getName()) && batchTag.getValue().isPresent()) {
+                BatchReferenceTag tag = this.batchHold.get(batchTag.getValue().get());
+                if (tag != null) {
+                    if (tag.isStreaming()) {
+                        this.eventManager.callEvent(new ClientBatchMessageEvent(this, event.getSource(), tag));
+                        break;
+                    }
+                    tag.addEvent(event);
+                    this.eventManager.callEvent(new ClientBatchMessageEvent(this, event.getSource(), tag));
+                    return;
+                }
+                // else improper batch, or intentionally ignored via event
+                break;
             }
-            // else improper batch, or intentionally ignored via event
         }
 
         this.sendLineEvent(event);
@@ -0,0 +1,215 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.List;
+
+/**
+ * Reusable raw server message events, for a client recycling events. The
+ * events are only ever used on the input thread, one line at a time, and
+ * are given immutable parameter lists so a retained copy may share them.
+ */
+final class RecycledEvents {
+    private static final class Command extends ClientReceiveCommandEvent {
+        private final RecycledEvents holder;
+
+        private Command(@NonNull RecycledEvents holder, @NonNull Client client, @NonNull ServerMessage serverMessage, @NonNull Actor actor, @NonNull String command, @NonNull List<String> parameters) {
+            super(client, serverMessage, actor, command, parameters);
+            this.holder = holder;
+        }
+
+        @Override
+        public @NonNull Actor getActor() {
+            return this.holder.actor;
+        }
+
+        @Override
+        public @NonNull String getCommand() {
+            return this.holder.command;
+        }
+
+        @Override
+        public @NonNull List<MessageTag> getMessageTags() {
+            return this.holder.serverMessage.getTags();
+        }
+
+        @Override
+        public @NonNull String getRawMessage() {
+            return this.holder.serverMessage.getMessage();
+        }
+
+        @Override
+        public @NonNull List<String> getParameters() {
+            return this.holder.parameters;
+        }
+
+        @Override
+        public @NonNull ServerMessage getServerMessage() {
+            return this.holder.serverMessage;
+        }
+
+        @Override
+        public @NonNull ServerMessage getSource() {
+            return this.holder.serverMessage;
+        }
+
+        @Override
+        public @NonNull ClientReceiveCommandEvent retain() {
+            return new ClientReceiveCommandEvent(this.getClient(), this.holder.serverMessage, this.holder.actor, this.holder.command, this.holder.parameters);
+        }
+
+        @Override
+        protected @NonNull ToStringer toStringer() {
+            return this.holder.toStringer(this);
+        }
+    }
+
+    private static final class Numeric extends ClientReceiveNumericEvent {
+        private final RecycledEvents holder;
+
+        private Numeric(@NonNull RecycledEvents holder, @NonNull Client client, @NonNull ServerMessage serverMessage, @NonNull Actor actor, @NonNull String command, int numeric, @NonNull List<String> parameters) {
+            super(client, serverMessage, actor, command, numeric, parameters);
+            this.holder = holder;
+        }
+
+        @Override
+        public @NonNull Actor getActor() {
+            return this.holder.actor;
+        }
+
+        @Override
+        public @NonNull String getCommand() {
+            return this.holder.command;
+        }
+
+        @Override
+        public int getNumeric() {
+            return this.holder.numeric;
+        }
+
+        @Override
+        public @NonNull List<MessageTag> getMessageTags() {
+            return this.holder.serverMessage.getTags();
+        }
+
+        @Override
+        public @NonNull String getRawMessage() {
+            return this.holder.serverMessage.getMessage();
+        }
+
+        @Override
+        public @NonNull List<String> getParameters() {
+            return this.holder.parameters;
+        }
+
+        @Override
+        public @NonNull ServerMessage getServerMessage() {
+            return this.holder.serverMessage;
+        }
+
+        @Override
+        public @NonNull ServerMessage getSource() {
+            return this.holder.serverMessage;
+        }
+
+        @Override
+        public @NonNull ClientReceiveNumericEvent retain() {
+            return new ClientReceiveNumericEvent(this.getClient(), this.holder.serverMessage, this.holder.actor, this.holder.command, this.holder.numeric, this.holder.parameters);
+        }
+
+        @Override
+        protected @NonNull ToStringer toStringer() {
+            return this.holder.toStringer(this).add("numeric", this.holder.numeric);
+        }
+    }
+
+    private final Client client;
+    private List<String> parameters;
+    private Actor actor;
+    private String command;
+    private int numeric;
+    private ServerMessage serverMessage;
+    private Command commandEvent;
+    private Numeric numericEvent;
+
+    RecycledEvents(@NonNull Client client) {
+        this.client = client;
+    }
+
+    /**
+     * Gets the command event, reset to the given line.
+     *
+     * @param serverMessage server message
+     * @param actor actor
+     * @param command command
+     * @param parameters immutable parameters
+     * @return recycled event
+     */
+    @NonNull ClientReceiveCommandEvent command(@NonNull ServerMessage serverMessage, @NonNull Actor actor, @NonNull String command, @NonNull List<String> parameters) {
+        this.set(serverMessage, actor, command, 0, parameters);
+        if (this.commandEvent == null) {
+            this.commandEvent = new Command(this, this.client, serverMessage, actor, command, parameters);
+        }
+        return this.commandEvent;
+    }
+
+    /**
+     * Gets the numeric event, reset to the given line.
+     *
+     * @param serverMessage server message
+     * @param actor actor
+     * @param command command
+     * @param numeric numeric
+     * @param parameters immutable parameters
+     * @return recycled event
+     */
+    @NonNull ClientReceiveNumericEvent numeric(@NonNull ServerMessage serverMessage, @NonNull Actor actor, @NonNull String command, int numeric, @NonNull List<String> parameters) {
+        this.set(serverMessage, actor, command, numeric, parameters);
+        if (this.numericEvent == null) {
+            this.numericEvent = new Numeric(this, this.client, serverMessage, actor, command, numeric, parameters);
+        }
+        return this.numericEvent;
+    }
+
+    private void set(@NonNull ServerMessage serverMessage, @NonNull Actor actor, @NonNull String command, int numeric, @NonNull List<String> parameters) {
+        this.parameters = parameters;
+        this.serverMessage = serverMessage;
+        this.actor = actor;
+        this.command = command;
+        this.numeric = numeric;
+    }
+
+    private @NonNull ToStringer toStringer(@NonNull Object event) {
+        return new ToStringer(event).add("client", this.client).add("sourceMessage", this.serverMessage).add("actor", this.actor).add("message", this.serverMessage);
+    }
+}
@@ -34,6 +34,7 @@ import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.ModeInfo;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
+import org.kitteh.irc.client.library.util.MaskIndex;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -82,7 +83,7 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
     }
 
     private final ModeStatusList<ChannelMode> channelModes;
-    private final Map<Character, List<ModeInfo>> modeInfoLists;
+    private final Map<Character, MaskIndex<ModeInfo>> modeInfoLists;
     private final Map<String, SortedSet<ChannelUserMode>> modes;
     private final List<String> names;
     private final Map<String, User> nickMap;
@@ -98,7 +99,7 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
      * @param name channel name
      * @param topic topic
      * @param channelModes channel modes
-     * @param modeInfoLists modeinfolists
+     * @param modeInfoLists indexed modeinfolists
      * @param modes modes
      * @param names who is in the channel
      * @param nickMap map of nicks to Users
@@ -108,7 +109,7 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
      */
     public DefaultChannel(Client.@NonNull WithManagement client, @NonNull String name, @NonNull Topic topic,
                           @NonNull ModeStatusList<ChannelMode> channelModes,
-                          @NonNull Map<Character, List<ModeInfo>> modeInfoLists,
+                          @NonNull Map<Character, MaskIndex<ModeInfo>> modeInfoLists,
                           @NonNull Map<String, SortedSet<ChannelUserMode>> modes, @NonNull List<String> names,
                           @NonNull Map<String, User> nickMap, @NonNull List<User> users,
                           boolean complete, @NonNull DefaultChannelCommands commands) {
@@ -139,7 +140,16 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
     public @NonNull Optional<List<ModeInfo>> getModeInfoList(@NonNull ChannelMode mode) {
         Sanity.nullCheck(mode, "Mode");
         Sanity.truthiness(mode.getType() == ChannelMode.Type.A_MASK, "Mode type must be A, found " + mode.getType());
-        return Optional.ofNullable(this.modeInfoLists.get(mode.getChar()));
+        return Optional.ofNullable(this.modeInfoLists.get(mode.getChar())).map(MaskIndex::getAll);
+    }
+
+    @Override
+    public @NonNull List<ModeInfo> getMatchingModeInfo(@NonNull ChannelMode mode, @NonNull User user) {
+        Sanity.nullCheck(mode, "Mode");
+        Sanity.nullCheck(user, "User");
+        Sanity.truthiness(mode.getType() == ChannelMode.Type.A_MASK, "Mode type must be A, found " + mode.getType());
+        MaskIndex<ModeInfo> index = this.modeInfoLists.get(mode.getChar());
+        return (index == null) ? Collections.emptyList() : index.getMatching(user);
     }
 
     @Override
@@ -24,13 +24,14 @@
 package org.kitteh.irc.client.library.defaults.element.mode;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
-import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.Mode;
 import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -42,8 +43,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * A default list of mode statuses.
@@ -59,10 +58,20 @@ public class DefaultModeStatusList<ModeType extends Mode> implements ModeStatusL
      * @return list
      */
     public static @NonNull DefaultModeStatusList<ChannelMode> fromChannel(@NonNull Client client, @NonNull String string) {
-        Map<Character, ChannelMode> modes = new HashMap<>();
-        client.getServerInfo().getChannelModes().forEach(mode -> modes.put(mode.getChar(), mode));
-        client.getServerInfo().getChannelUserModes().forEach(mode -> modes.put(mode.getChar(), mode));
-        return DefaultModeStatusList.from(string, modes);
+        Sanity.safeMessageCheck(string, "String");
+        return DefaultModeStatusList.fromChannel(client, Arrays.asList(string.split(" ")));
+    }
+
+    /**
+     * Creates a list from already split input such as "+o", "Kittens".
+     *
+     * @param client client for which this list exists
+     * @param parameters mode changes followed by their parameters
+     * @return list
+     */
+    public static @NonNull DefaultModeStatusList<ChannelMode> fromChannel(@NonNull Client client, @NonNull List<String> parameters) {
+        ServerInfo.Snapshot snapshot = client.getServerInfo().getSnapshot();
+        return DefaultModeStatusList.from(parameters, character -> snapshot.getAnyChannelMode(character).orElse(null), snapshot::isParameterRequired);
     }
 
     /**
@@ -73,21 +82,43 @@ public class DefaultModeStatusList<ModeType extends Mode> implements ModeStatusL
      * @return list
      */
     public static @NonNull DefaultModeStatusList<UserMode> fromUser(@NonNull Client client, @NonNull String string) {
-        return DefaultModeStatusList.from(string, client.getServerInfo().getUserModes().stream().collect(Collectors.toMap(UserMode::getChar, Function.identity())));
+        Sanity.safeMessageCheck(string, "String");
+        return DefaultModeStatusList.fromUser(client, Arrays.asList(string.split(" ")));
     }
 
-    private static <ModeType extends Mode> @NonNull DefaultModeStatusList<ModeType> from(@NonNull String string, @NonNull Map<Character, ModeType> modes) {
-        Sanity.safeMessageCheck(string, "String");
+    /**
+     * Creates a list from already split input such as "+iZ".
+     *
+     * @param client client for which this list exists
+     * @param parameters mode changes
+     * @return list
+     */
+    public static @NonNull DefaultModeStatusList<UserMode> fromUser(@NonNull Client client, @NonNull List<String> parameters) {
+        ServerInfo.Snapshot snapshot = client.getServerInfo().getSnapshot();
+        return DefaultModeStatusList.from(parameters, character -> snapshot.getUserMode(character).orElse(null), (character, adding) -> false);
+    }
+
+    private interface ModeLookup<ModeType extends Mode> {
+        @Nullable ModeType get(char character);
+    }
+
+    private interface ParameterLookup {
+        boolean isParameterRequired(char character, boolean adding);
+    }
+
+    private static <ModeType extends Mode> @NonNull DefaultModeStatusList<ModeType> from(@NonNull List<String> parameters, @NonNull ModeLookup<ModeType> modes, @NonNull ParameterLookup parameterLookup) {
+        Sanity.nullCheck(parameters, "Parameters");
         List<ModeStatus<ModeType>> list = new ArrayList<>();
-        String[] args = string.split(" ");
+        int size = parameters.size();
         int currentArg = -1;
-        while (++currentArg < args.length) {
-            String changes = args[currentArg];
-            if (!((changes.charAt(0) == '+') || (changes.charAt(0) == '-'))) {
+        while (++currentArg < size) {
+            String changes = parameters.get(currentArg);
+            if (changes.isEmpty() || !((changes.charAt(0) == '+') || (changes.charAt(0) == '-'))) {
                 throw new IllegalArgumentException("Mode change does not start with + or -");
             }
             ModeStatus.Action action = null; // Immediately changed because of lines immediately above and the switch below.
-            for (char modeChar : changes.toCharArray()) {
+            for (int i = 0; i < changes.length(); i++) {
+                char modeChar = changes.charAt(i);
                 switch (modeChar) {
                     case '+':
                         action = ModeStatus.Action.ADD;
@@ -100,15 +131,18 @@ public class DefaultModeStatusList<ModeType extends Mode> implements ModeStatusL
                         if (mode == null) {
                             throw new IllegalArgumentException("Contains non-registered mode: " + modeChar);
                         }
-                        String target = null;
-                        if ((mode instanceof ChannelMode) && ((mode instanceof ChannelUserMode) || ((action == ModeStatus.Action.ADD) ? ((ChannelMode) mode).getType().isParameterRequiredOnSetting() : ((ChannelMode) mode).getType().isParameterRequiredOnRemoval()))) {
-                            target = args[++currentArg];
+                        if (parameterLookup.isParameterRequired(modeChar, action == ModeStatus.Action.ADD)) {
+                            if (++currentArg >= size) {
+                                throw new IllegalArgumentException("Missing parameter for mode: " + modeChar);
+                            }
+                            list.add(new DefaultModeStatus<>(action, mode, parameters.get(currentArg)));
+                        } else {
+                            list.add(new DefaultModeStatus<>(action, mode));
                         }
-                        list.add((target == null) ? new DefaultModeStatus<>(action, mode) : new DefaultModeStatus<>(action, mode, target));
                 }
             }
         }
-        return DefaultModeStatusList.of(list);
+        return new DefaultModeStatusList<>(list);
     }
 
     /**
@@ -139,36 +173,72 @@ public class DefaultModeStatusList<ModeType extends Mode> implements ModeStatusL
     }
 
     private final List<ModeStatus<ModeType>> statuses;
+    private volatile @Nullable Map<Character, List<ModeStatus<ModeType>>> index;
 
     private DefaultModeStatusList(List<ModeStatus<ModeType>> statuses) {
-        this.statuses = statuses;
+        this.statuses = Collections.unmodifiableList(statuses);
+    }
+
+    /**
+     * Gets the statuses grouped by mode character, built on first use.
+     *
+     * @return unmodifiable lists of statuses by mode character
+     */
+    private @NonNull Map<Character, List<ModeStatus<ModeType>>> getIndex() {
+        Map<Character, List<ModeStatus<ModeType>>> index = this.index;
+        if (index == null) {
+            index = new HashMap<>();
+            for (ModeStatus<ModeType> status : this.statuses) {
+                index.computeIfAbsent(status.getMode().getChar(), character -> new ArrayList<>(1)).add(status);
+            }
+            index.replaceAll((character, statuses) -> Collections.unmodifiableList(statuses));
+            this.index = index;
+        }
+        return index;
     }
 
     @Override
     public boolean contains(@NonNull ModeType mode) {
         Sanity.nullCheck(mode, "Mode");
-        return this.statuses.stream().anyMatch(status -> status.getMode().equals(mode));
+        for (ModeStatus<ModeType> status : this.getByMode(mode.getChar())) {
+            if (status.getMode().equals(mode)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public boolean containsMode(char mode) {
-        return this.statuses.stream().anyMatch(status -> status.getMode().getChar() == mode);
+        return this.getIndex().containsKey(mode);
     }
 
     @Override
     public @NonNull List<ModeStatus<ModeType>> getByMode(@NonNull ModeType mode) {
         Sanity.nullCheck(mode, "Mode");
-        return Collections.unmodifiableList(this.statuses.stream().filter(status -> status.getMode().equals(mode)).collect(Collectors.toList()));
+        List<ModeStatus<ModeType>> byChar = this.getByMode(mode.getChar());
+        for (ModeStatus<ModeType> status : byChar) {
+            if (!status.getMode().equals(mode)) {
+                List<ModeStatus<ModeType>> list = new ArrayList<>(byChar.size());
+                for (ModeStatus<ModeType> candidate : byChar) {
+                    if (candidate.getMode().equals(mode)) {
+                        list.add(candidate);
+                    }
+                }
+                return Collections.unmodifiableList(list);
+            }
+        }
+        return byChar;
     }
 
     @Override
     public @NonNull List<ModeStatus<ModeType>> getByMode(char mode) {
-        return Collections.unmodifiableList(this.statuses.stream().filter(status -> status.getMode().getChar() == mode).collect(Collectors.toList()));
+        return this.getIndex().getOrDefault(mode, Collections.emptyList());
     }
 
     @Override
     public @NonNull List<ModeStatus<ModeType>> getAll() {
-        return Collections.unmodifiableList(this.statuses);
+        return this.statuses;
     }
 
     @Override
@@ -0,0 +1,238 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * Encodes sets of channel user modes as bitmasks, with bit {@code n} set
+ * for the {@code n}th mode in PREFIX order, and decodes them into sorted
+ * set views shared by every membership with the same modes.
+ */
+final class ChannelUserModeTable {
+    private static final int MAX_MODES = Integer.SIZE;
+    private static final int MAX_CACHED_MODES = 8;
+
+    private final List<ChannelUserMode> source;
+    private final ChannelUserMode[] modes;
+    private final @Nullable MaskSet[] views;
+    private final Comparator<ChannelUserMode> comparator;
+
+    /**
+     * Constructs a table.
+     *
+     * @param modes modes in PREFIX order, only the first 32 of which are
+     * encoded
+     */
+    ChannelUserModeTable(@NonNull List<ChannelUserMode> modes) {
+        this.source = modes;
+        this.modes = modes.subList(0, Math.min(modes.size(), MAX_MODES)).toArray(new ChannelUserMode[0]);
+        this.views = (this.modes.length <= MAX_CACHED_MODES) ? new MaskSet[1 << this.modes.length] : new MaskSet[0];
+        this.comparator = Comparator.comparingInt(this::getIndex);
+    }
+
+    /**
+     * Gets the modes this table was built from.
+     *
+     * @return modes in PREFIX order
+     */
+    @NonNull List<ChannelUserMode> getModes() {
+        return this.source;
+    }
+
+    /**
+     * Gets the mask bit for a mode.
+     *
+     * @param mode mode
+     * @return bit, or 0 if the mode is not known to this table
+     */
+    int getBit(@NonNull ChannelUserMode mode) {
+        int index = this.getIndex(mode);
+        return (index < 0) ? 0 : (1 << index);
+    }
+
+    /**
+     * Encodes modes as a mask.
+     *
+     * @param modes modes
+     * @return mask
+     */
+    int encode(@NonNull Collection<ChannelUserMode> modes) {
+        int mask = 0;
+        for (ChannelUserMode mode : modes) {
+            mask |= this.getBit(mode);
+        }
+        return mask;
+    }
+
+    /**
+     * Re-encodes a mask from another table, matching modes by character.
+     *
+     * @param table table the mask was encoded with
+     * @param mask mask
+     * @return mask for this table
+     */
+    int translate(@NonNull ChannelUserModeTable table, int mask) {
+        int translated = 0;
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            translated |= this.getBit(table.modes[Integer.numberOfTrailingZeros(remaining)]);
+        }
+        return translated;
+    }
+
+    /**
+     * Decodes a mask into an unmodifiable sorted set.
+     *
+     * @param mask mask
+     * @return set view of the modes in the mask
+     */
+    @NonNull SortedSet<ChannelUserMode> decode(int mask) {
+        if ((mask >= 0) && (mask < this.views.length)) {
+            MaskSet view = this.views[mask];
+            if (view == null) {
+                view = new MaskSet(mask);
+                this.views[mask] = view;
+            }
+            return view;
+        }
+        return new MaskSet(mask);
+    }
+
+    private int getIndex(@NonNull ChannelUserMode mode) {
+        for (int i = 0; i < this.modes.length; i++) {
+            if (this.modes[i].getChar() == mode.getChar()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private final class MaskSet extends AbstractSet<ChannelUserMode> implements SortedSet<ChannelUserMode> {
+        private final int mask;
+
+        private MaskSet(int mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public @NonNull Iterator<ChannelUserMode> iterator() {
+            return new Iterator<ChannelUserMode>() {
+                private int remaining = MaskSet.this.mask;
+
+                @Override
+                public boolean hasNext() {
+                    return this.remaining != 0;
+                }
+
+                @Override
+                public ChannelUserMode next() {
+                    if (this.remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    int index = Integer.numberOfTrailingZeros(this.remaining);
+                    this.remaining &= this.remaining - 1;
+                    return ChannelUserModeTable.this.modes[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(this.mask);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.mask == 0;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof ChannelUserMode)) {
+                return false;
+            }
+            int index = ChannelUserModeTable.this.getIndex((ChannelUserMode) o);
+            return (index >= 0) && ChannelUserModeTable.this.modes[index].equals(o) && ((this.mask & (1 << index)) != 0);
+        }
+
+        @Override
+        public @NonNull Comparator<? super ChannelUserMode> comparator() {
+            return ChannelUserModeTable.this.comparator;
+        }
+
+        @Override
+        public @NonNull SortedSet<ChannelUserMode> subSet(ChannelUserMode fromElement, ChannelUserMode toElement) {
+            return this.range(this.lowerBound(fromElement), this.lowerBound(toElement));
+        }
+
+        @Override
+        public @NonNull SortedSet<ChannelUserMode> headSet(ChannelUserMode toElement) {
+            return this.range(0, this.lowerBound(toElement));
+        }
+
+        @Override
+        public @NonNull SortedSet<ChannelUserMode> tailSet(ChannelUserMode fromElement) {
+            return this.range(this.lowerBound(fromElement), MAX_MODES);
+        }
+
+        @Override
+        public ChannelUserMode first() {
+            if (this.mask == 0) {
+                throw new NoSuchElementException();
+            }
+            return ChannelUserModeTable.this.modes[Integer.numberOfTrailingZeros(this.mask)];
+        }
+
+        @Override
+        public ChannelUserMode last() {
+            if (this.mask == 0) {
+                throw new NoSuchElementException();
+            }
+            return ChannelUserModeTable.this.modes[MAX_MODES - 1 - Integer.numberOfLeadingZeros(this.mask)];
+        }
+
+        private int lowerBound(@NonNull ChannelUserMode mode) {
+            int index = ChannelUserModeTable.this.getIndex(mode);
+            return (index < 0) ? 0 : index;
+        }
+
+        private @NonNull SortedSet<ChannelUserMode> range(int from, int to) {
+            if (from >= to) {
+                return ChannelUserModeTable.this.decode(0);
+            }
+            int upper = (to >= MAX_MODES) ? -1 : ((1 << to) - 1);
+            return ChannelUserModeTable.this.decode(this.mask & upper & (-1 << from));
+        }
+    }
+}
@@ -35,7 +35,6 @@ import org.kitteh.irc.client.library.defaults.element.DefaultUser;
 import org.kitteh.irc.client.library.defaults.element.mode.DefaultModeStatusList;
 import org.kitteh.irc.client.library.element.Actor;
 import org.kitteh.irc.client.library.element.Channel;
-import org.kitteh.irc.client.library.element.ISupportParameter;
 import org.kitteh.irc.client.library.element.Staleable;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
@@ -44,23 +43,26 @@ import org.kitteh.irc.client.library.element.mode.ModeInfo;
 import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.feature.ActorTracker;
+import org.kitteh.irc.client.library.feature.WhoReply;
 import org.kitteh.irc.client.library.util.CIKeyMap;
+import org.kitteh.irc.client.library.util.MaskIndex;
+import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -115,15 +117,19 @@ public class DefaultActorTracker implements ActorTracker {
             if (this.snapshot != null) {
                 return this.snapshot;
             }
-            return this.snapshot = supplier.get();
+            long start = System.nanoTime();
+            this.snapshot = supplier.get();
+            DefaultActorTracker.this.client.getMetrics().recordSnapshotRebuild(System.nanoTime() - start);
+            return this.snapshot;
         }
     }
 
     class IrcChannel extends IrcStaleable<DefaultChannel> {
         private final Map<Character, ModeStatus<ChannelMode>> channelModes = new HashMap<>();
-        private final Map<Character, List<ModeInfo>> modeInfoLists = new HashMap<>();
+        private final Map<Character, Map<String, ModeInfo>> modeInfoLists = new HashMap<>();
+        private final Map<Character, MaskIndex<ModeInfo>> modeInfoIndexes = new HashMap<>();
         private final Set<Character> trackedModes = new HashSet<>();
-        private final Map<String, Set<ChannelUserMode>> modes;
+        private final Map<String, Integer> modes;
         private final DefaultChannel.DefaultChannelCommands commands;
         private volatile boolean fullListReceived;
         private long lastWho = System.currentTimeMillis();
@@ -177,22 +183,16 @@ public class DefaultActorTracker implements ActorTracker {
                 }
             }
             ModeStatusList<ChannelMode> channelModes = DefaultModeStatusList.of(this.channelModes.values());
-            Map<Character, List<ModeInfo>> modeInfoLists = new HashMap<>();
-            for (Map.Entry<Character, List<ModeInfo>> entry : this.modeInfoLists.entrySet()) {
-                modeInfoLists.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            Map<Character, MaskIndex<ModeInfo>> modeInfoLists = new HashMap<>();
+            for (Character character : this.trackedModes) {
+                modeInfoLists.put(character, this.modeInfoIndexes.computeIfAbsent(character, c ->
+                        new MaskIndex<>(DefaultActorTracker.this.client.getServerInfo().getCaseMapping(),
+                                this.modeInfoLists.getOrDefault(c, Collections.emptyMap()).values(), ModeInfo::getMask)));
             }
-            this.trackedModes.stream()
-                    .filter(character -> !modeInfoLists.containsKey(character))
-                    .forEach(character -> this.modeInfoLists.put(character, Collections.unmodifiableList(new ArrayList<>())));
             Map<String, SortedSet<ChannelUserMode>> newModes = new CIKeyMap<>(DefaultActorTracker.this.client);
-            Optional<ISupportParameter.Prefix> prefix = DefaultActorTracker.this.client.getServerInfo().getISupportParameter("PREFIX", ISupportParameter.Prefix.class);
-            Comparator<ChannelUserMode> comparator = prefix
-                    .<Comparator<ChannelUserMode>>map(prefix1 -> Comparator.comparingInt(prefix1.getModes()::indexOf))
-                    .orElseGet(() -> Comparator.comparing(ChannelUserMode::getChar));
-            for (Map.Entry<String, Set<ChannelUserMode>> entry : this.modes.entrySet()) {
-                SortedSet<ChannelUserMode> newSet = new TreeSet<>(comparator);
-                newSet.addAll(entry.getValue());
-                newModes.put(entry.getKey(), newSet);
+            ChannelUserModeTable table = DefaultActorTracker.this.getModeTable();
+            for (Map.Entry<String, Integer> entry : this.modes.entrySet()) {
+                newModes.put(entry.getKey(), table.decode(entry.getValue()));
             }
             Map<String, User> nickMap = this.modes.keySet().stream()
                     .map(DefaultActorTracker.this.trackedUsers::get)
@@ -211,6 +211,9 @@ public class DefaultActorTracker implements ActorTracker {
                 new ChannelModeCommand(DefaultActorTracker.this.client, this.getName()).add(ModeStatus.Action.ADD, mode).execute();
             } else if (!track) {
                 this.trackedModes.remove(mode.getChar());
+                this.modeInfoLists.remove(mode.getChar());
+                this.modeInfoIndexes.remove(mode.getChar());
+                this.markStale();
             }
         }
 
@@ -218,7 +221,12 @@ public class DefaultActorTracker implements ActorTracker {
             if (!this.trackedModes.contains(character)) {
                 return;
             }
-            this.modeInfoLists.put(character, modeInfoList);
+            Map<String, ModeInfo> modeInfos = new LinkedHashMap<>();
+            for (ModeInfo modeInfo : modeInfoList) {
+                modeInfos.put(modeInfo.getMask().asString(), modeInfo);
+            }
+            this.modeInfoLists.put(character, modeInfos);
+            this.modeInfoIndexes.remove(character);
             this.markStale();
         }
 
@@ -226,17 +234,16 @@ public class DefaultActorTracker implements ActorTracker {
             if (!this.trackedModes.contains(modeInfo.getMode().getChar())) {
                 return;
             }
+            char character = modeInfo.getMode().getChar();
+            Map<String, ModeInfo> modeInfos = this.modeInfoLists.computeIfAbsent(character, c -> new LinkedHashMap<>());
+            String mask = modeInfo.getMask().asString();
             if (add) {
-                this.modeInfoLists.get(modeInfo.getMode().getChar()).add(modeInfo);
-            } else {
-                Iterator<ModeInfo> iterator = this.modeInfoLists.get(modeInfo.getMode().getChar()).iterator();
-                while (iterator.hasNext()) {
-                    if (modeInfo.getMask().equals(iterator.next().getMask())) {
-                        iterator.remove();
-                        return;
-                    }
-                }
+                modeInfos.putIfAbsent(mask, modeInfo);
+            } else if (modeInfos.remove(mask) == null) {
+                return;
             }
+            this.modeInfoIndexes.remove(character);
+            this.markStale();
         }
 
         void trackUser(@NonNull User user, @NonNull Set<ChannelUserMode> modes) {
@@ -247,6 +254,16 @@ public class DefaultActorTracker implements ActorTracker {
         }
 
         void trackNick(@NonNull String nick, @NonNull Set<ChannelUserMode> modes) {
+            this.addNick(nick, modes);
+            this.markStale();
+        }
+
+        void trackNicks(@NonNull Map<String, Set<ChannelUserMode>> nicks) {
+            nicks.forEach(this::addNick);
+            this.markStale();
+        }
+
+        private void addNick(@NonNull String nick, @NonNull Set<ChannelUserMode> modes) {
             String nickname = nick;
             int index;
             if ((index = nick.indexOf('!')) >= 0) { // userhost-in-names
@@ -258,61 +275,66 @@ public class DefaultActorTracker implements ActorTracker {
                     }
                 }
             }
-            if (!this.modes.containsKey(nickname) || this.modes.get(nickname).isEmpty()) {
+            Integer current = this.modes.get(nickname);
+            if ((current == null) || (current == 0)) {
                 this.setModes(nickname, modes);
             }
-            this.markStale();
         }
 
-        void trackUserModeAdd(@NonNull String nick, @NonNull ChannelUserMode mode) {
-            this.getModes(nick).add(mode);
+        private void trackUserNick(@NonNull String oldNick, @NonNull String newNick) {
+            Integer modes = this.modes.remove(oldNick);
+            if (modes != null) {
+                this.modes.put(newNick, modes);
+            }
             this.markStale();
         }
 
-        void trackUserModeRemove(@NonNull String nick, @NonNull ChannelUserMode mode) {
-            this.getModes(nick).remove(mode);
-            this.markStale();
+        private void putMember(@NonNull String nick, int modes) {
+            if (this.modes.put(nick, modes) == null) {
+                DefaultActorTracker.this.memberships.computeIfAbsent(nick, k -> new HashSet<>(2)).add(this);
+            }
         }
 
-        private void trackUserNick(@NonNull String oldNick, @NonNull String newNick) {
-            Set<ChannelUserMode> modes = this.modes.remove(oldNick);
-            if (modes != null) {
-                this.setModes(newNick, modes);
+        private void removeMembership(@NonNull String nick) {
+            Set<IrcChannel> channels = DefaultActorTracker.this.memberships.get(nick);
+            if ((channels != null) && channels.remove(this) && channels.isEmpty()) {
+                DefaultActorTracker.this.memberships.remove(nick);
             }
-            this.markStale();
         }
 
         void trackUserPart(@NonNull String nick) {
-            this.modes.remove(nick);
+            if (this.modes.remove(nick) != null) {
+                this.removeMembership(nick);
+            }
             DefaultActorTracker.this.checkUserForTracking(nick);
             DefaultActorTracker.this.staleUser(nick);
             this.markStale();
         }
 
-        private @NonNull Set<ChannelUserMode> getModes(@NonNull String nick) {
-            return this.modes.computeIfAbsent(nick, k -> new HashSet<>());
-        }
-
         private void setModes(@NonNull String nick, @NonNull Set<ChannelUserMode> modes) {
-            this.modes.put(nick, new HashSet<>(modes));
+            this.putMember(nick, DefaultActorTracker.this.getModeTable().encode(modes));
             this.markStale();
         }
 
         void updateChannelModes(ModeStatusList<ChannelMode> statusList) {
-            statusList.getAll().stream().filter(status -> (status.getMode() instanceof ChannelUserMode) && (status.getParameter().isPresent())).forEach(status -> {
-                if (status.getAction() == ModeStatus.Action.ADD) {
-                    this.trackUserModeAdd(status.getParameter().get(), (ChannelUserMode) status.getMode());
-                } else {
-                    this.trackUserModeRemove(status.getParameter().get(), (ChannelUserMode) status.getMode());
-                }
-            });
-            statusList.getAll().stream().filter(status -> !(status.getMode() instanceof ChannelUserMode) && (status.getMode().getType() != ChannelMode.Type.A_MASK)).forEach(status -> {
-                if (status.getAction() == ModeStatus.Action.ADD) {
-                    this.channelModes.put(status.getMode().getChar(), status);
-                } else {
-                    this.channelModes.remove(status.getMode().getChar());
+            ChannelUserModeTable table = DefaultActorTracker.this.getModeTable();
+            for (ModeStatus<ChannelMode> status : statusList.getAll()) {
+                ChannelMode mode = status.getMode();
+                if (mode instanceof ChannelUserMode) {
+                    if (status.getParameter().isPresent()) {
+                        String nick = status.getParameter().get();
+                        int current = this.modes.getOrDefault(nick, 0);
+                        int bit = table.getBit((ChannelUserMode) mode);
+                        this.putMember(nick, (status.getAction() == ModeStatus.Action.ADD) ? (current | bit) : (current & ~bit));
+                    }
+                } else if (mode.getType() != ChannelMode.Type.A_MASK) {
+                    if (status.getAction() == ModeStatus.Action.ADD) {
+                        this.channelModes.put(mode.getChar(), status);
+                    } else {
+                        this.channelModes.remove(mode.getChar());
+                    }
                 }
-            });
+            }
             this.markStale();
         }
 
@@ -332,6 +354,7 @@ public class DefaultActorTracker implements ActorTracker {
         private String operString;
         private String realName;
         private String server;
+        private boolean indexed;
 
         private IrcUser(@NonNull String mask, @NonNull String nick, @NonNull String user, @NonNull String host) {
             super(mask);
@@ -350,6 +373,7 @@ public class DefaultActorTracker implements ActorTracker {
         }
 
         void setAccount(@Nullable String account) {
+            DefaultActorTracker.this.reindex(DefaultActorTracker.this.usersByAccount, this, this.account, account);
             this.account = account;
             this.markStale();
         }
@@ -379,7 +403,26 @@ public class DefaultActorTracker implements ActorTracker {
             this.markStale();
         }
 
+        void setWhoReply(@NonNull WhoReply reply) {
+            DefaultActorTracker.this.reindex(DefaultActorTracker.this.usersByServer, this, this.server, reply.getServer());
+            this.server = reply.getServer();
+            if (reply.isAccountReported()) {
+                String account = reply.getAccount().orElse(null);
+                DefaultActorTracker.this.reindex(DefaultActorTracker.this.usersByAccount, this, this.account, account);
+                this.account = account;
+            }
+            this.realName = reply.getRealName();
+            if (reply.isAway()) {
+                this.isAway = true;
+            }
+            if (reply.isOperator()) {
+                this.operString = "*";
+            }
+            this.markStale();
+        }
+
         void setHost(@NonNull String host) {
+            DefaultActorTracker.this.reindex(DefaultActorTracker.this.usersByHost, this, this.host, host);
             this.host = host;
             this.updateName();
         }
@@ -390,10 +433,21 @@ public class DefaultActorTracker implements ActorTracker {
         }
 
         void setServer(@NonNull String server) {
+            DefaultActorTracker.this.reindex(DefaultActorTracker.this.usersByServer, this, this.server, server);
             this.server = server;
             this.markStale();
         }
 
+        private void setIndexed(boolean indexed) {
+            if (this.indexed == indexed) {
+                return;
+            }
+            DefaultActorTracker.this.index(DefaultActorTracker.this.usersByHost, this.host, this, indexed);
+            DefaultActorTracker.this.index(DefaultActorTracker.this.usersByAccount, this.account, this, indexed);
+            DefaultActorTracker.this.index(DefaultActorTracker.this.usersByServer, this.server, this, indexed);
+            this.indexed = indexed;
+        }
+
         private void updateName() {
             this.setName(this.nick + '!' + this.user + '@' + this.host);
             this.markStale();
@@ -440,9 +494,16 @@ public class DefaultActorTracker implements ActorTracker {
 
     private final Map<String, IrcChannel> trackedChannels;
     private final Map<String, IrcUser> trackedUsers;
+    private final Map<String, Set<IrcChannel>> memberships;
+    // Queried from any thread, so buckets are concurrent sets
+    private final Map<String, Set<IrcUser>> usersByHost;
+    private final Map<String, Set<IrcUser>> usersByAccount;
+    private final Map<String, Set<IrcUser>> usersByServer;
 
     private boolean queryChannelInformation = true;
 
+    private volatile @Nullable ChannelUserModeTable modeTable;
+
     /**
      * Constructs the tracker.
      *
@@ -452,6 +513,10 @@ public class DefaultActorTracker implements ActorTracker {
         this.client = client;
         this.trackedChannels = new CIKeyMap<>(this.client);
         this.trackedUsers = new CIKeyMap<>(this.client);
+        this.memberships = new CIKeyMap<>(this.client);
+        this.usersByHost = new CIKeyMap<>(this.client);
+        this.usersByAccount = new CIKeyMap<>(this.client);
+        this.usersByServer = new CIKeyMap<>(this.client);
     }
 
     @Override
@@ -513,6 +578,21 @@ public class DefaultActorTracker implements ActorTracker {
         return (u == null) ? Optional.empty() : Optional.of(u.snapshot());
     }
 
+    @Override
+    public @NonNull Set<User> getTrackedUsersByAccount(@NonNull String account) {
+        return this.getIndexedUsers(this.usersByAccount, Sanity.nullCheck(account, "Account"));
+    }
+
+    @Override
+    public @NonNull Set<User> getTrackedUsersByHost(@NonNull String host) {
+        return this.getIndexedUsers(this.usersByHost, Sanity.nullCheck(host, "Host"));
+    }
+
+    @Override
+    public @NonNull Set<User> getTrackedUsersByServer(@NonNull String server) {
+        return this.getIndexedUsers(this.usersByServer, Sanity.nullCheck(server, "Server"));
+    }
+
     @Override
     public boolean isStale(@NonNull Staleable staleable) {
         if (staleable instanceof Channel) {
@@ -648,6 +728,14 @@ public class DefaultActorTracker implements ActorTracker {
         }
     }
 
+    @Override
+    public void trackChannelNicks(@NonNull String channel, @NonNull Map<String, Set<ChannelUserMode>> nicks) {
+        IrcChannel ch = this.trackedChannels.get(channel);
+        if (ch != null) {
+            ch.trackNicks(nicks);
+        }
+    }
+
     @Override
     public void trackChannelUser(@NonNull String channel, @NonNull User user, @NonNull Set<ChannelUserMode> modes) {
         IrcChannel ch = this.trackedChannels.get(channel);
@@ -656,10 +744,53 @@ public class DefaultActorTracker implements ActorTracker {
         }
     }
 
+    @Override
+    public void trackChannelWho(@NonNull String channel, @NonNull Collection<WhoReply> replies) {
+        IrcChannel ch = this.trackedChannels.get(channel);
+        for (WhoReply reply : replies) {
+            IrcUser user = this.trackedUsers.get(reply.getNick());
+            if (user == null) {
+                if (ch == null) {
+                    // Only start tracking users seen in a tracked channel
+                    continue;
+                }
+                user = new IrcUser(reply.getMask(), reply.getNick(), reply.getUserString(), reply.getHost());
+                this.addTrackedUser(reply.getNick(), user);
+            }
+            user.setWhoReply(reply);
+            if (ch != null) {
+                ch.putMember(reply.getNick(), this.getModeTable().encode(reply.getModes()));
+            }
+        }
+        if (ch != null) {
+            ch.markStale();
+        }
+    }
+
+    @Override
+    public void trackPrefixChange() {
+        List<ChannelUserMode> modes = this.client.getServerInfo().getSnapshot().getChannelUserModes();
+        ChannelUserModeTable previous = this.modeTable;
+        if ((previous != null) && previous.getModes().equals(modes)) {
+            return;
+        }
+        ChannelUserModeTable table = new ChannelUserModeTable(modes);
+        if (previous != null) {
+            for (IrcChannel channel : this.trackedChannels.values()) {
+                // CIKeyMap entries cannot be set in place
+                for (Map.Entry<String, Integer> entry : new ArrayList<>(channel.modes.entrySet())) {
+                    channel.modes.put(entry.getKey(), table.translate(previous, entry.getValue()));
+                }
+            }
+        }
+        this.modeTable = table;
+        this.trackedChannels.values().forEach(IrcChannel::markStale);
+    }
+
     @Override
     public void trackUser(@NonNull User user) {
         if (!this.trackedUsers.containsKey(user.getNick())) {
-            this.trackedUsers.put(user.getNick(), new IrcUser(user.getName(), user.getNick(), user.getUserString(), user.getHost()));
+            this.addTrackedUser(user.getNick(), new IrcUser(user.getName(), user.getNick(), user.getUserString(), user.getHost()));
         }
     }
 
@@ -676,7 +807,11 @@ public class DefaultActorTracker implements ActorTracker {
         IrcUser user = this.trackedUsers.remove(oldNick);
         user.setNick(newNick);
         this.trackedUsers.put(newNick, user);
-        this.trackedChannels.values().forEach(channel -> channel.trackUserNick(oldNick, newNick));
+        Set<IrcChannel> channels = this.memberships.remove(oldNick);
+        if (channels != null) {
+            this.memberships.computeIfAbsent(newNick, k -> new HashSet<>(2)).addAll(channels);
+            channels.forEach(channel -> channel.trackUserNick(oldNick, newNick));
+        }
     }
 
     @Override
@@ -697,8 +832,29 @@ public class DefaultActorTracker implements ActorTracker {
 
     @Override
     public void trackUserQuit(@NonNull String nick) {
-        this.trackedUsers.remove(nick);
-        this.trackedChannels.values().forEach(channel -> channel.trackUserPart(nick));
+        this.trackUsersQuit(Collections.singletonList(nick));
+    }
+
+    @Override
+    public void trackUsersQuit(@NonNull Collection<String> nicks) {
+        for (String nick : nicks) {
+            IrcUser removed = this.removeTrackedUser(nick);
+            if (removed != null) {
+                removed.markStale();
+            }
+        }
+        // Only visit the channels the users were in, staling each once
+        Set<IrcChannel> changed = new HashSet<>();
+        for (String nick : nicks) {
+            Set<IrcChannel> channels = this.memberships.remove(nick);
+            if (channels != null) {
+                for (IrcChannel channel : channels) {
+                    channel.modes.remove(nick);
+                    changed.add(channel);
+                }
+            }
+        }
+        changed.forEach(IrcChannel::markStale);
     }
 
     @Override
@@ -713,6 +869,7 @@ public class DefaultActorTracker implements ActorTracker {
     public void unTrackChannel(@NonNull String channel) {
         IrcChannel ch = this.trackedChannels.remove(channel);
         if (ch != null) {
+            ch.modes.keySet().forEach(ch::removeMembership);
             ch.setTracked(false);
         }
     }
@@ -731,6 +888,22 @@ public class DefaultActorTracker implements ActorTracker {
         this.trackedUsers.forEach((name, user) -> user.markStale());
     }
 
+    /**
+     * Gets the table encoding channel user modes. Only replaced by {@link
+     * #trackPrefixChange()} on the input thread, so snapshots only read it.
+     *
+     * @return mode table
+     */
+    private @NonNull ChannelUserModeTable getModeTable() {
+        ChannelUserModeTable table = this.modeTable;
+        if (table == null) {
+            // Nothing is encoded yet, so any thread building the same first table is harmless
+            table = new ChannelUserModeTable(this.client.getServerInfo().getSnapshot().getChannelUserModes());
+            this.modeTable = table;
+        }
+        return table;
+    }
+
     /**
      * Considers a user for being removed from tracking.
      *
@@ -738,14 +911,68 @@ public class DefaultActorTracker implements ActorTracker {
      */
     private void checkUserForTracking(@NonNull String nick) {
         if (!this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(nick, this.client.getNick())
-                && this.trackedChannels.values().stream().noneMatch(channel -> channel.modes.containsKey(nick))) {
-            IrcUser removed = this.trackedUsers.remove(nick);
+                && !this.memberships.containsKey(nick)) {
+            IrcUser removed = this.removeTrackedUser(nick);
             if (removed != null) {
                 removed.markStale();
             }
         }
     }
 
+    private void addTrackedUser(@NonNull String nick, @NonNull IrcUser user) {
+        this.trackedUsers.put(nick, user);
+        user.setIndexed(true);
+    }
+
+    private @Nullable IrcUser removeTrackedUser(@NonNull String nick) {
+        IrcUser removed = this.trackedUsers.remove(nick);
+        if (removed != null) {
+            removed.setIndexed(false);
+        }
+        return removed;
+    }
+
+    /**
+     * Moves a tracked user between keys of a secondary index.
+     *
+     * @param index index
+     * @param user user
+     * @param oldKey current key, or null if not indexed
+     * @param newKey new key, or null to no longer index
+     */
+    private void reindex(@NonNull Map<String, Set<IrcUser>> index, @NonNull IrcUser user, @Nullable String oldKey, @Nullable String newKey) {
+        if (user.indexed) {
+            this.index(index, oldKey, user, false);
+            this.index(index, newKey, user, true);
+        }
+    }
+
+    private void index(@NonNull Map<String, Set<IrcUser>> index, @Nullable String key, @NonNull IrcUser user, boolean add) {
+        if (key == null) {
+            return;
+        }
+        if (add) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(user);
+        } else {
+            Set<IrcUser> users = index.get(key);
+            if ((users != null) && users.remove(user) && users.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private @NonNull Set<User> getIndexedUsers(@NonNull Map<String, Set<IrcUser>> index, @NonNull String key) {
+        Set<IrcUser> users = index.get(key);
+        if (users == null) {
+            return Collections.emptySet();
+        }
+        Set<User> snapshots = new HashSet<>(users.size());
+        for (IrcUser user : users) {
+            snapshots.add(user.snapshot());
+        }
+        return Collections.unmodifiableSet(snapshots);
+    }
+
     private void staleUser(String nick) {
         IrcUser user = this.trackedUsers.get(nick);
         if (user != null) {
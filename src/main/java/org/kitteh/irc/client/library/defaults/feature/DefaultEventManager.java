@@ -30,6 +30,7 @@ import net.engio.mbassy.bus.error.IPublicationErrorHandler;
 import net.engio.mbassy.bus.error.PublicationError;
 import net.engio.mbassy.listener.Handler;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.event.connection.ClientConnectionEndedEvent;
 import org.kitteh.irc.client.library.event.helper.ClientEvent;
@@ -37,11 +38,13 @@ import org.kitteh.irc.client.library.exception.KittehEventException;
 import org.kitteh.irc.client.library.exception.KittehNagException;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.Partitioned;
 import org.kitteh.irc.client.library.feature.filter.CommandFilter;
 import org.kitteh.irc.client.library.feature.filter.EchoMessage;
 import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
 import org.kitteh.irc.client.library.feature.filter.NumericFilter;
 import org.kitteh.irc.client.library.feature.filter.ToSelfOnly;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -95,6 +98,9 @@ public class DefaultEventManager implements EventManager {
 
     private final MBassador<Object> bus;
     private final Client client;
+    private final HandlerMonitor handlerMonitor;
+    private final HandlerLanes handlerLanes;
+    private final @Nullable ClientMetrics metrics;
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters = new ConcurrentHashMap<>();
     private final Set<Object> listeners = new HashSet<>();
 
@@ -104,13 +110,16 @@ public class DefaultEventManager implements EventManager {
      * @param client client for which this manager will operate
      */
     public DefaultEventManager(@NonNull Client client) {
+        this.handlerMonitor = new HandlerMonitor(client);
+        this.handlerLanes = new HandlerLanes(client, Runtime.getRuntime().availableProcessors());
         BusConfiguration configuration = new BusConfiguration()
-                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters)))
+                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters, this.handlerMonitor, this.handlerLanes)))
                 .addFeature(Feature.AsynchronousHandlerInvocation.Default())
                 .addFeature(Feature.AsynchronousMessageDispatch.Default())
                 .addPublicationErrorHandler(new Exceptional(client));
         this.bus = new MBassador<>(configuration);
         this.client = client;
+        this.metrics = (client instanceof Client.WithManagement) ? ((Client.WithManagement) client).getMetrics() : null;
         // Defaults!
         this.registerAnnotationFilter(CommandFilter.class, new CommandFilter.Processor());
         this.registerAnnotationFilter(EchoMessage.class, new EchoMessage.Processor());
@@ -126,7 +135,33 @@ public class DefaultEventManager implements EventManager {
         if (event instanceof ClientEvent) {
             Sanity.truthiness(((ClientEvent) event).getClient() == this.client, "Event cannot be from another client!");
         }
+        if (this.metrics == null) {
+            this.bus.publish(event);
+            return;
+        }
+        long start = System.nanoTime();
         this.bus.publish(event);
+        this.metrics.recordDispatchTime(event.getClass(), System.nanoTime() - start);
+    }
+
+    /**
+     * Gets the monitor timing synchronous event handlers, through which
+     * monitoring is enabled and the slow handler threshold and quarantine
+     * can be configured.
+     *
+     * @return handler monitor
+     */
+    public @NonNull HandlerMonitor getHandlerMonitor() {
+        return this.handlerMonitor;
+    }
+
+    /**
+     * Gets the lanes on which {@link Partitioned} handlers run.
+     *
+     * @return handler lanes
+     */
+    public @NonNull HandlerLanes getHandlerLanes() {
+        return this.handlerLanes;
     }
 
     @Override
@@ -167,6 +202,8 @@ public class DefaultEventManager implements EventManager {
     public void onShutdown(ClientConnectionEndedEvent event) {
         if (!event.canAttemptReconnect()) {
             this.bus.shutdown();
+            this.handlerMonitor.shutdown();
+            this.handlerLanes.shutdown();
         }
     }
 
@@ -24,6 +24,7 @@
 package org.kitteh.irc.client.library.defaults.feature;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.defaults.element.mode.DefaultChannelMode;
 import org.kitteh.irc.client.library.defaults.element.mode.DefaultChannelUserMode;
@@ -33,6 +34,7 @@ import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.Mode;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
@@ -47,7 +49,6 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -65,11 +66,8 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
     private String version;
     private final List<UserMode> userModes = new CopyOnWriteArrayList<>();
     private final List<UserMode> customUserModes = new CopyOnWriteArrayList<>();
-
-    // Pattern: ([#!&\+][^ ,\07\r\n]{1,49})
-    // Screw it, let's assume IRCDs disregard length policy
-    // New pattern: ([#!&\+][^ ,\07\r\n]+)
-    private final Pattern channelPattern = Pattern.compile("([#!&+][^ ,\\07\\r\\n]+)");
+    private long revision;
+    private volatile @Nullable Snapshot snapshot;
 
     /**
      * Constructs the server info.
@@ -103,11 +101,13 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
     @Override
     public void addCustomChannelMode(@NonNull ChannelMode mode) {
         this.customChannelModes.add(Sanity.nullCheck(mode, "mode"));
+        this.invalidateSnapshot();
     }
 
     @Override
     public void addCustomUserMode(@NonNull UserMode mode) {
         this.customUserModes.add(Sanity.nullCheck(mode, "mode"));
+        this.invalidateSnapshot();
     }
 
     @Override
@@ -120,8 +120,63 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
         this.address = serverAddress;
     }
 
+    @Override
+    public @NonNull CaseMapping getCaseMapping() {
+        return this.getSnapshot().getCaseMapping();
+    }
+
+    @Override
+    public int getChannelLengthLimit() {
+        return this.getSnapshot().getChannelLengthLimit();
+    }
+
+    @Override
+    public @NonNull Optional<ChannelMode> getChannelMode(char character) {
+        return this.getSnapshot().getChannelMode(character);
+    }
+
     @Override
     public @NonNull List<ChannelMode> getChannelModes() {
+        return this.getSnapshot().getChannelModes();
+    }
+
+    @Override
+    public @NonNull List<Character> getChannelPrefixes() {
+        return this.getSnapshot().getChannelPrefixes();
+    }
+
+    @Override
+    public @NonNull Optional<ChannelUserMode> getChannelUserMode(char character) {
+        return this.getSnapshot().getChannelUserMode(character);
+    }
+
+    @Override
+    public @NonNull List<ChannelUserMode> getChannelUserModes() {
+        return this.getSnapshot().getChannelUserModes();
+    }
+
+    @Override
+    public @NonNull Snapshot getSnapshot() {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = this.snapshot;
+                if (snapshot == null) {
+                    snapshot = new Snapshot(this.revision, ServerInfo.WithManagement.super.getCaseMapping(), ServerInfo.WithManagement.super.getChannelLengthLimit(),
+                            this.buildChannelModes(), this.buildChannelPrefixes(), this.buildChannelUserModes(), this.buildUserModes());
+                    this.snapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private synchronized void invalidateSnapshot() {
+        this.revision++;
+        this.snapshot = null;
+    }
+
+    private @NonNull List<ChannelMode> buildChannelModes() {
         Optional<ISupportParameter.ChanModes> optional = this.getISupportParameter(ISupportParameter.ChanModes.NAME, ISupportParameter.ChanModes.class);
         List<ChannelMode> list = new ArrayList<>();
         List<ChannelMode> modes = optional.map(ISupportParameter.ChanModes::getModes).orElse(this.defaultChannelModes);
@@ -131,16 +186,22 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
         return list;
     }
 
-    @Override
-    public @NonNull List<Character> getChannelPrefixes() {
+    private @NonNull List<Character> buildChannelPrefixes() {
         Optional<ISupportParameter.ChanTypes> optional = this.getISupportParameter(ISupportParameter.ChanTypes.NAME, ISupportParameter.ChanTypes.class);
-        return new ArrayList<>(optional.map(ISupportParameter.ChanTypes::getTypes).orElse(this.defaultChannelPrefixes));
+        return optional.map(ISupportParameter.ChanTypes::getTypes).orElse(this.defaultChannelPrefixes);
     }
 
-    @Override
-    public @NonNull List<ChannelUserMode> getChannelUserModes() {
+    private @NonNull List<ChannelUserMode> buildChannelUserModes() {
         Optional<ISupportParameter.Prefix> optional = this.getISupportParameter(ISupportParameter.Prefix.NAME, ISupportParameter.Prefix.class);
-        return new ArrayList<>(optional.map(ISupportParameter.Prefix::getModes).orElse(this.defaultChannelUserModes));
+        return optional.map(ISupportParameter.Prefix::getModes).orElse(this.defaultChannelUserModes);
+    }
+
+    private @NonNull List<UserMode> buildUserModes() {
+        List<UserMode> list = new ArrayList<>();
+        Set<Character> customModeChars = this.customUserModes.stream().map(Mode::getChar).collect(Collectors.toSet());
+        this.userModes.stream().filter(mode -> !customModeChars.contains(mode.getChar())).forEach(list::add);
+        list.addAll(this.customUserModes);
+        return list;
     }
 
     @Override
@@ -157,6 +218,7 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
     @Override
     public void addISupportParameter(@NonNull ISupportParameter parameter) {
         this.iSupportParameterMap.put(parameter.getName().toUpperCase(), parameter);
+        this.invalidateSnapshot();
     }
 
     @Override
@@ -182,9 +244,7 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
     // Util stuffs
     @Override
     public boolean isValidChannel(@NonNull String name) {
-        Sanity.nullCheck(name, "Channel name");
-        int channelLengthLimit = this.getChannelLengthLimit();
-        return (name.length() > 1) && ((channelLengthLimit < 0) || (name.length() <= channelLengthLimit)) && this.getChannelPrefixes().contains(name.charAt(0)) && this.channelPattern.matcher(name).matches();
+        return this.getSnapshot().isValidChannel(name);
     }
 
     @Override
@@ -192,31 +252,24 @@ public class DefaultServerInfo implements ServerInfo.WithManagement {
         if (name.length() < 2) {
             return Optional.empty();
         }
+        final Snapshot snapshot = this.getSnapshot();
         final char first = name.charAt(0);
-        final String shorter = name.substring(1);
-        if (!this.getChannelPrefixes().contains(first) && this.isValidChannel(shorter)) {
-            for (ChannelUserMode mode : this.getChannelUserModes()) {
-                if (mode.getNickPrefix() == first) {
-                    return Optional.of(mode);
-                }
-            }
+        if (!snapshot.isChannelPrefix(first) && snapshot.isValidChannel(name.substring(1))) {
+            return snapshot.getChannelUserModeByPrefix(first);
         }
         return Optional.empty();
     }
 
     @Override
     public @NonNull List<UserMode> getUserModes() {
-        List<UserMode> list = new ArrayList<>();
-        Set<Character> customModeChars = this.customUserModes.stream().map(Mode::getChar).collect(Collectors.toSet());
-        this.userModes.stream().filter(mode -> !customModeChars.contains(mode.getChar())).forEach(list::add);
-        list.addAll(this.customUserModes);
-        return list;
+        return this.getSnapshot().getUserModes();
     }
 
     @Override
     public void setUserModes(@NonNull List<UserMode> userModes) {
         this.userModes.clear();
         this.userModes.addAll(userModes);
+        this.invalidateSnapshot();
     }
 
     @Override
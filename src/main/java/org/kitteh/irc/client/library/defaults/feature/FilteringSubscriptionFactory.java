@@ -28,9 +28,12 @@ import net.engio.mbassy.bus.error.MessageBusException;
 import net.engio.mbassy.dispatch.DelegatingMessageDispatcher;
 import net.engio.mbassy.dispatch.IHandlerInvocation;
 import net.engio.mbassy.dispatch.IMessageDispatcher;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
 import net.engio.mbassy.subscription.SubscriptionContext;
 import net.engio.mbassy.subscription.SubscriptionFactory;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
 import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
@@ -45,6 +48,8 @@ import java.util.Map;
  */
 public class FilteringSubscriptionFactory extends SubscriptionFactory {
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters;
+    private final @Nullable HandlerMonitor handlerMonitor;
+    private final @Nullable HandlerLanes handlerLanes;
 
     /**
      * Constructs the filter factory.
@@ -52,10 +57,40 @@ public class FilteringSubscriptionFactory extends SubscriptionFactory {
      * @param filters the filters
      */
     public FilteringSubscriptionFactory(@NonNull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters) {
+        this(filters, null, null);
+    }
+
+    /**
+     * Constructs the filter factory, timing synchronous handlers and
+     * running partitioned handlers on lanes.
+     *
+     * @param filters the filters
+     * @param handlerMonitor monitor timing handlers, or null to not time
+     * @param handlerLanes lanes for partitioned handlers, or null to run
+     * them synchronously
+     */
+    public FilteringSubscriptionFactory(@NonNull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters, @Nullable HandlerMonitor handlerMonitor, @Nullable HandlerLanes handlerLanes) {
         this.filters = Sanity.nullCheck(filters, "filters");
+        this.handlerMonitor = handlerMonitor;
+        this.handlerLanes = handlerLanes;
     }
 
     @Override
+    protected IHandlerInvocation<?, ?> buildInvocationForHandler(SubscriptionContext context) throws MessageBusException {
+        IHandlerInvocation<?, ?> invocation = super.buildInvocationForHandler(context);
+        if (context.getHandler().isAsynchronous()) {
+            return new RetainingInvocation(context, invocation);
+        }
+        if ((this.handlerLanes != null) && HandlerLanes.isPartitioned(context)) {
+            invocation = this.handlerLanes.wrap(context, invocation);
+        } else if (this.handlerMonitor != null) {
+            invocation = this.handlerMonitor.wrap(context, invocation);
+        }
+        return invocation;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // Overridden signature is raw
     protected IMessageDispatcher buildDispatcher(SubscriptionContext context, IHandlerInvocation invocation) throws MessageBusException {
         IMessageDispatcher dispatcher = super.buildDispatcher(context, invocation);
         List<FilterProcessorWrapper> filterWrappers = new ArrayList<>();
@@ -71,6 +106,33 @@ public class FilteringSubscriptionFactory extends SubscriptionFactory {
         return dispatcher;
     }
 
+    /**
+     * Retains a recycled event about to be handed to another thread.
+     *
+     * @param message message dispatched
+     * @return message safe to keep
+     * @see ClientReceiveServerMessageEvent#retain()
+     */
+    static Object retain(Object message) {
+        return (message instanceof ClientReceiveServerMessageEvent) ? ((ClientReceiveServerMessageEvent) message).retain() : message;
+    }
+
+    private static final class RetainingInvocation extends AbstractSubscriptionContextAware implements IHandlerInvocation<Object, Object> {
+        private final IHandlerInvocation<Object, Object> delegate;
+
+        private RetainingInvocation(SubscriptionContext context, IHandlerInvocation<?, ?> invocation) {
+            super(context);
+            @SuppressWarnings("unchecked")
+            IHandlerInvocation<Object, Object> delegate = (IHandlerInvocation<Object, Object>) invocation;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void invoke(Object listener, Object message, MessagePublication publication) {
+            this.delegate.invoke(listener, FilteringSubscriptionFactory.retain(message), publication);
+        }
+    }
+
     private final class FilteredMessageDispatcher extends DelegatingMessageDispatcher {
         private final FilterProcessorWrapper[] filters;
 
@@ -0,0 +1,189 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.dispatch.IHandlerInvocation;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
+import net.engio.mbassy.subscription.SubscriptionContext;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.helper.ActorEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.event.helper.ClientEvent;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.Partitioned;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parallel lanes for {@link Partitioned} handlers. Each lane is a single
+ * thread, and every event is assigned a lane by its partition key, so
+ * events sharing a key are handled in order.
+ */
+public class HandlerLanes {
+    private static final String GLOBAL = "";
+
+    private final class PartitionedInvocation extends AbstractSubscriptionContextAware implements IHandlerInvocation<Object, Object> {
+        private final IHandlerInvocation<Object, Object> delegate;
+
+        private PartitionedInvocation(@NonNull SubscriptionContext context, @NonNull IHandlerInvocation<Object, Object> delegate) {
+            super(context);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void invoke(Object listener, Object message, MessagePublication publication) {
+            Object retained = FilteringSubscriptionFactory.retain(message);
+            HandlerLanes.this.getLane(HandlerLanes.getPartition(retained)).execute(() -> this.delegate.invoke(listener, retained, publication));
+        }
+    }
+
+    private final Client client;
+    private final AtomicReferenceArray<ExecutorService> lanes;
+
+    /**
+     * Constructs lanes, started as needed.
+     *
+     * @param client client whose events are handled
+     * @param lanes number of lanes
+     * @throws IllegalArgumentException if lanes is not positive
+     */
+    public HandlerLanes(@NonNull Client client, int lanes) {
+        this.client = Sanity.nullCheck(client, "Client");
+        Sanity.truthiness(lanes > 0, "Lanes must be positive");
+        this.lanes = new AtomicReferenceArray<>(lanes);
+    }
+
+    /**
+     * Gets if a handler should be run on the lanes.
+     *
+     * @param context subscription context of the handler
+     * @return true if partitioned
+     */
+    public static boolean isPartitioned(@NonNull SubscriptionContext context) {
+        return context.getHandler().getMethod().isAnnotationPresent(Partitioned.class) || context.getHandler().getMethod().getDeclaringClass().isAnnotationPresent(Partitioned.class);
+    }
+
+    /**
+     * Gets the partition key of an event: its channel, else its target
+     * parameter if a channel, else its actor. The target is the first
+     * parameter of a command, or the one after the client's nick in a
+     * numeric.
+     *
+     * @param event event
+     * @return partition key, lower-cased by the client's case mapping
+     */
+    static @NonNull String getPartition(@NonNull Object event) {
+        if (!(event instanceof ClientEvent)) {
+            return GLOBAL;
+        }
+        ServerInfo serverInfo = ((ClientEvent) event).getClient().getServerInfo();
+        String key = null;
+        if (event instanceof ChannelEvent) {
+            key = ((ChannelEvent) event).getChannel().getName();
+        } else if (event instanceof ClientReceiveServerMessageEvent) {
+            List<String> parameters = ((ClientReceiveServerMessageEvent) event).getParameters();
+            int target = 0;
+            if (event instanceof ClientReceiveNumericEvent) {
+                // RPL_NAMREPLY has the channel type before the channel
+                target = (((ClientReceiveNumericEvent) event).getNumeric() == 353) ? 2 : 1;
+            }
+            if ((parameters.size() > target) && serverInfo.isValidChannel(parameters.get(target))) {
+                key = parameters.get(target);
+            }
+        }
+        if ((key == null) && (event instanceof ActorEvent)) {
+            key = ((ActorEvent<?>) event).getActor().getName();
+        }
+        return (key == null) ? GLOBAL : serverInfo.getCaseMapping().toLowerCase(key);
+    }
+
+    /**
+     * Wraps a handler invocation to run on the lanes.
+     *
+     * @param context subscription context
+     * @param invocation invocation to wrap
+     * @return wrapped invocation
+     */
+    public @NonNull IHandlerInvocation<?, ?> wrap(@NonNull SubscriptionContext context, @NonNull IHandlerInvocation<?, ?> invocation) {
+        @SuppressWarnings("unchecked")
+        IHandlerInvocation<Object, Object> delegate = (IHandlerInvocation<Object, Object>) invocation;
+        return new PartitionedInvocation(context, delegate);
+    }
+
+    private @NonNull ExecutorService getLane(@NonNull String partition) {
+        int index = Math.floorMod(partition.hashCode(), this.lanes.length());
+        ExecutorService lane = this.lanes.get(index);
+        if (lane == null) {
+            String name = "KICL Handler Lane " + index + " (" + this.client.getName() + ')';
+            ExecutorService created = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (this.lanes.compareAndSet(index, null, created)) {
+                lane = created;
+            } else {
+                // Lost the race, and nothing was submitted to this one
+                created.shutdown();
+                lane = this.lanes.get(index);
+            }
+        }
+        return lane;
+    }
+
+    /**
+     * Gets the number of lanes.
+     *
+     * @return lane count
+     */
+    public int getLaneCount() {
+        return this.lanes.length();
+    }
+
+    /**
+     * Stops all started lanes after their queued events are handled.
+     */
+    public void shutdown() {
+        for (int i = 0; i < this.lanes.length(); i++) {
+            ExecutorService lane = this.lanes.getAndSet(i, null);
+            if (lane != null) {
+                lane.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("client", this.client).add("lanes", this.lanes.length()).toString();
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.dispatch.IHandlerInvocation;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
+import net.engio.mbassy.subscription.SubscriptionContext;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.listener.AbstractDefaultListenerBase;
+import org.kitteh.irc.client.library.exception.KittehNagException;
+import org.kitteh.irc.client.library.feature.metrics.Histogram;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Once enabled, times every synchronous event handler invocation, nags the
+ * client's exception listener when a handler exceeds the slow threshold,
+ * and can quarantine handlers which are consistently slow by moving them
+ * onto a single asynchronous lane so they no longer stall input processing.
+ * <p>
+ * Quarantined handlers keep their relative order, but no longer run before
+ * handlers of lower priority or block the event's caller. The library's
+ * own default listeners update client state in order, so they are never
+ * monitored.
+ */
+public class HandlerMonitor {
+    /**
+     * Default threshold in milliseconds above which a handler is slow.
+     */
+    public static final long DEFAULT_SLOW_THRESHOLD = 100;
+    /**
+     * Minimum milliseconds between nags about the same handler.
+     */
+    public static final long NAG_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final class HandlerStats {
+        private final Method method;
+        private final Histogram times = new Histogram();
+        private int consecutiveSlow;
+        private volatile boolean quarantined;
+        private long lastNag;
+
+        private HandlerStats(@NonNull Method method) {
+            this.method = method;
+        }
+
+        private synchronized void record(long nanos) {
+            this.times.record(nanos);
+            if (nanos <= HandlerMonitor.this.slowThresholdNanos) {
+                this.consecutiveSlow = 0;
+                return;
+            }
+            this.consecutiveSlow++;
+            int quarantineAfter = HandlerMonitor.this.quarantineAfter;
+            if (!this.quarantined && (quarantineAfter > 0) && (this.consecutiveSlow >= quarantineAfter)) {
+                this.quarantined = true;
+                HandlerMonitor.this.nag("Event handler " + HandlerMonitor.describe(this.method) + " was slow " + this.consecutiveSlow + " times in a row and has been moved off the input thread");
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if ((now - this.lastNag) >= NAG_INTERVAL) {
+                this.lastNag = now;
+                HandlerMonitor.this.nag("Event handler " + HandlerMonitor.describe(this.method) + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms, stalling input processing");
+            }
+        }
+    }
+
+    private final class TimedInvocation extends AbstractSubscriptionContextAware implements IHandlerInvocation<Object, Object> {
+        private final IHandlerInvocation<Object, Object> delegate;
+        private final HandlerStats stats;
+
+        private TimedInvocation(@NonNull SubscriptionContext context, @NonNull IHandlerInvocation<Object, Object> delegate, @NonNull HandlerStats stats) {
+            super(context);
+            this.delegate = delegate;
+            this.stats = stats;
+        }
+
+        @Override
+        public void invoke(Object listener, Object message, MessagePublication publication) {
+            if (!HandlerMonitor.this.enabled) {
+                this.delegate.invoke(listener, message, publication);
+                return;
+            }
+            if (this.stats.quarantined) {
+                Object retained = FilteringSubscriptionFactory.retain(message);
+                HandlerMonitor.this.getLane().execute(() -> this.delegate.invoke(listener, retained, publication));
+                return;
+            }
+            long start = System.nanoTime();
+            this.delegate.invoke(listener, message, publication);
+            this.stats.record(System.nanoTime() - start);
+        }
+    }
+
+    private final Client client;
+    private final Map<Method, HandlerStats> stats = new ConcurrentHashMap<>();
+    private volatile long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD);
+    private volatile int quarantineAfter = 0;
+    private volatile boolean enabled = false;
+    private @Nullable ExecutorService lane;
+
+    /**
+     * Constructs a monitor.
+     *
+     * @param client client to nag
+     */
+    public HandlerMonitor(@NonNull Client client) {
+        this.client = Sanity.nullCheck(client, "Client");
+    }
+
+    private static @NonNull String describe(@NonNull Method method) {
+        return method.getDeclaringClass().getName() + '#' + method.getName();
+    }
+
+    /**
+     * Gets if handlers declared by a class can be monitored, which excludes
+     * the library's default listeners.
+     *
+     * @param declaringClass class declaring the handler
+     * @return true if the handlers can be monitored
+     */
+    static boolean isMonitorable(@NonNull Class<?> declaringClass) {
+        return !AbstractDefaultListenerBase.class.isAssignableFrom(declaringClass)
+                && !AbstractDefaultListenerBase.class.getPackage().equals(declaringClass.getPackage());
+    }
+
+    /**
+     * Wraps a handler invocation with timing, unless it belongs to one of
+     * the library's default listeners.
+     *
+     * @param context subscription context
+     * @param invocation invocation to wrap
+     * @return wrapped invocation
+     */
+    public @NonNull IHandlerInvocation<?, ?> wrap(@NonNull SubscriptionContext context, @NonNull IHandlerInvocation<?, ?> invocation) {
+        Method method = context.getHandler().getMethod();
+        if (!HandlerMonitor.isMonitorable(method.getDeclaringClass())) {
+            return invocation;
+        }
+        @SuppressWarnings("unchecked")
+        IHandlerInvocation<Object, Object> delegate = (IHandlerInvocation<Object, Object>) invocation;
+        return new TimedInvocation(context, delegate, this.stats.computeIfAbsent(method, HandlerStats::new));
+    }
+
+    private void nag(@NonNull String problem) {
+        if (this.client instanceof Client.WithManagement) {
+            ((Client.WithManagement) this.client).getExceptionListener().queue(new KittehNagException(problem));
+        }
+    }
+
+    private synchronized @NonNull ExecutorService getLane() {
+        if (this.lane == null) {
+            this.lane = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "KICL Quarantined Handlers (" + this.client.getName() + ')');
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.lane;
+    }
+
+    /**
+     * Sets if handler invocations are timed, and slow handlers nagged about
+     * and quarantined. Disabled by default.
+     *
+     * @param enabled true to monitor handlers
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets if handler invocations are monitored.
+     *
+     * @return true if monitoring
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Sets the time above which a handler invocation is considered slow.
+     *
+     * @param milliseconds threshold in milliseconds
+     * @throws IllegalArgumentException if not positive
+     */
+    public void setSlowThreshold(long milliseconds) {
+        Sanity.truthiness(milliseconds > 0, "Threshold must be positive");
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+    }
+
+    /**
+     * Gets the time above which a handler invocation is considered slow.
+     *
+     * @return threshold in milliseconds
+     */
+    public long getSlowThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(this.slowThresholdNanos);
+    }
+
+    /**
+     * Sets how many consecutive slow invocations get a handler quarantined.
+     *
+     * @param invocations consecutive slow invocations, or 0 to never
+     * quarantine
+     * @throws IllegalArgumentException if negative
+     */
+    public void setQuarantineAfter(int invocations) {
+        Sanity.truthiness(invocations >= 0, "Invocations cannot be negative");
+        this.quarantineAfter = invocations;
+    }
+
+    /**
+     * Gets how many consecutive slow invocations get a handler quarantined.
+     *
+     * @return consecutive slow invocations, or 0 if never
+     */
+    public int getQuarantineAfter() {
+        return this.quarantineAfter;
+    }
+
+    /**
+     * Gets the invocation times, in nanoseconds, of each handler which has
+     * been invoked synchronously.
+     *
+     * @return unmodifiable map of handler method to times
+     */
+    public @NonNull Map<Method, Histogram> getHandlerTimes() {
+        return Collections.unmodifiableMap(this.stats.values().stream()
+                .filter(stats -> stats.times.getCount() > 0)
+                .collect(Collectors.toMap(stats -> stats.method, stats -> stats.times)));
+    }
+
+    /**
+     * Gets the handlers which have been quarantined.
+     *
+     * @return handler methods
+     */
+    public @NonNull Set<Method> getQuarantinedHandlers() {
+        return Collections.unmodifiableSet(this.stats.values().stream()
+                .filter(stats -> stats.quarantined)
+                .map(stats -> stats.method)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Returns a quarantined handler to synchronous invocation.
+     *
+     * @param method handler method
+     */
+    public void release(@NonNull Method method) {
+        HandlerStats stats = this.stats.get(Sanity.nullCheck(method, "Method"));
+        if (stats != null) {
+            synchronized (stats) {
+                stats.quarantined = false;
+                stats.consecutiveSlow = 0;
+            }
+        }
+    }
+
+    /**
+     * Stops the asynchronous lane, if started.
+     */
+    public synchronized void shutdown() {
+        if (this.lane != null) {
+            this.lane.shutdown();
+            this.lane = null;
+        }
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("client", this.client).add("enabled", this.enabled).add("slowThreshold", this.getSlowThreshold()).add("quarantineAfter", this.quarantineAfter).toString();
+    }
+}
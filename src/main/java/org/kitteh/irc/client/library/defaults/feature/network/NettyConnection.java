@@ -23,6 +23,7 @@
  */
 package org.kitteh.irc.client.library.defaults.feature.network;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
@@ -30,6 +31,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
@@ -61,6 +63,7 @@ import org.kitteh.irc.client.library.util.HostWithPort;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.SslUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
+import org.kitteh.irc.client.library.util.TrafficLine;
 
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
@@ -70,6 +73,7 @@ import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -128,7 +132,11 @@ public final class NettyConnection implements ClientConnection {
         this.channel.pipeline().addFirst("[OUTPUT] Output listener", new MessageToMessageEncoder<String>() {
             @Override
             protected void encode(ChannelHandlerContext ctx, String msg, List<Object> out) {
+                NettyConnection.this.client.getMetrics().recordLineOut();
                 NettyConnection.this.client.getOutputListener().queue(msg);
+                if (NettyConnection.this.client.getTrafficListener().hasConsumer()) {
+                    NettyConnection.this.client.getTrafficListener().queue(new TrafficLine(TrafficLine.Direction.OUTPUT, msg, Instant.now()));
+                }
                 out.add(msg);
             }
         });
@@ -139,6 +147,15 @@ public final class NettyConnection implements ClientConnection {
             }
         });
         this.channel.pipeline().addFirst("[OUTPUT] String encoder", new StringEncoder(CharsetUtil.UTF_8));
+        this.channel.pipeline().addFirst("[OUTPUT] Byte counter", new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                if (msg instanceof ByteBuf) {
+                    NettyConnection.this.client.getMetrics().recordBytesOut(((ByteBuf) msg).readableBytes());
+                }
+                super.write(ctx, msg, promise);
+            }
+        });
 
         // Handle timeout
         this.channel.pipeline().addLast("[INPUT] Idle state handler", new IdleStateHandler(250, 0, 0));
@@ -155,6 +172,15 @@ public final class NettyConnection implements ClientConnection {
         });
 
         // Inbound
+        this.channel.pipeline().addLast("[INPUT] Byte counter", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                if (msg instanceof ByteBuf) {
+                    NettyConnection.this.client.getMetrics().recordBytesIn(((ByteBuf) msg).readableBytes());
+                }
+                super.channelRead(ctx, msg);
+            }
+        });
         this.channel.pipeline().addLast("[INPUT] Line splitter", new DelimiterBasedFrameDecoder(NettyConnection.MAX_LINE_LENGTH, Unpooled.wrappedBuffer(new byte[]{(byte) '\r', (byte) '\n'})));
         this.channel.pipeline().addLast("[INPUT] String decoder", new StringDecoder(CharsetUtil.UTF_8));
         this.channel.pipeline().addLast("[INPUT] Send to client", new SimpleChannelInboundHandler<String>() {
@@ -163,7 +189,11 @@ public final class NettyConnection implements ClientConnection {
                 if (msg == null) {
                     return;
                 }
+                NettyConnection.this.client.getMetrics().recordLineIn();
                 NettyConnection.this.client.getInputListener().queue(msg);
+                if (NettyConnection.this.client.getTrafficListener().hasConsumer()) {
+                    NettyConnection.this.client.getTrafficListener().queue(new TrafficLine(TrafficLine.Direction.INPUT, msg, Instant.now()));
+                }
                 NettyConnection.this.client.processLine(msg);
                 NettyConnection.this.lastMessage = msg;
             }
@@ -249,6 +279,7 @@ public final class NettyConnection implements ClientConnection {
     }
 
     private void scheduleReconnect(int delay) {
+        this.client.getMetrics().recordReconnect();
         NettyConnection.this.channel.eventLoop().schedule(NettyConnection.this.client::connect, delay, TimeUnit.MILLISECONDS);
     }
 
@@ -53,6 +53,9 @@ public class DefaultISupportListener extends AbstractDefaultListenerBase {
             }
             ISupportParameter parameter = this.getClient().getISupportManager().createParameter(event.getParameters().get(i));
             this.getClient().getServerInfo().addISupportParameter(parameter);
+            if (parameter instanceof ISupportParameter.Prefix) {
+                this.getTracker().trackPrefixChange();
+            }
             this.fire(new ISupportParameterEvent(this.getClient(), event.getSource(), parameter));
         }
     }
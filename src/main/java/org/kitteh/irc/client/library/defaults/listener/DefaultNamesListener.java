@@ -32,18 +32,27 @@ import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.event.channel.ChannelNamesUpdatedEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
 import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.kitteh.irc.client.library.util.CIKeyMap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 /**
  * Default NAMES listener, producing events using default classes.
+ * <p>
+ * Names are collected per channel and handed to the tracker in one batch
+ * when the end of the list arrives.
  */
 public class DefaultNamesListener extends AbstractDefaultListenerBase {
     private final List<ServerMessage> namesMessages = new ArrayList<>();
+    private final Map<String, Map<String, Set<ChannelUserMode>>> pendingNames;
+    private final PrefixTable prefixes;
 
     /**
      * Constructs the listener.
@@ -52,6 +61,8 @@ public class DefaultNamesListener extends AbstractDefaultListenerBase {
      */
     public DefaultNamesListener(Client.@NonNull WithManagement client) {
         super(client);
+        this.pendingNames = new CIKeyMap<>(client);
+        this.prefixes = new PrefixTable(client);
     }
 
     @NumericFilter(353) // NAMES
@@ -61,24 +72,36 @@ public class DefaultNamesListener extends AbstractDefaultListenerBase {
             this.trackException(event, "NAMES response too short");
             return;
         }
-        Optional<Channel> channel = this.getTracker().getChannel(event.getParameters().get(2));
-        if (!channel.isPresent()) {
+        String channelName = event.getParameters().get(2);
+        if (!this.getClient().getServerInfo().isValidChannel(channelName)) {
             this.trackException(event, "NAMES response sent for invalid channel name");
             return;
         }
-        List<ChannelUserMode> channelUserModes = this.getClient().getServerInfo().getChannelUserModes();
-        for (String combo : event.getParameters().get(3).split(" ")) {
-            Set<ChannelUserMode> modes = new HashSet<>();
-            for (int i = 0; i < combo.length(); i++) {
-                char c = combo.charAt(i);
-                Optional<ChannelUserMode> mode = channelUserModes.stream().filter(userMode -> userMode.getNickPrefix() == c).findFirst();
-                if (mode.isPresent()) {
-                    modes.add(mode.get());
-                } else {
-                    this.getTracker().trackChannelNick(channel.get().getName(), combo.substring(i), modes);
-                    break;
+        if (this.prefixes.update()) {
+            this.pendingNames.clear();
+        }
+        Map<String, Set<ChannelUserMode>> names = this.pendingNames.computeIfAbsent(channelName, name -> new LinkedHashMap<>());
+        String list = event.getParameters().get(3);
+        int start = 0;
+        while (start < list.length()) {
+            int end = list.indexOf(' ', start);
+            if (end == -1) {
+                end = list.length();
+            }
+            Set<ChannelUserMode> modes = Collections.emptySet();
+            int position = start;
+            ChannelUserMode mode;
+            while ((position < end) && ((mode = this.prefixes.get(list.charAt(position))) != null)) {
+                if (modes.isEmpty()) {
+                    modes = new HashSet<>();
                 }
+                modes.add(mode);
+                position++;
             }
+            if (position < end) {
+                names.put(list.substring(position, end), modes);
+            }
+            start = end + 1;
         }
         this.namesMessages.add(event.getServerMessage());
     }
@@ -90,7 +113,12 @@ public class DefaultNamesListener extends AbstractDefaultListenerBase {
             this.trackException(event, "NAMES response too short");
             return;
         }
-        Optional<Channel> channel = this.getTracker().getChannel(event.getParameters().get(1));
+        String channelName = event.getParameters().get(1);
+        Map<String, Set<ChannelUserMode>> names = this.pendingNames.remove(channelName);
+        if (names != null) {
+            this.getTracker().trackChannelNicks(channelName, names);
+        }
+        Optional<Channel> channel = this.getTracker().getChannel(channelName);
         if (!channel.isPresent()) {
             this.trackException(event, "NAMES response sent for invalid channel name");
             return;
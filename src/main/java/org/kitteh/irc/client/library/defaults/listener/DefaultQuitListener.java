@@ -26,15 +26,29 @@ package org.kitteh.irc.client.library.defaults.listener;
 import net.engio.mbassy.listener.Handler;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.ServerMessage;
 import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.batch.ClientBatchEndEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.event.user.NetsplitEvent;
 import org.kitteh.irc.client.library.event.user.UserQuitEvent;
 import org.kitteh.irc.client.library.feature.filter.CommandFilter;
+import org.kitteh.irc.client.library.util.BatchReferenceTag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Default QUIT listener, producing events using default classes.
  */
 public class DefaultQuitListener extends AbstractDefaultListenerBase {
+    // Quits already removed from tracking by a netsplit batch, awaiting their replay
+    private final Set<ClientReceiveServerMessageEvent> netsplitQuits = Collections.newSetFromMap(new IdentityHashMap<>());
+
     /**
      * Constructs the listener.
      *
@@ -44,12 +58,39 @@ public class DefaultQuitListener extends AbstractDefaultListenerBase {
         super(client);
     }
 
+    @Handler(priority = Integer.MAX_VALUE - 1)
+    public void netsplit(ClientBatchEndEvent event) {
+        BatchReferenceTag tag = event.getReferenceTag();
+        if (tag.isStreaming() || !NetsplitEvent.BATCH_TYPE.equalsIgnoreCase(tag.getType())) {
+            return;
+        }
+        List<ServerMessage> messages = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        List<String> nicks = new ArrayList<>();
+        this.netsplitQuits.clear();
+        for (ClientReceiveServerMessageEvent quit : tag.getEvents()) {
+            if ("QUIT".equalsIgnoreCase(quit.getCommand()) && (quit.getActor() instanceof User)) {
+                messages.add(quit.getServerMessage());
+                users.add((User) quit.getActor());
+                nicks.add(((User) quit.getActor()).getNick());
+                this.netsplitQuits.add(quit);
+            }
+        }
+        this.getTracker().trackUsersQuit(nicks);
+        this.fire(new NetsplitEvent(this.getClient(), messages, tag.getParameters(), users));
+    }
+
     @CommandFilter("QUIT")
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void quit(ClientReceiveCommandEvent event) {
         if (event.getActor() instanceof User) {
-            this.fire(new UserQuitEvent(this.getClient(), event.getSource(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
-            this.getTracker().trackUserQuit(((User) event.getActor()).getNick());
+            String message = (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0);
+            boolean inNetsplitBatch = this.netsplitQuits.remove(event);
+            boolean netsplit = inNetsplitBatch || NetsplitEvent.isNetsplitMessage(message);
+            this.fire(new UserQuitEvent(this.getClient(), event.getSource(), (User) event.getActor(), message, netsplit));
+            if (!inNetsplitBatch) {
+                this.getTracker().trackUserQuit(((User) event.getActor()).getNick());
+            }
         } else {
             this.trackException(event, "QUIT message sent for non-user");
         }
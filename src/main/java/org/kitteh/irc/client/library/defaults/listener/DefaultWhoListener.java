@@ -28,23 +28,33 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.Channel;
 import org.kitteh.irc.client.library.element.ServerMessage;
-import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.event.channel.ChannelUsersUpdatedEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.feature.WhoReply;
 import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.kitteh.irc.client.library.util.CIKeyMap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 /**
  * Default WHO listener, producing events using default classes.
+ * <p>
+ * Replies are collected per channel and handed to the tracker in one batch
+ * when the end of the list arrives. As a server answers one WHO at a time,
+ * every collected reply belongs to the list being ended, even where the
+ * WHO was for a nick or mask rather than a channel.
  */
 public class DefaultWhoListener extends AbstractDefaultListenerBase {
-    private final List<ServerMessage> whoMessages = new ArrayList<>();
+    private final Map<String, List<ServerMessage>> whoMessages;
+    private final Map<String, List<WhoReply>> pendingReplies;
+    private final PrefixTable prefixes;
 
     /**
      * Constructs the listener.
@@ -53,6 +63,9 @@ public class DefaultWhoListener extends AbstractDefaultListenerBase {
      */
     public DefaultWhoListener(Client.@NonNull WithManagement client) {
         super(client);
+        this.whoMessages = new CIKeyMap<>(client);
+        this.pendingReplies = new CIKeyMap<>(client);
+        this.prefixes = new PrefixTable(client);
     }
 
     @NumericFilter(352) // WHO
@@ -63,49 +76,55 @@ public class DefaultWhoListener extends AbstractDefaultListenerBase {
             this.trackException(event, "WHO response too short");
             return;
         }
-        final Optional<Channel> channel = this.getTracker().getChannel(event.getParameters().get(1));
-        channel.ifPresent(ch -> {
-            final String ident = event.getParameters().get(2);
-            final String host = event.getParameters().get(3);
-            final String server = event.getParameters().get(4);
-            final String nick = event.getParameters().get(5);
-            final User user = (User) this.getTracker().getActor(nick + '!' + ident + '@' + host);
-            this.getTracker().trackUser(user);
-            this.getTracker().setUserServer(nick, server);
-            final String status = event.getParameters().get(6);
-            String realName;
-            switch (event.getNumeric()) {
-                case 352:
-                    realName = event.getParameters().get(7);
-                    break;
-                case 354:
-                default:
-                    String account = event.getParameters().get(7);
-                    this.getTracker().setUserAccount(nick, "0".equals(account) ? null : account);
-                    realName = event.getParameters().get(8);
-                    break;
+        final String channelName = event.getParameters().get(1);
+        if (!this.getClient().getServerInfo().isValidChannel(channelName)) {
+            return; // Server might send other WHO information about non-channels.
+        }
+        if (this.prefixes.update()) {
+            this.pendingReplies.clear();
+            this.whoMessages.clear();
+        }
+        final String ident = event.getParameters().get(2);
+        final String host = event.getParameters().get(3);
+        final String server = event.getParameters().get(4);
+        final String nick = event.getParameters().get(5);
+        final String status = event.getParameters().get(6);
+        boolean away = false;
+        boolean operator = false;
+        Set<ChannelUserMode> modes = Collections.emptySet();
+        for (int i = 0; i < status.length(); i++) {
+            char prefix = status.charAt(i);
+            if (prefix == 'G') {
+                away = true;
+                continue;
             }
-            this.getTracker().setUserRealName(nick, realName);
-            final Set<ChannelUserMode> modes = new HashSet<>();
-            for (char prefix : status.substring(1).toCharArray()) {
-                if (prefix == 'G') {
-                    this.getTracker().setUserAway(nick, true);
-                    continue;
-                }
-                if (prefix == '*') {
-                    this.getTracker().setUserOperString(nick, "*");
-                    continue;
-                }
-                for (ChannelUserMode mode : this.getClient().getServerInfo().getChannelUserModes()) {
-                    if (mode.getNickPrefix() == prefix) {
-                        modes.add(mode);
-                        break;
-                    }
+            if (prefix == '*') {
+                operator = true;
+                continue;
+            }
+            ChannelUserMode mode = this.prefixes.get(prefix);
+            if (mode != null) {
+                if (modes.isEmpty()) {
+                    modes = new HashSet<>();
                 }
+                modes.add(mode);
             }
-            this.getTracker().trackChannelUser(ch.getName(), user, modes);
-            this.whoMessages.add(event.getServerMessage());
-        }); // No else, server might send other WHO information about non-channels.
+        }
+        WhoReply reply;
+        switch (event.getNumeric()) {
+            case 352:
+                reply = new WhoReply(nick, ident, host, server, event.getParameters().get(7), away, operator, modes);
+                break;
+            case 354:
+            default:
+                String account = event.getParameters().get(7);
+                reply = new WhoReply(nick, ident, host, server, event.getParameters().get(8), "0".equals(account) ? null : account, away, operator, modes);
+                break;
+        }
+        this.pendingReplies.computeIfAbsent(channelName, name -> new ArrayList<>()).add(reply);
+        if (this.getClient().isRetainingWhoReplies()) {
+            this.whoMessages.computeIfAbsent(channelName, name -> new ArrayList<>()).add(event.getServerMessage());
+        }
     }
 
     @NumericFilter(315) // WHO completed
@@ -115,12 +134,22 @@ public class DefaultWhoListener extends AbstractDefaultListenerBase {
             this.trackException(event, "WHO response too short");
             return;
         }
-        Optional<Channel> whoChannel = this.getTracker().getChannel(event.getParameters().get(1));
+        for (Map.Entry<String, List<WhoReply>> entry : this.pendingReplies.entrySet()) {
+            this.getTracker().trackChannelWho(entry.getKey(), entry.getValue());
+        }
+        this.pendingReplies.clear();
+        final String channelName = event.getParameters().get(1);
+        List<ServerMessage> messages = this.whoMessages.remove(channelName);
+        this.whoMessages.clear();
+        if (!this.getClient().getServerInfo().isValidChannel(channelName)) {
+            return; // Nick or mask WHO, not an update of a channel's users.
+        }
+        this.getTracker().setChannelListReceived(channelName);
+        Optional<Channel> whoChannel = this.getTracker().getChannel(channelName);
         whoChannel.ifPresent(channel -> {
-            this.getTracker().setChannelListReceived(channel.getName());
-            this.whoMessages.add(event.getServerMessage());
-            this.fire(new ChannelUsersUpdatedEvent(this.getClient(), this.whoMessages, channel));
-            this.whoMessages.clear();
-        }); // No else, server might send other WHO information about non-channels.
+            List<ServerMessage> channelMessages = (messages == null) ? new ArrayList<>() : messages;
+            channelMessages.add(event.getServerMessage());
+            this.fire(new ChannelUsersUpdatedEvent(this.getClient(), channelMessages, channel));
+        });
     }
 }
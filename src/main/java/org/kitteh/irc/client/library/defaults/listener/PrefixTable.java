@@ -0,0 +1,69 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults.listener;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+
+/**
+ * Channel user modes looked up by nick prefix character from the current
+ * server information view.
+ */
+final class PrefixTable {
+    private final Client client;
+    private @Nullable ServerInfo serverInfo;
+    private ServerInfo.@Nullable Snapshot snapshot;
+
+    PrefixTable(@NonNull Client client) {
+        this.client = client;
+    }
+
+    /**
+     * Picks up the current server information view.
+     *
+     * @return true if the server info itself changed since the last update,
+     * meaning any state collected from an earlier connection is stale
+     */
+    boolean update() {
+        ServerInfo serverInfo = this.client.getServerInfo();
+        boolean newServerInfo = serverInfo != this.serverInfo;
+        this.serverInfo = serverInfo;
+        this.snapshot = serverInfo.getSnapshot();
+        return newServerInfo;
+    }
+
+    /**
+     * Gets the channel user mode for a nick prefix.
+     *
+     * @param prefix prefix character
+     * @return mode or null if not a prefix
+     */
+    @Nullable ChannelUserMode get(char prefix) {
+        ServerInfo.Snapshot snapshot = this.snapshot;
+        return (snapshot == null) ? null : snapshot.getChannelUserModeByPrefix(prefix).orElse(null);
+    }
+}
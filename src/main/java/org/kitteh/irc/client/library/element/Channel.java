@@ -39,9 +39,11 @@ import org.kitteh.irc.client.library.event.channel.RequestedChannelJoinCompleteE
 import org.kitteh.irc.client.library.util.Sanity;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
+import java.util.stream.Collectors;
 
 /**
  * Represents an IRC channel.
@@ -118,6 +120,22 @@ public interface Channel extends MessageReceiver, Staleable {
      */
     @NonNull Optional<List<ModeInfo>> getModeInfoList(@NonNull ChannelMode mode);
 
+    /**
+     * Gets the tracked mode info for the channel whose masks match the
+     * given user, such as the bans affecting them.
+     *
+     * @param mode type A mode to match
+     * @param user user to match
+     * @return matching mode info, empty if none or if not tracked
+     * @throws IllegalArgumentException for null or non-type-A mode
+     */
+    default @NonNull List<ModeInfo> getMatchingModeInfo(@NonNull ChannelMode mode, @NonNull User user) {
+        Sanity.nullCheck(user, "User");
+        return this.getModeInfoList(mode).map(list -> list.stream()
+                .filter(modeInfo -> modeInfo.getMask().matches(user))
+                .collect(Collectors.toList())).orElse(Collections.emptyList());
+    }
+
     /**
      * Gets the channel's current known modes.
      *
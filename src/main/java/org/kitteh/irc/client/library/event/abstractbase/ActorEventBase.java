@@ -56,7 +56,7 @@ public abstract class ActorEventBase<A extends Actor> extends ServerMessageEvent
     }
 
     @Override
-    public final @NonNull A getActor() {
+    public @NonNull A getActor() {
         return this.actor;
     }
 
@@ -29,6 +29,7 @@ import org.kitteh.irc.client.library.element.Actor;
 import org.kitteh.irc.client.library.element.MessageTag;
 import org.kitteh.irc.client.library.element.ServerMessage;
 import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.util.LineParameters;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -56,7 +57,8 @@ public class ClientReceiveServerMessageEventBase extends ActorEventBase<Actor> i
      */
     public ClientReceiveServerMessageEventBase(@NonNull Client client, @NonNull ServerMessage serverMessage, @NonNull Actor server, @NonNull String command, @NonNull List<String> parameters) {
         super(client, Sanity.nullCheck(serverMessage, "Server message"), server);
-        this.parameters = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(parameters, "Parameters")));
+        Sanity.nullCheck(parameters, "Parameters");
+        this.parameters = (parameters instanceof LineParameters) ? parameters : Collections.unmodifiableList(new ArrayList<>(parameters));
         this.message = serverMessage;
         this.command = Sanity.nullCheck(command, "Command");
     }
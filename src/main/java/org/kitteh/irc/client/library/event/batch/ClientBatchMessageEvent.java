@@ -31,7 +31,9 @@ import org.kitteh.irc.client.library.util.BatchReferenceTag;
 
 /**
  * A new message has been added to a batch reference tag, and will be held
- * until the batch finishes.
+ * until the batch finishes. If the batch is
+ * {@link BatchReferenceTag#isStreaming() streamed}, the message is instead
+ * processed immediately after this event.
  */
 public class ClientBatchMessageEvent extends ClientBatchEventBase {
     /**
@@ -66,4 +66,28 @@ public class ClientBatchStartEvent extends ClientBatchEventBase {
     public void setReferenceTagIgnored(boolean ignore) {
         this.ignore = ignore;
     }
+
+    /**
+     * Gets if tagged messages will be processed as they arrive rather than
+     * held until the batch ends.
+     *
+     * @return true if the batch will be streamed
+     * @see BatchReferenceTag#isStreaming()
+     */
+    public boolean isStreaming() {
+        return this.getReferenceTag().isStreaming();
+    }
+
+    /**
+     * Sets if tagged messages will be processed as they arrive, each right
+     * after its {@link ClientBatchMessageEvent}, rather than held until the
+     * batch ends. Suits large batches such as chathistory, which would
+     * otherwise be held in memory in full.
+     *
+     * @param streaming true to stream the batch
+     * @see BatchReferenceTag#setStreaming(boolean)
+     */
+    public void setStreaming(boolean streaming) {
+        this.getReferenceTag().setStreaming(streaming);
+    }
 }
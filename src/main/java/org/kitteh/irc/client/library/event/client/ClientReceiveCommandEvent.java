@@ -53,4 +53,9 @@ public class ClientReceiveCommandEvent extends ClientReceiveServerMessageEventBa
     public ClientReceiveCommandEvent(@NonNull Client client, @NonNull ServerMessage serverMessage, @NonNull Actor actor, @NonNull String command, @NonNull List<String> parameters) {
         super(client, serverMessage, actor, command, parameters);
     }
+
+    @Override
+    public @NonNull ClientReceiveCommandEvent retain() {
+        return this;
+    }
 }
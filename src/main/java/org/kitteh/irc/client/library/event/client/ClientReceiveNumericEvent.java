@@ -66,4 +66,9 @@ public class ClientReceiveNumericEvent extends ClientReceiveServerMessageEventBa
     public int getNumeric() {
         return this.numeric;
     }
+
+    @Override
+    public @NonNull ClientReceiveNumericEvent retain() {
+        return this;
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.event.client;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.abstractbase.ClientEventBase;
+import org.kitteh.irc.client.library.feature.sending.BoundedSendingQueue;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+/**
+ * A {@link BoundedSendingQueue} has risen to its high watermark or fallen
+ * back to its low watermark.
+ */
+public class ClientSendingQueueWatermarkEvent extends ClientEventBase {
+    private final int capacity;
+    private final int depth;
+    private final boolean high;
+
+    /**
+     * Constructs the event.
+     *
+     * @param client the client
+     * @param depth queue depth at the time of crossing
+     * @param capacity queue capacity
+     * @param high true if the high watermark was reached, false if the
+     * queue drained to the low watermark
+     */
+    public ClientSendingQueueWatermarkEvent(@NonNull Client client, int depth, int capacity, boolean high) {
+        super(client);
+        this.capacity = capacity;
+        this.depth = depth;
+        this.high = high;
+    }
+
+    /**
+     * Gets the capacity of the queue.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the queue depth at the time the watermark was crossed.
+     *
+     * @return depth
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Gets if the high watermark was reached.
+     *
+     * @return true if the high watermark was reached, false if the queue
+     * drained to the low watermark
+     */
+    public boolean isHigh() {
+        return this.high;
+    }
+
+    @Override
+    protected @NonNull ToStringer toStringer() {
+        return super.toStringer().add("depth", this.depth).add("capacity", this.capacity).add("high", this.high);
+    }
+}
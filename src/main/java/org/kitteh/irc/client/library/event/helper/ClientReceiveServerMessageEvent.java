@@ -68,4 +68,19 @@ public interface ClientReceiveServerMessageEvent extends ActorEvent<Actor>, Serv
      * @return the server message
      */
     @NonNull ServerMessage getServerMessage();
+
+    /**
+     * Gets an event safe to keep after this event has been dispatched.
+     * <p>
+     * When the client recycles events, see
+     * {@link org.kitteh.irc.client.library.Client.Builder.Management#eventRecycling(boolean)},
+     * the event given to a handler is reused for the next line received.
+     * Handlers keeping the event, or handing it to another thread, must keep
+     * the event returned by this method instead.
+     *
+     * @return this event, or an immutable copy of it if recycled
+     */
+    default @NonNull ClientReceiveServerMessageEvent retain() {
+        return this;
+    }
 }
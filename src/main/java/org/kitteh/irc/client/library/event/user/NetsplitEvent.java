@@ -0,0 +1,108 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.event.user;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.abstractbase.ServerMultipleMessageEventBase;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fires once for a netsplit batch, after every user who quit in the split
+ * has been removed from tracking and before the {@link UserQuitEvent} for
+ * each of them.
+ */
+public class NetsplitEvent extends ServerMultipleMessageEventBase {
+    /**
+     * Batch type of a netsplit.
+     */
+    public static final String BATCH_TYPE = "netsplit";
+
+    private final List<String> servers;
+    private final List<User> users;
+
+    /**
+     * Gets if a quit message looks like a netsplit, that is two server
+     * names separated by a space, as sent by servers without netsplit
+     * batches.
+     *
+     * @param message quit message
+     * @return true if the message names two servers
+     */
+    public static boolean isNetsplitMessage(@NonNull String message) {
+        int space = message.indexOf(' ');
+        return (space > 0) && (message.indexOf(' ', space + 1) == -1)
+                && isServerName(message, 0, space) && isServerName(message, space + 1, message.length());
+    }
+
+    private static boolean isServerName(@NonNull String message, int start, int end) {
+        int dot = message.indexOf('.', start);
+        return (dot > start) && (dot < (end - 1));
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param client the client
+     * @param sourceMessages source messages
+     * @param servers servers which split from each other
+     * @param users users who quit
+     */
+    public NetsplitEvent(@NonNull Client client, @NonNull List<ServerMessage> sourceMessages, @NonNull List<String> servers, @NonNull List<User> users) {
+        super(client, sourceMessages);
+        this.servers = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(servers, "Servers")));
+        this.users = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(users, "Users")));
+    }
+
+    /**
+     * Gets the servers which split from each other, as named by the
+     * server. Usually two, but may be empty.
+     *
+     * @return servers
+     */
+    public @NonNull List<String> getServers() {
+        return this.servers;
+    }
+
+    /**
+     * Gets the users who quit in the split.
+     *
+     * @return users
+     */
+    public @NonNull List<User> getUsers() {
+        return this.users;
+    }
+
+    @Override
+    protected @NonNull ToStringer toStringer() {
+        return super.toStringer().add("servers", this.servers).add("users", this.users.size());
+    }
+}
@@ -37,6 +37,8 @@ import java.util.Optional;
  * A {@link User} has quit the server!
  */
 public class UserQuitEvent extends ActorMessageEventBase<User> implements ChannelUserListChangeEvent {
+    private final boolean netsplit;
+
     /**
      * Creates the event.
      *
@@ -46,7 +48,32 @@ public class UserQuitEvent extends ActorMessageEventBase<User> implements Channe
      * @param message message the user left
      */
     public UserQuitEvent(@NonNull Client client, @NonNull ServerMessage sourceMessage, @NonNull User user, @NonNull String message) {
+        this(client, sourceMessage, user, message, NetsplitEvent.isNetsplitMessage(message));
+    }
+
+    /**
+     * Creates the event.
+     *
+     * @param client client for which this is occurring
+     * @param sourceMessage source message
+     * @param user user quitting
+     * @param message message the user left
+     * @param netsplit true if the user quit in a netsplit
+     */
+    public UserQuitEvent(@NonNull Client client, @NonNull ServerMessage sourceMessage, @NonNull User user, @NonNull String message, boolean netsplit) {
         super(client, sourceMessage, user, message);
+        this.netsplit = netsplit;
+    }
+
+    /**
+     * Gets if this quit appears to be part of a netsplit, either by the
+     * message naming two servers or by arriving in a netsplit batch.
+     *
+     * @return true if likely a netsplit
+     * @see NetsplitEvent
+     */
+    public boolean isNetsplit() {
+        return this.netsplit;
     }
 
     @Override
@@ -34,10 +34,14 @@ import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.ModeInfo;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.util.Resettable;
+import org.kitteh.irc.client.library.util.Sanity;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Tracker of users and channels, provider of all actors.
@@ -85,6 +89,48 @@ public interface ActorTracker extends Resettable {
      */
     @NonNull Optional<User> getTrackedUser(@NonNull String nick);
 
+    /**
+     * Gets the tracked users identified to an account.
+     *
+     * @param account account name
+     * @return tracked users with the account
+     */
+    default @NonNull Set<User> getTrackedUsersByAccount(@NonNull String account) {
+        Sanity.nullCheck(account, "Account");
+        return this.getTrackedChannels().stream()
+                .flatMap(channel -> channel.getUsers().stream())
+                .filter(user -> user.getAccount().filter(userAccount -> user.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(account, userAccount)).isPresent())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Gets the tracked users connecting from a host.
+     *
+     * @param host host
+     * @return tracked users with the host
+     */
+    default @NonNull Set<User> getTrackedUsersByHost(@NonNull String host) {
+        Sanity.nullCheck(host, "Host");
+        return this.getTrackedChannels().stream()
+                .flatMap(channel -> channel.getUsers().stream())
+                .filter(user -> user.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(host, user.getHost()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Gets the tracked users known to be connected to a server.
+     *
+     * @param server server name
+     * @return tracked users on the server
+     */
+    default @NonNull Set<User> getTrackedUsersByServer(@NonNull String server) {
+        Sanity.nullCheck(server, "Server");
+        return this.getTrackedChannels().stream()
+                .flatMap(channel -> channel.getUsers().stream())
+                .filter(user -> user.getServer().filter(userServer -> user.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(server, userServer)).isPresent())
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Gets if the given staleable object is considered stale by the tracker.
      *
@@ -225,6 +271,17 @@ public interface ActorTracker extends Resettable {
      */
     void trackChannelNick(@NonNull String channel, @NonNull String nick, @NonNull Set<ChannelUserMode> modes);
 
+    /**
+     * Tracks many users at once, such as from a NAMES reply, as if by
+     * {@link #trackChannelNick(String, String, Set)} for each.
+     *
+     * @param channel channel
+     * @param nicks nicks, or full name masks, mapped to their modes
+     */
+    default void trackChannelNicks(@NonNull String channel, @NonNull Map<String, Set<ChannelUserMode>> nicks) {
+        nicks.forEach((nick, modes) -> this.trackChannelNick(channel, nick, modes));
+    }
+
     /**
      * Tracks a user.
      *
@@ -234,6 +291,23 @@ public interface ActorTracker extends Resettable {
      */
     void trackChannelUser(@NonNull String channel, @NonNull User user, @NonNull Set<ChannelUserMode> modes);
 
+    /**
+     * Tracks the users listed in a complete WHO or WHOX reply for a
+     * channel, updating their information and their modes in the channel.
+     *
+     * @param channel channel
+     * @param replies one reply per user
+     */
+    void trackChannelWho(@NonNull String channel, @NonNull Collection<WhoReply> replies);
+
+    /**
+     * Tracks a change to the server's channel user modes, as sent in the
+     * ISUPPORT PREFIX parameter, updating stored channel memberships.
+     */
+    default void trackPrefixChange() {
+        // Nothing stored by default
+    }
+
     /**
      * Tracks a user.
      *
@@ -282,6 +356,16 @@ public interface ActorTracker extends Resettable {
      */
     void trackUserQuit(@NonNull String nick);
 
+    /**
+     * Tracks many users quitting at once, such as in a netsplit, removing
+     * them from all channels in which they were tracked.
+     *
+     * @param nicks nicks quitting
+     */
+    default void trackUsersQuit(@NonNull Collection<String> nicks) {
+        nicks.forEach(this::trackUserQuit);
+    }
+
     /**
      * Tracks a users's user string (ident) changing.
      *
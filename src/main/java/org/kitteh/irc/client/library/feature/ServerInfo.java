@@ -27,13 +27,18 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.kitteh.irc.client.library.element.ISupportParameter;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.element.mode.Mode;
 import org.kitteh.irc.client.library.element.mode.UserMode;
 import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Provides information about the server to which the client is connected.
@@ -89,6 +94,296 @@ public interface ServerInfo {
         void setVersion(@NonNull String version);
     }
 
+    /**
+     * An immutable view of server information, with lookup tables indexed
+     * by character. Views are replaced, never changed, so a view may be
+     * held for the duration of processing a line.
+     *
+     * @see ServerInfo#getSnapshot()
+     */
+    final class Snapshot {
+        private static final String RFC_CHANNEL_PREFIXES = "#!&+";
+        private static final byte PARAMETER_ON_ADD = 1;
+        private static final byte PARAMETER_ON_REMOVE = 2;
+
+        private final long revision;
+        private final CaseMapping caseMapping;
+        private final int channelLengthLimit;
+        private final List<ChannelMode> channelModes;
+        private final List<Character> channelPrefixes;
+        private final List<ChannelUserMode> channelUserModes;
+        private final List<UserMode> userModes;
+        private final Optional<ChannelMode>[] channelModesByChar;
+        private final Optional<ChannelUserMode>[] channelUserModesByChar;
+        private final Optional<ChannelUserMode>[] channelUserModesByPrefix;
+        private final Optional<ChannelMode>[] anyChannelModesByChar;
+        private final byte[] channelModeParameters;
+        private final Optional<UserMode>[] userModesByChar;
+        private final boolean[] channelPrefixTable;
+        private final boolean[] validChannelPrefixes;
+
+        /**
+         * Constructs a view.
+         *
+         * @param revision revision, increasing each time the information
+         * changes
+         * @param caseMapping case mapping
+         * @param channelLengthLimit channel length limit or -1
+         * @param channelModes channel modes
+         * @param channelPrefixes channel prefixes
+         * @param channelUserModes channel user modes
+         * @param userModes user modes
+         */
+        public Snapshot(long revision, @NonNull CaseMapping caseMapping, int channelLengthLimit, @NonNull List<ChannelMode> channelModes,
+                        @NonNull List<Character> channelPrefixes, @NonNull List<ChannelUserMode> channelUserModes, @NonNull List<UserMode> userModes) {
+            this.revision = revision;
+            this.caseMapping = Sanity.nullCheck(caseMapping, "Case mapping");
+            this.channelLengthLimit = channelLengthLimit;
+            this.channelModes = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(channelModes, "Channel modes")));
+            this.channelPrefixes = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(channelPrefixes, "Channel prefixes")));
+            this.channelUserModes = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(channelUserModes, "Channel user modes")));
+            this.userModes = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(userModes, "User modes")));
+            this.channelModesByChar = Snapshot.index(this.channelModes, Mode::getChar);
+            this.channelUserModesByChar = Snapshot.index(this.channelUserModes, Mode::getChar);
+            this.channelUserModesByPrefix = Snapshot.index(this.channelUserModes, ChannelUserMode::getNickPrefix);
+            this.userModesByChar = Snapshot.index(this.userModes, Mode::getChar);
+            List<ChannelMode> anyChannelModes = new ArrayList<>(this.channelUserModes.size() + this.channelModes.size());
+            anyChannelModes.addAll(this.channelUserModes);
+            anyChannelModes.addAll(this.channelModes);
+            this.anyChannelModesByChar = Snapshot.index(anyChannelModes, Mode::getChar);
+            this.channelModeParameters = new byte[this.anyChannelModesByChar.length];
+            for (int c = 0; c < this.anyChannelModesByChar.length; c++) {
+                ChannelMode mode = this.anyChannelModesByChar[c].orElse(null);
+                if (mode instanceof ChannelUserMode) {
+                    this.channelModeParameters[c] = PARAMETER_ON_ADD | PARAMETER_ON_REMOVE;
+                } else if (mode != null) {
+                    this.channelModeParameters[c] = (byte) ((mode.getType().isParameterRequiredOnSetting() ? PARAMETER_ON_ADD : 0) | (mode.getType().isParameterRequiredOnRemoval() ? PARAMETER_ON_REMOVE : 0));
+                }
+            }
+            int highest = -1;
+            for (char prefix : this.channelPrefixes) {
+                highest = Math.max(highest, prefix);
+            }
+            this.channelPrefixTable = new boolean[highest + 1];
+            this.validChannelPrefixes = new boolean[highest + 1];
+            for (char prefix : this.channelPrefixes) {
+                this.channelPrefixTable[prefix] = true;
+                // Only the RFC prefixes have ever been accepted as channels
+                this.validChannelPrefixes[prefix] = RFC_CHANNEL_PREFIXES.indexOf(prefix) >= 0;
+            }
+        }
+
+        private static <T> @NonNull Optional<T>[] index(@NonNull List<T> list, @NonNull Function<T, Character> key) {
+            int highest = -1;
+            for (T item : list) {
+                highest = Math.max(highest, key.apply(item));
+            }
+            @SuppressWarnings("unchecked")
+            Optional<T>[] table = (Optional<T>[]) new Optional<?>[highest + 1];
+            Arrays.fill(table, Optional.empty());
+            for (T item : list) {
+                char c = key.apply(item);
+                if (!table[c].isPresent()) {
+                    table[c] = Optional.of(item);
+                }
+            }
+            return table;
+        }
+
+        private static <T> @NonNull Optional<T> lookup(@NonNull Optional<T>[] table, char c) {
+            return (c < table.length) ? table[c] : Optional.empty();
+        }
+
+        /**
+         * Gets the revision of the information in this view. A higher
+         * revision from the same server info is newer.
+         *
+         * @return revision
+         */
+        public long getRevision() {
+            return this.revision;
+        }
+
+        /**
+         * Gets the case mapping.
+         *
+         * @return case mapping
+         * @see ServerInfo#getCaseMapping()
+         */
+        public @NonNull CaseMapping getCaseMapping() {
+            return this.caseMapping;
+        }
+
+        /**
+         * Gets the channel length limit.
+         *
+         * @return limit or -1 if unknown
+         * @see ServerInfo#getChannelLengthLimit()
+         */
+        public int getChannelLengthLimit() {
+            return this.channelLengthLimit;
+        }
+
+        /**
+         * Gets a channel mode by character.
+         *
+         * @param character character to match
+         * @return the found channel mode if present
+         */
+        public @NonNull Optional<ChannelMode> getChannelMode(char character) {
+            return Snapshot.lookup(this.channelModesByChar, character);
+        }
+
+        /**
+         * Gets a channel mode or channel user mode by character, as found
+         * in a channel MODE change. Channel user modes take precedence.
+         *
+         * @param character character to match
+         * @return the found mode if present
+         */
+        public @NonNull Optional<ChannelMode> getAnyChannelMode(char character) {
+            return Snapshot.lookup(this.anyChannelModesByChar, character);
+        }
+
+        /**
+         * Gets if a channel mode or channel user mode takes a parameter when
+         * changed in the given direction.
+         *
+         * @param character mode character
+         * @param adding true if the mode is being set, false if removed
+         * @return true if a parameter is required, false if not or if the
+         * mode is not known
+         * @see #getAnyChannelMode(char)
+         */
+        public boolean isParameterRequired(char character, boolean adding) {
+            return (character < this.channelModeParameters.length) && ((this.channelModeParameters[character] & (adding ? PARAMETER_ON_ADD : PARAMETER_ON_REMOVE)) != 0);
+        }
+
+        /**
+         * Gets the channel modes available.
+         *
+         * @return unmodifiable list of channel modes
+         * @see ServerInfo#getChannelModes()
+         */
+        public @NonNull List<ChannelMode> getChannelModes() {
+            return this.channelModes;
+        }
+
+        /**
+         * Gets the accepted channel prefixes.
+         *
+         * @return unmodifiable list of channel prefixes
+         * @see ServerInfo#getChannelPrefixes()
+         */
+        public @NonNull List<Character> getChannelPrefixes() {
+            return this.channelPrefixes;
+        }
+
+        /**
+         * Gets if a character is an accepted channel prefix.
+         *
+         * @param character character
+         * @return true if channels may start with the character
+         */
+        public boolean isChannelPrefix(char character) {
+            return (character < this.channelPrefixTable.length) && this.channelPrefixTable[character];
+        }
+
+        /**
+         * Gets a channel user mode by mode character.
+         *
+         * @param character character to match
+         * @return the found channel user mode if present
+         */
+        public @NonNull Optional<ChannelUserMode> getChannelUserMode(char character) {
+            return Snapshot.lookup(this.channelUserModesByChar, character);
+        }
+
+        /**
+         * Gets a channel user mode by nick prefix, such as @ for op.
+         *
+         * @param prefix prefix to match
+         * @return the found channel user mode if present
+         */
+        public @NonNull Optional<ChannelUserMode> getChannelUserModeByPrefix(char prefix) {
+            return Snapshot.lookup(this.channelUserModesByPrefix, prefix);
+        }
+
+        /**
+         * Gets the channel user modes, from most to least powerful.
+         *
+         * @return unmodifiable list of channel user modes
+         * @see ServerInfo#getChannelUserModes()
+         */
+        public @NonNull List<ChannelUserMode> getChannelUserModes() {
+            return this.channelUserModes;
+        }
+
+        /**
+         * Gets a user mode by character.
+         *
+         * @param character character to match
+         * @return the found user mode if present
+         */
+        public @NonNull Optional<UserMode> getUserMode(char character) {
+            return Snapshot.lookup(this.userModesByChar, character);
+        }
+
+        /**
+         * Gets the user modes available.
+         *
+         * @return unmodifiable list of user modes
+         * @see ServerInfo#getUserModes()
+         */
+        public @NonNull List<UserMode> getUserModes() {
+            return this.userModes;
+        }
+
+        /**
+         * Gets if a given string is a valid channel name.
+         *
+         * @param name name to check
+         * @return true if valid channel name
+         * @see ServerInfo#isValidChannel(String)
+         */
+        public boolean isValidChannel(@NonNull String name) {
+            Sanity.nullCheck(name, "Channel name");
+            int length = name.length();
+            if ((length < 2) || ((this.channelLengthLimit >= 0) && (length > this.channelLengthLimit))) {
+                return false;
+            }
+            char first = name.charAt(0);
+            if ((first >= this.validChannelPrefixes.length) || !this.validChannelPrefixes[first]) {
+                return false;
+            }
+            for (int i = 1; i < length; i++) {
+                switch (name.charAt(i)) {
+                    case ' ':
+                    case ',':
+                    case '\007':
+                    case '\r':
+                    case '\n':
+                        return false;
+                    default:
+                        break;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public @NonNull String toString() {
+            return new ToStringer(this)
+                    .add("revision", this.revision)
+                    .add("caseMapping", this.caseMapping)
+                    .add("channelModes", this.channelModes)
+                    .add("channelPrefixes", this.channelPrefixes)
+                    .add("channelUserModes", this.channelUserModes)
+                    .add("userModes", this.userModes)
+                    .toString();
+        }
+    }
+
     /**
      * Adds a custom channel mode, for a server that doesn't correctly list
      * modes.
@@ -200,6 +495,18 @@ public interface ServerInfo {
      */
     @NonNull List<ChannelUserMode> getChannelUserModes();
 
+    /**
+     * Gets an immutable view of the current server information, with
+     * lookups indexed by character. Implementations should reuse the view
+     * until the information changes.
+     *
+     * @return current view
+     */
+    default @NonNull Snapshot getSnapshot() {
+        return new Snapshot(0, this.getCaseMapping(), this.getChannelLengthLimit(), this.getChannelModes(),
+                this.getChannelPrefixes(), this.getChannelUserModes(), this.getUserModes());
+    }
+
     /**
      * Gets the named ISUPPORT parameter if present.
      *
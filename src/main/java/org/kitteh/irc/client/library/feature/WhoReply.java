@@ -0,0 +1,202 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A user's entry in a WHO or WHOX reply for a channel.
+ */
+public final class WhoReply {
+    private final String nick;
+    private final String userString;
+    private final String host;
+    private final String server;
+    private final String realName;
+    private final boolean accountReported;
+    private final @Nullable String account;
+    private final boolean away;
+    private final boolean operator;
+    private final Set<ChannelUserMode> modes;
+
+    /**
+     * Constructs a reply without account information, as from WHO.
+     *
+     * @param nick nick
+     * @param userString user string
+     * @param host host
+     * @param server server the user is on
+     * @param realName real name
+     * @param away true if the user is marked away
+     * @param operator true if the user is marked an IRC operator
+     * @param modes modes on the user in the channel
+     */
+    public WhoReply(@NonNull String nick, @NonNull String userString, @NonNull String host, @NonNull String server, @NonNull String realName, boolean away, boolean operator, @NonNull Set<ChannelUserMode> modes) {
+        this(nick, userString, host, server, realName, false, null, away, operator, modes);
+    }
+
+    /**
+     * Constructs a reply with account information, as from WHOX.
+     *
+     * @param nick nick
+     * @param userString user string
+     * @param host host
+     * @param server server the user is on
+     * @param realName real name
+     * @param account account or null if not logged in
+     * @param away true if the user is marked away
+     * @param operator true if the user is marked an IRC operator
+     * @param modes modes on the user in the channel
+     */
+    public WhoReply(@NonNull String nick, @NonNull String userString, @NonNull String host, @NonNull String server, @NonNull String realName, @Nullable String account, boolean away, boolean operator, @NonNull Set<ChannelUserMode> modes) {
+        this(nick, userString, host, server, realName, true, account, away, operator, modes);
+    }
+
+    private WhoReply(@NonNull String nick, @NonNull String userString, @NonNull String host, @NonNull String server, @NonNull String realName, boolean accountReported, @Nullable String account, boolean away, boolean operator, @NonNull Set<ChannelUserMode> modes) {
+        this.nick = Sanity.nullCheck(nick, "Nick");
+        this.userString = Sanity.nullCheck(userString, "User string");
+        this.host = Sanity.nullCheck(host, "Host");
+        this.server = Sanity.nullCheck(server, "Server");
+        this.realName = Sanity.nullCheck(realName, "Real name");
+        this.accountReported = accountReported;
+        this.account = account;
+        this.away = away;
+        this.operator = operator;
+        this.modes = Sanity.nullCheck(modes, "Modes").isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(modes));
+    }
+
+    /**
+     * Gets the nick.
+     *
+     * @return nick
+     */
+    public @NonNull String getNick() {
+        return this.nick;
+    }
+
+    /**
+     * Gets the user string.
+     *
+     * @return user string
+     */
+    public @NonNull String getUserString() {
+        return this.userString;
+    }
+
+    /**
+     * Gets the host.
+     *
+     * @return host
+     */
+    public @NonNull String getHost() {
+        return this.host;
+    }
+
+    /**
+     * Gets the full name mask, nick!user@host.
+     *
+     * @return mask
+     */
+    public @NonNull String getMask() {
+        return this.nick + '!' + this.userString + '@' + this.host;
+    }
+
+    /**
+     * Gets the server the user is on.
+     *
+     * @return server
+     */
+    public @NonNull String getServer() {
+        return this.server;
+    }
+
+    /**
+     * Gets the real name.
+     *
+     * @return real name
+     */
+    public @NonNull String getRealName() {
+        return this.realName;
+    }
+
+    /**
+     * Gets if this reply carries account information.
+     *
+     * @return true if the account was reported
+     */
+    public boolean isAccountReported() {
+        return this.accountReported;
+    }
+
+    /**
+     * Gets the account, if reported and logged in.
+     *
+     * @return account
+     * @see #isAccountReported()
+     */
+    public @NonNull Optional<String> getAccount() {
+        return Optional.ofNullable(this.account);
+    }
+
+    /**
+     * Gets if the user is marked away.
+     *
+     * @return true if away
+     */
+    public boolean isAway() {
+        return this.away;
+    }
+
+    /**
+     * Gets if the user is marked an IRC operator.
+     *
+     * @return true if operator
+     */
+    public boolean isOperator() {
+        return this.operator;
+    }
+
+    /**
+     * Gets the modes on the user in the channel.
+     *
+     * @return modes
+     */
+    public @NonNull Set<ChannelUserMode> getModes() {
+        return this.modes;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("nick", this.nick).add("userString", this.userString).add("host", this.host).add("server", this.server).add("account", this.account).add("away", this.away).add("operator", this.operator).add("modes", this.modes).toString();
+    }
+}
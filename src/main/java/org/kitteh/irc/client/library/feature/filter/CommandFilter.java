@@ -65,8 +65,10 @@ public @interface CommandFilter {
 
         @Override
         public boolean accepts(@NonNull ClientReceiveCommandEvent event, @NonNull CommandFilter[] commandFilters) {
+            String command = event.getCommand();
             for (CommandFilter commandFilter : commandFilters) {
-                if (commandFilter.value().equalsIgnoreCase(event.getCommand())) {
+                // Known commands are the same constants as annotation values
+                if ((commandFilter.value() == command) || commandFilter.value().equalsIgnoreCase(command)) {
                     return true;
                 }
             }
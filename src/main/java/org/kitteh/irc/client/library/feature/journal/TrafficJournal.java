@@ -0,0 +1,350 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.journal;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+import org.kitteh.irc.client.library.util.TrafficLine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An append-only journal of raw traffic, written to a directory of
+ * memory-mapped segment files.
+ * <p>
+ * Hand it to {@link org.kitteh.irc.client.library.Client.Builder.Listeners#traffic(Consumer)}
+ * to record every line in both directions with its timestamp. Lines are
+ * encoded straight into the mapped segment, and once a segment is full a
+ * new one is started, optionally deleting the oldest segments to stay
+ * within a set count. Each segment's name records the timestamp of its
+ * first line, which serves as the index for {@link #read(Instant, Instant,
+ * Consumer)} so that only segments overlapping the requested range are
+ * scanned.
+ * <p>
+ * Segment layout: a four byte magic number, then records of a four byte
+ * length (payload length plus one, zero marking the end of data), an eight
+ * byte epoch millisecond timestamp, a one byte direction and the UTF-8
+ * payload.
+ */
+public class TrafficJournal implements Consumer<List<TrafficLine>>, Closeable {
+    /**
+     * The default segment size, in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    /**
+     * The smallest permitted segment size, in bytes.
+     */
+    public static final int MINIMUM_SEGMENT_SIZE = 16 * 1024;
+    /**
+     * File extension of segment files.
+     */
+    public static final String SEGMENT_EXTENSION = ".journal";
+
+    private static final int MAGIC = 0x4B49434C; // KICL
+    private static final int RECORD_HEADER_SIZE = 4 + 8 + 1;
+    private static final TrafficLine.Direction[] DIRECTIONS = TrafficLine.Direction.values();
+
+    private static final class Segment {
+        private final Path path;
+        private final long sequence;
+        private final long firstTimestamp;
+
+        private Segment(@NonNull Path path, long sequence, long firstTimestamp) {
+            this.path = path;
+            this.sequence = sequence;
+            this.firstTimestamp = firstTimestamp;
+        }
+    }
+
+    private final Path directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final List<Segment> segments = new ArrayList<>();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private @Nullable FileChannel channel;
+    private @Nullable MappedByteBuffer buffer;
+    private boolean closed = false;
+
+    /**
+     * Opens a journal in the given directory with default segment size and
+     * no limit on segment count.
+     *
+     * @param directory directory in which to store segments
+     * @throws IOException if the directory cannot be read or created
+     */
+    public TrafficJournal(@NonNull Path directory) throws IOException {
+        this(directory, "traffic", TrafficJournal.DEFAULT_SEGMENT_SIZE, 0);
+    }
+
+    /**
+     * Opens a journal. Existing segments with the same prefix are indexed
+     * and kept, with new lines going into a new segment.
+     *
+     * @param directory directory in which to store segments
+     * @param prefix file name prefix for segments
+     * @param segmentSize size of each segment in bytes
+     * @param maxSegments maximum number of segments to keep, or 0 for no
+     * limit
+     * @throws IOException if the directory cannot be read or created
+     */
+    public TrafficJournal(@NonNull Path directory, @NonNull String prefix, int segmentSize, int maxSegments) throws IOException {
+        this.directory = Sanity.nullCheck(directory, "Directory");
+        this.prefix = Sanity.nullCheck(prefix, "Prefix");
+        Sanity.truthiness(!prefix.isEmpty() && (prefix.indexOf('-') == -1), "Prefix must be non-empty and not contain '-'");
+        Sanity.truthiness(segmentSize >= TrafficJournal.MINIMUM_SEGMENT_SIZE, "Segment size must be at least " + TrafficJournal.MINIMUM_SEGMENT_SIZE);
+        Sanity.truthiness(maxSegments >= 0, "Max segments cannot be negative");
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "-*" + TrafficJournal.SEGMENT_EXTENSION)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String[] split = name.substring(0, name.length() - TrafficJournal.SEGMENT_EXTENSION.length()).split("-");
+                if (split.length != 3) {
+                    continue;
+                }
+                try {
+                    this.segments.add(new Segment(path, Long.parseLong(split[1]), Long.parseLong(split[2])));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        this.segments.sort(Comparator.comparingLong(segment -> segment.sequence));
+    }
+
+    @Override
+    public synchronized void accept(@NonNull List<TrafficLine> lines) {
+        Sanity.truthiness(!this.closed, "Journal is closed");
+        try {
+            for (TrafficLine line : lines) {
+                this.append(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(@NonNull TrafficLine line) throws IOException {
+        long timestamp = line.getTimestamp().toEpochMilli();
+        if (this.buffer == null) {
+            this.startSegment(timestamp);
+        }
+        if (!this.write(this.buffer, line, timestamp)) {
+            this.startSegment(timestamp);
+            if (!this.write(this.buffer, line, timestamp)) {
+                throw new IOException("Line too long for segment size " + this.segmentSize);
+            }
+        }
+    }
+
+    private boolean write(@NonNull MappedByteBuffer target, @NonNull TrafficLine line, long timestamp) {
+        int start = target.position();
+        if (target.remaining() <= TrafficJournal.RECORD_HEADER_SIZE) {
+            return false;
+        }
+        target.position(start + TrafficJournal.RECORD_HEADER_SIZE);
+        this.encoder.reset();
+        CoderResult result = this.encoder.encode(CharBuffer.wrap(line.getLine()), target, true);
+        if (!result.isOverflow()) {
+            result = this.encoder.flush(target);
+        }
+        if (result.isOverflow()) {
+            // Leave the length as zero, marking the end of this segment
+            for (int i = start; i < target.position(); i++) {
+                target.put(i, (byte) 0);
+            }
+            target.position(start);
+            return false;
+        }
+        int length = target.position() - start - TrafficJournal.RECORD_HEADER_SIZE;
+        target.putLong(start + 4, timestamp);
+        target.put(start + 12, (byte) line.getDirection().ordinal());
+        // Length last, so the record only becomes visible once complete
+        target.putInt(start, length + 1);
+        return true;
+    }
+
+    private void startSegment(long timestamp) throws IOException {
+        this.finishSegment();
+        long sequence = this.segments.isEmpty() ? 0 : (this.segments.get(this.segments.size() - 1).sequence + 1);
+        Path path = this.directory.resolve(this.prefix + '-' + sequence + '-' + timestamp + TrafficJournal.SEGMENT_EXTENSION);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        this.buffer.putInt(TrafficJournal.MAGIC);
+        this.segments.add(new Segment(path, sequence, timestamp));
+        if (this.maxSegments > 0) {
+            while (this.segments.size() > this.maxSegments) {
+                Files.deleteIfExists(this.segments.remove(0).path);
+            }
+        }
+    }
+
+    private void finishSegment() throws IOException {
+        if (this.buffer != null) {
+            this.buffer.force();
+            this.buffer = null;
+        }
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Forces written lines to storage.
+     */
+    public synchronized void flush() {
+        if (this.buffer != null) {
+            this.buffer.force();
+        }
+    }
+
+    /**
+     * Reads all lines with a timestamp within the given range, inclusive,
+     * in the order they were written.
+     *
+     * @param from earliest timestamp
+     * @param to latest timestamp
+     * @param consumer consumer of lines
+     * @throws IOException if a segment cannot be read
+     */
+    public synchronized void read(@NonNull Instant from, @NonNull Instant to, @NonNull Consumer<TrafficLine> consumer) throws IOException {
+        Sanity.nullCheck(from, "From");
+        Sanity.nullCheck(to, "To");
+        Sanity.nullCheck(consumer, "Consumer");
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        for (int i = 0; i < this.segments.size(); i++) {
+            Segment segment = this.segments.get(i);
+            if (segment.firstTimestamp > toMillis) {
+                break;
+            }
+            if (((i + 1) < this.segments.size()) && (this.segments.get(i + 1).firstTimestamp < fromMillis)) {
+                continue; // Entire segment precedes the range
+            }
+            this.readSegment(segment, fromMillis, toMillis, consumer);
+        }
+    }
+
+    /**
+     * Reads all lines with a timestamp within the given range, inclusive,
+     * in the order they were written.
+     *
+     * @param from earliest timestamp
+     * @param to latest timestamp
+     * @return lines
+     * @throws IOException if a segment cannot be read
+     */
+    public @NonNull List<TrafficLine> read(@NonNull Instant from, @NonNull Instant to) throws IOException {
+        List<TrafficLine> lines = new ArrayList<>();
+        this.read(from, to, lines::add);
+        return lines;
+    }
+
+    private void readSegment(@NonNull Segment segment, long fromMillis, long toMillis, @NonNull Consumer<TrafficLine> consumer) throws IOException {
+        ByteBuffer source;
+        if ((this.buffer != null) && (segment == this.segments.get(this.segments.size() - 1))) {
+            source = this.buffer.duplicate();
+            source.flip();
+        } else {
+            try (FileChannel readChannel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                source = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            }
+        }
+        if ((source.remaining() < 4) || (source.getInt() != TrafficJournal.MAGIC)) {
+            throw new IOException("Not a traffic journal segment: " + segment.path);
+        }
+        while (source.remaining() >= TrafficJournal.RECORD_HEADER_SIZE) {
+            int length = source.getInt() - 1;
+            if ((length < 0) || (length > (source.remaining() - 9))) {
+                break;
+            }
+            long timestamp = source.getLong();
+            byte direction = source.get();
+            if ((timestamp < fromMillis) || (timestamp > toMillis) || (direction < 0) || (direction >= TrafficJournal.DIRECTIONS.length)) {
+                source.position(source.position() + length);
+                continue;
+            }
+            ByteBuffer payload = source.slice();
+            payload.limit(length);
+            source.position(source.position() + length);
+            String line = StandardCharsets.UTF_8.decode(payload).toString();
+            consumer.accept(new TrafficLine(TrafficJournal.DIRECTIONS[direction], line, Instant.ofEpochMilli(timestamp)));
+        }
+    }
+
+    /**
+     * Gets the directory in which segments are stored.
+     *
+     * @return directory
+     */
+    public @NonNull Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Gets the number of segments currently kept.
+     *
+     * @return segment count
+     */
+    public synchronized int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.closed = true;
+        this.finishSegment();
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("directory", this.directory).add("prefix", this.prefix).add("segmentSize", this.segmentSize).toString();
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.journal;
+
+import net.engio.mbassy.listener.Handler;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+import org.kitteh.irc.client.library.util.TrafficLine;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays recorded traffic into a client through {@link
+ * Client.WithManagement#processLine(String)}, without any network
+ * connection, and measures how the client coped. The start and end of
+ * measurement run as {@link Client.WithManagement#processTask(Runnable)
+ * tasks} on the input processing thread, so nothing but the recorded
+ * lines reaches the client's listeners.
+ * <p>
+ * Only lines received from the server are replayed. The client should be
+ * built but not connected. Replay runs either as fast as the client can
+ * process lines or paced by the recorded timestamps, optionally sped up.
+ * <p>
+ * The {@link Result} reports processed events per second, the number of
+ * bytes allocated by the client's input processing thread (where the JVM
+ * supports measuring it), garbage collection activity and the channels
+ * tracked once replay completed.
+ */
+public class TrafficReplay {
+    /**
+     * Speed at which lines are fed as fast as possible.
+     */
+    public static final double MAX_SPEED = 0;
+    /**
+     * Speed at which lines are fed with their originally recorded timing.
+     */
+    public static final double REAL_TIME = 1;
+
+    private static final long STALL_SECONDS = 10;
+
+    /**
+     * The outcome of a replay.
+     */
+    public static final class Result {
+        private final long lines;
+        private final long events;
+        private final Duration elapsed;
+        private final long allocatedBytes;
+        private final long gcCount;
+        private final Duration gcTime;
+        private final Set<Channel> channels;
+
+        private Result(long lines, long events, @NonNull Duration elapsed, long allocatedBytes, long gcCount, @NonNull Duration gcTime, @NonNull Set<Channel> channels) {
+            this.lines = lines;
+            this.events = events;
+            this.elapsed = elapsed;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+            this.channels = channels;
+        }
+
+        /**
+         * Gets the number of lines fed to the client.
+         *
+         * @return line count
+         */
+        public long getLines() {
+            return this.lines;
+        }
+
+        /**
+         * Gets the number of events fired while processing the lines.
+         *
+         * @return event count
+         */
+        public long getEvents() {
+            return this.events;
+        }
+
+        /**
+         * Gets the time taken from the first line being processed until
+         * the last was done.
+         *
+         * @return elapsed time
+         */
+        public @NonNull Duration getElapsed() {
+            return this.elapsed;
+        }
+
+        /**
+         * Gets the number of events fired per second.
+         *
+         * @return events per second
+         */
+        public double getEventsPerSecond() {
+            return this.perSecond(this.events);
+        }
+
+        /**
+         * Gets the number of lines processed per second.
+         *
+         * @return lines per second
+         */
+        public double getLinesPerSecond() {
+            return this.perSecond(this.lines);
+        }
+
+        /**
+         * Gets the bytes allocated by the input processing thread.
+         *
+         * @return bytes allocated, or -1 if not measurable on this JVM
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        /**
+         * Gets the bytes allocated by the input processing thread per
+         * second.
+         *
+         * @return bytes allocated per second, or -1 if not measurable
+         */
+        public double getAllocationRate() {
+            return (this.allocatedBytes < 0) ? -1 : this.perSecond(this.allocatedBytes);
+        }
+
+        /**
+         * Gets the number of garbage collections across the JVM during
+         * the replay.
+         *
+         * @return collection count
+         */
+        public long getGcCount() {
+            return this.gcCount;
+        }
+
+        /**
+         * Gets the time spent in garbage collection across the JVM during
+         * the replay.
+         *
+         * @return collection time
+         */
+        public @NonNull Duration getGcTime() {
+            return this.gcTime;
+        }
+
+        /**
+         * Gets the channels tracked by the client after replay.
+         *
+         * @return tracked channels
+         */
+        public @NonNull Set<Channel> getChannels() {
+            return this.channels;
+        }
+
+        private double perSecond(long count) {
+            long nanos = this.elapsed.toNanos();
+            return (nanos == 0) ? 0 : ((count * 1_000_000_000.0) / nanos);
+        }
+
+        @Override
+        public @NonNull String toString() {
+            return new ToStringer(this)
+                    .add("lines", this.lines)
+                    .add("events", this.events)
+                    .add("elapsed", this.elapsed)
+                    .add("eventsPerSecond", (long) this.getEventsPerSecond())
+                    .add("allocationRate", (long) this.getAllocationRate())
+                    .add("gcCount", this.gcCount)
+                    .add("gcTime", this.gcTime)
+                    .add("channels", this.channels.size())
+                    .add("memberships", this.channels.stream().mapToInt(channel -> channel.getNicknames().size()).sum())
+                    .toString();
+        }
+    }
+
+    /**
+     * Counts events between the start and end of measurement. Public for
+     * the benefit of the event bus only.
+     */
+    public final class Monitor {
+        private final LongAdder events = new LongAdder();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean counting;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile long startAllocated = -1;
+        private volatile long endAllocated = -1;
+
+        private Monitor() {
+        }
+
+        /**
+         * Counts an event.
+         *
+         * @param event any event
+         */
+        @Handler(priority = Integer.MAX_VALUE)
+        public void onEvent(Object event) {
+            if (this.counting) {
+                this.events.increment();
+            }
+        }
+
+        private void start() {
+            this.startAllocated = TrafficReplay.getAllocatedBytes();
+            this.startNanos = System.nanoTime();
+            this.counting = true;
+            this.started.countDown();
+        }
+
+        private void finish() {
+            this.counting = false;
+            this.endNanos = System.nanoTime();
+            this.endAllocated = TrafficReplay.getAllocatedBytes();
+            this.finished.countDown();
+        }
+    }
+
+    private final Client.WithManagement client;
+    private final double speed;
+
+    /**
+     * Creates a replay for the given client, running at maximum speed.
+     *
+     * @param client an unconnected client
+     */
+    public TrafficReplay(Client.@NonNull WithManagement client) {
+        this(client, TrafficReplay.MAX_SPEED);
+    }
+
+    /**
+     * Creates a replay for the given client.
+     *
+     * @param client an unconnected client
+     * @param speed {@link #MAX_SPEED}, {@link #REAL_TIME} or a multiple of
+     * real time such as 2 for double speed
+     */
+    public TrafficReplay(Client.@NonNull WithManagement client, double speed) {
+        this.client = Sanity.nullCheck(client, "Client");
+        Sanity.truthiness(speed >= 0, "Speed cannot be negative");
+        this.speed = speed;
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long[] getGc() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    /**
+     * Replays the received lines of a journal within a time range. The
+     * range is copied out of the journal first, so a client still writing
+     * to the journal is not held up while lines are paced.
+     *
+     * @param journal journal to read
+     * @param from earliest timestamp
+     * @param to latest timestamp
+     * @return result
+     * @throws IOException if the journal cannot be read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public @NonNull Result replay(@NonNull TrafficJournal journal, @NonNull Instant from, @NonNull Instant to) throws IOException, InterruptedException {
+        Sanity.nullCheck(journal, "Journal");
+        return this.replay(journal.read(from, to));
+    }
+
+    /**
+     * Replays the received lines among those given.
+     *
+     * @param lines lines to replay, in order
+     * @return result
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public @NonNull Result replay(@NonNull Iterable<TrafficLine> lines) throws InterruptedException {
+        Sanity.nullCheck(lines, "Lines");
+        Feeder feeder = new Feeder();
+        Monitor monitor = this.begin();
+        try {
+            for (TrafficLine line : lines) {
+                feeder.feed(line);
+            }
+            return this.end(monitor, feeder);
+        } catch (FeedInterruptedException e) {
+            throw e.getCause();
+        } finally {
+            this.client.getEventManager().unregisterEventListener(monitor);
+        }
+    }
+
+    private @NonNull Monitor begin() throws InterruptedException {
+        Monitor monitor = new Monitor();
+        this.client.getEventManager().registerEventListener(monitor);
+        try {
+            this.client.processTask(monitor::start);
+            this.await(monitor, monitor.started);
+        } catch (InterruptedException e) {
+            this.client.getEventManager().unregisterEventListener(monitor);
+            throw e;
+        }
+        return monitor;
+    }
+
+    private @NonNull Result end(@NonNull Monitor monitor, @NonNull Feeder feeder) throws InterruptedException {
+        long[] gcBefore = feeder.gcBefore;
+        this.client.processTask(monitor::finish);
+        this.await(monitor, monitor.finished);
+        long[] gcAfter = TrafficReplay.getGc();
+        long allocated = ((monitor.startAllocated < 0) || (monitor.endAllocated < 0)) ? -1 : (monitor.endAllocated - monitor.startAllocated);
+        return new Result(feeder.lines, monitor.events.sum(), Duration.ofNanos(monitor.endNanos - monitor.startNanos),
+                allocated, gcAfter[0] - gcBefore[0], Duration.ofMillis(gcAfter[1] - gcBefore[1]),
+                Collections.unmodifiableSet(this.client.getActorTracker().getTrackedChannels()));
+    }
+
+    /**
+     * Waits on the input processing thread, for as long as it keeps
+     * firing events.
+     *
+     * @param monitor monitor counting events
+     * @param latch latch to wait on
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the client stopped processing
+     */
+    private void await(@NonNull Monitor monitor, @NonNull CountDownLatch latch) throws InterruptedException {
+        long events = monitor.events.sum();
+        while (!latch.await(STALL_SECONDS, TimeUnit.SECONDS)) {
+            long now = monitor.events.sum();
+            if (now == events) {
+                throw new IllegalStateException("Client stopped processing replayed lines");
+            }
+            events = now;
+        }
+    }
+
+    private static final class FeedInterruptedException extends RuntimeException {
+        private FeedInterruptedException(@NonNull InterruptedException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized @NonNull InterruptedException getCause() {
+            return (InterruptedException) super.getCause();
+        }
+    }
+
+    private final class Feeder {
+        private final long[] gcBefore = TrafficReplay.getGc();
+        private long lines;
+        private long firstRecorded = -1;
+        private long firstFed;
+
+        private void feed(@NonNull TrafficLine line) {
+            if (line.getDirection() != TrafficLine.Direction.INPUT) {
+                return;
+            }
+            if (TrafficReplay.this.speed > 0) {
+                long recorded = line.getTimestamp().toEpochMilli();
+                if (this.firstRecorded < 0) {
+                    this.firstRecorded = recorded;
+                    this.firstFed = System.currentTimeMillis();
+                } else {
+                    long due = this.firstFed + (long) ((recorded - this.firstRecorded) / TrafficReplay.this.speed);
+                    long wait = due - System.currentTimeMillis();
+                    if (wait > 0) {
+                        try {
+                            Thread.sleep(wait);
+                        } catch (InterruptedException e) {
+                            throw new FeedInterruptedException(e);
+                        }
+                    }
+                }
+            }
+            this.lines++;
+            TrafficReplay.this.client.processLine(line.getLine());
+        }
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("client", this.client).add("speed", this.speed).toString();
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.metrics;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and histograms on a client's hot paths, cheap enough to be
+ * always on. All times are in nanoseconds.
+ */
+public class ClientMetrics {
+    private final LongAdder linesIn = new LongAdder();
+    private final LongAdder linesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final Histogram parseTime = new Histogram();
+    private final Histogram rateLimitWait = new Histogram();
+    private final Histogram snapshotRebuildTime = new Histogram();
+    private final Map<Class<?>, Histogram> dispatchTimes = new ConcurrentHashMap<>();
+    private final IntSupplier inputQueueDepth;
+    private final IntSupplier sendQueueDepth;
+
+    /**
+     * Constructs metrics.
+     *
+     * @param inputQueueDepth supplier of the number of lines waiting to be
+     * processed
+     * @param sendQueueDepth supplier of the number of lines waiting to be
+     * sent, or -1 if unknown
+     */
+    public ClientMetrics(@NonNull IntSupplier inputQueueDepth, @NonNull IntSupplier sendQueueDepth) {
+        this.inputQueueDepth = Sanity.nullCheck(inputQueueDepth, "Input queue depth");
+        this.sendQueueDepth = Sanity.nullCheck(sendQueueDepth, "Send queue depth");
+    }
+
+    /**
+     * Records a line received from the server.
+     */
+    public void recordLineIn() {
+        this.linesIn.increment();
+    }
+
+    /**
+     * Records a line sent to the server.
+     */
+    public void recordLineOut() {
+        this.linesOut.increment();
+    }
+
+    /**
+     * Records bytes received from the server.
+     *
+     * @param bytes byte count
+     */
+    public void recordBytesIn(long bytes) {
+        this.bytesIn.add(bytes);
+    }
+
+    /**
+     * Records bytes sent to the server.
+     *
+     * @param bytes byte count
+     */
+    public void recordBytesOut(long bytes) {
+        this.bytesOut.add(bytes);
+    }
+
+    /**
+     * Records a reconnect attempt being scheduled.
+     */
+    public void recordReconnect() {
+        this.reconnects.increment();
+    }
+
+    /**
+     * Records the time taken to parse a line into an event.
+     *
+     * @param nanos time taken
+     */
+    public void recordParseTime(long nanos) {
+        this.parseTime.record(nanos);
+    }
+
+    /**
+     * Records the time a message waited on a sending queue's rate limit.
+     *
+     * @param nanos time waited
+     */
+    public void recordRateLimitWait(long nanos) {
+        this.rateLimitWait.record(nanos);
+    }
+
+    /**
+     * Records the rebuild of a tracked actor's snapshot.
+     *
+     * @param nanos time taken
+     */
+    public void recordSnapshotRebuild(long nanos) {
+        this.snapshotRebuildTime.record(nanos);
+    }
+
+    /**
+     * Records the time taken to dispatch an event to all its handlers.
+     *
+     * @param eventClass class of the event
+     * @param nanos time taken
+     */
+    public void recordDispatchTime(@NonNull Class<?> eventClass, long nanos) {
+        Histogram histogram = this.dispatchTimes.get(eventClass);
+        if (histogram == null) {
+            histogram = this.dispatchTimes.computeIfAbsent(eventClass, clazz -> new Histogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Gets the number of lines received.
+     *
+     * @return lines received
+     */
+    public long getLinesIn() {
+        return this.linesIn.sum();
+    }
+
+    /**
+     * Gets the number of lines sent.
+     *
+     * @return lines sent
+     */
+    public long getLinesOut() {
+        return this.linesOut.sum();
+    }
+
+    /**
+     * Gets the number of bytes received, after any TLS decryption.
+     *
+     * @return bytes received
+     */
+    public long getBytesIn() {
+        return this.bytesIn.sum();
+    }
+
+    /**
+     * Gets the number of bytes sent, before any TLS encryption.
+     *
+     * @return bytes sent
+     */
+    public long getBytesOut() {
+        return this.bytesOut.sum();
+    }
+
+    /**
+     * Gets the number of reconnect attempts scheduled.
+     *
+     * @return reconnects
+     */
+    public long getReconnects() {
+        return this.reconnects.sum();
+    }
+
+    /**
+     * Gets the time taken to parse each line into an event, not including
+     * dispatching that event.
+     *
+     * @return parse time histogram
+     */
+    public @NonNull Histogram getParseTime() {
+        return this.parseTime;
+    }
+
+    /**
+     * Gets the time messages waited on the sending queue's rate limit.
+     *
+     * @return rate limit wait histogram
+     */
+    public @NonNull Histogram getRateLimitWait() {
+        return this.rateLimitWait;
+    }
+
+    /**
+     * Gets the time taken rebuilding snapshots of tracked channels and
+     * users. The count of this histogram is the number of rebuilds.
+     *
+     * @return snapshot rebuild histogram
+     */
+    public @NonNull Histogram getSnapshotRebuildTime() {
+        return this.snapshotRebuildTime;
+    }
+
+    /**
+     * Gets the time taken dispatching events of a given class, including
+     * events fired by handlers of that event.
+     *
+     * @param eventClass event class
+     * @return dispatch time histogram if any such event was dispatched
+     */
+    public @NonNull Optional<Histogram> getDispatchTime(@NonNull Class<?> eventClass) {
+        return Optional.ofNullable(this.dispatchTimes.get(Sanity.nullCheck(eventClass, "Event class")));
+    }
+
+    /**
+     * Gets the dispatch time histograms of all event classes dispatched.
+     *
+     * @return unmodifiable view of dispatch times
+     */
+    public @NonNull Map<Class<?>, Histogram> getDispatchTimes() {
+        return Collections.unmodifiableMap(this.dispatchTimes);
+    }
+
+    /**
+     * Gets the number of received lines waiting to be processed.
+     *
+     * @return input queue depth
+     */
+    public int getInputQueueDepth() {
+        return this.inputQueueDepth.getAsInt();
+    }
+
+    /**
+     * Gets the number of lines waiting to be sent.
+     *
+     * @return send queue depth, or -1 if the sending queue cannot tell
+     */
+    public int getSendQueueDepth() {
+        return this.sendQueueDepth.getAsInt();
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this)
+                .add("linesIn", this.getLinesIn())
+                .add("linesOut", this.getLinesOut())
+                .add("bytesIn", this.getBytesIn())
+                .add("bytesOut", this.getBytesOut())
+                .add("reconnects", this.getReconnects())
+                .add("inputQueueDepth", this.getInputQueueDepth())
+                .add("sendQueueDepth", this.getSendQueueDepth())
+                .add("parseTime", this.parseTime)
+                .add("rateLimitWait", this.rateLimitWait)
+                .add("snapshotRebuildTime", this.snapshotRebuildTime)
+                .toString();
+    }
+}
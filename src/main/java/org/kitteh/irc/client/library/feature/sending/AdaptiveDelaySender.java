@@ -0,0 +1,324 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import net.engio.mbassy.listener.Handler;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.client.FailEvent;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.filter.CommandFilter;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.kitteh.irc.client.library.util.Sanity;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@link QueueProcessingThreadSender} which adjusts its delay based on
+ * feedback from the server.
+ * <p>
+ * The delay is doubled whenever the server signals that the client is
+ * sending too fast (263 RPL_TRYAGAIN, 439 ERR_TARGETTOOFAST or a FAIL
+ * standard reply with a code such as RATE_LIMITED) and is also increased
+ * when the round trip time, as measured by PING/PONG or labeled
+ * responses, climbs well above the best observed round trip time. While
+ * the server stays healthy the delay is gradually lowered again, never
+ * going below the minimum delay.
+ */
+public class AdaptiveDelaySender extends QueueProcessingThreadSender {
+    /**
+     * The default minimum message delay, in milliseconds.
+     */
+    public static final int DEFAULT_MINIMUM_DELAY = 300;
+    /**
+     * The default maximum message delay, in milliseconds.
+     */
+    public static final int DEFAULT_MAXIMUM_DELAY = 10000;
+    /**
+     * Time, in milliseconds, without a penalty before the delay is lowered.
+     */
+    public static final int RECOVERY_WINDOW = 10000;
+
+    private static final int MAX_PENDING_ACKS = 64;
+    private static final String LABEL_TAG = "label=";
+
+    /**
+     * Gets a supplier starting at {@link SingleDelaySender#DEFAULT_MESSAGE_DELAY}
+     * and adjusting between {@link #DEFAULT_MINIMUM_DELAY} and {@link
+     * #DEFAULT_MAXIMUM_DELAY}.
+     *
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, AdaptiveDelaySender> getSupplier() {
+        return AdaptiveDelaySender.getSupplier(SingleDelaySender.DEFAULT_MESSAGE_DELAY, AdaptiveDelaySender.DEFAULT_MINIMUM_DELAY, AdaptiveDelaySender.DEFAULT_MAXIMUM_DELAY);
+    }
+
+    /**
+     * Gets a supplier with the given delays.
+     *
+     * @param initialDelay starting delay in milliseconds
+     * @param minimumDelay lowest delay in milliseconds
+     * @param maximumDelay highest delay in milliseconds
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, AdaptiveDelaySender> getSupplier(int initialDelay, int minimumDelay, int maximumDelay) {
+        return client -> new AdaptiveDelaySender(client, "AdaptiveDelay " + minimumDelay + '-' + maximumDelay, initialDelay, minimumDelay, maximumDelay);
+    }
+
+    private final int minimumDelay;
+    private final int maximumDelay;
+    private volatile int delay;
+    private volatile long lastPenalty;
+    private volatile long lastAdjustment = System.currentTimeMillis();
+    private long last = System.currentTimeMillis();
+
+    private final Map<String, Long> pendingAcks = new ConcurrentHashMap<>();
+    private volatile long bestRoundTrip = -1;
+    private volatile long smoothedRoundTrip = -1;
+
+    /**
+     * Constructs the sending queue and registers it with the client's event
+     * manager in order to receive server feedback.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param initialDelay starting delay in milliseconds
+     * @param minimumDelay lowest delay in milliseconds
+     * @param maximumDelay highest delay in milliseconds
+     */
+    public AdaptiveDelaySender(@NonNull Client client, @NonNull String name, int initialDelay, int minimumDelay, int maximumDelay) {
+        super(client, name);
+        Sanity.truthiness(minimumDelay >= 0, "Minimum delay cannot be negative");
+        Sanity.truthiness(maximumDelay >= minimumDelay, "Maximum delay cannot be lower than minimum delay");
+        this.minimumDelay = minimumDelay;
+        this.maximumDelay = maximumDelay;
+        this.delay = Math.max(minimumDelay, Math.min(maximumDelay, initialDelay));
+        client.getEventManager().registerEventListener(this);
+    }
+
+    @Override
+    protected boolean checkReady(@NonNull String message) {
+        long now;
+        long remaining;
+        do {
+            now = System.currentTimeMillis();
+            remaining = this.delay - (now - this.last);
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(remaining);
+                } catch (InterruptedException e) {
+                    this.interrupt();
+                    return false;
+                }
+            }
+        } while (remaining > 0);
+        this.last = now;
+        if (((now - this.lastPenalty) > RECOVERY_WINDOW) && ((now - this.lastAdjustment) > RECOVERY_WINDOW)) {
+            this.speedUp(now);
+        }
+        this.trackAck(message, now);
+        return true;
+    }
+
+    private void trackAck(@NonNull String message, long now) {
+        String key = null;
+        if (message.startsWith("PING ")) {
+            key = message.substring(5);
+            if (!key.isEmpty() && (key.charAt(0) == ':')) {
+                key = key.substring(1);
+            }
+        } else if (!message.isEmpty() && (message.charAt(0) == '@')) {
+            int end = message.indexOf(' ');
+            String tags = (end == -1) ? message.substring(1) : message.substring(1, end);
+            for (String tag : tags.split(";")) {
+                if (tag.startsWith(LABEL_TAG)) {
+                    key = tag.substring(LABEL_TAG.length());
+                    break;
+                }
+            }
+        }
+        if (key != null) {
+            if (this.pendingAcks.size() >= MAX_PENDING_ACKS) {
+                this.pendingAcks.clear();
+            }
+            this.pendingAcks.put(key, now);
+        }
+    }
+
+    private synchronized void acknowledge(@NonNull String key) {
+        Long sent = this.pendingAcks.remove(key);
+        if (sent == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long roundTrip = now - sent;
+        if ((this.bestRoundTrip < 0) || (roundTrip < this.bestRoundTrip)) {
+            this.bestRoundTrip = roundTrip;
+        }
+        this.smoothedRoundTrip = (this.smoothedRoundTrip < 0) ? roundTrip : (((this.smoothedRoundTrip * 7) + roundTrip) / 8);
+        long healthyRoundTrip = Math.max(this.bestRoundTrip * 2, 50);
+        if (this.smoothedRoundTrip > (healthyRoundTrip * 2)) {
+            this.setDelayInternal(this.delay + (this.delay / 4) + 1);
+            this.lastPenalty = now;
+            this.lastAdjustment = now;
+        } else if ((this.smoothedRoundTrip <= healthyRoundTrip) && ((now - this.lastPenalty) > RECOVERY_WINDOW)) {
+            this.speedUp(now);
+        }
+    }
+
+    private synchronized void speedUp(long now) {
+        this.setDelayInternal(this.delay - Math.max(1, (this.delay - this.minimumDelay) / 10));
+        this.lastAdjustment = now;
+    }
+
+    private void setDelayInternal(int delay) {
+        this.delay = Math.max(this.minimumDelay, Math.min(this.maximumDelay, delay));
+    }
+
+    /**
+     * Increases the delay in response to the server signalling that the
+     * client is sending too quickly.
+     */
+    public synchronized void penalize() {
+        long now = System.currentTimeMillis();
+        this.setDelayInternal(Math.max(this.delay * 2, this.minimumDelay + 1));
+        this.lastPenalty = now;
+        this.lastAdjustment = now;
+    }
+
+    /**
+     * Gets the current delay.
+     *
+     * @return delay in milliseconds
+     */
+    public int getDelay() {
+        return this.delay;
+    }
+
+    /**
+     * Gets the minimum delay.
+     *
+     * @return delay in milliseconds
+     */
+    public int getMinimumDelay() {
+        return this.minimumDelay;
+    }
+
+    /**
+     * Gets the maximum delay.
+     *
+     * @return delay in milliseconds
+     */
+    public int getMaximumDelay() {
+        return this.maximumDelay;
+    }
+
+    /**
+     * Gets the smoothed round trip time, if any has been measured.
+     *
+     * @return round trip time in milliseconds, if known
+     */
+    public @NonNull Optional<Long> getRoundTripTime() {
+        long roundTrip = this.smoothedRoundTrip;
+        return (roundTrip < 0) ? Optional.empty() : Optional.of(roundTrip);
+    }
+
+    /**
+     * Called when the server replies to a PING.
+     *
+     * @param event the event instance
+     */
+    @CommandFilter("PONG")
+    @Handler
+    public void onPong(ClientReceiveCommandEvent event) {
+        if (!event.getParameters().isEmpty()) {
+            this.acknowledge(event.getParameters().get(event.getParameters().size() - 1));
+        }
+    }
+
+    /**
+     * Called for every server message, to catch labeled responses.
+     *
+     * @param event the event instance
+     */
+    @Handler
+    public void onLabeledResponse(ClientReceiveServerMessageEvent event) {
+        if (this.pendingAcks.isEmpty()) {
+            return;
+        }
+        event.getServerMessage().getTag("label", MessageTag.Label.class).ifPresent(label -> this.acknowledge(label.getLabel()));
+    }
+
+    /**
+     * Called when the server asks the client to try again later or reports
+     * a target change too fast.
+     *
+     * @param event the event instance
+     */
+    @NumericFilter(263) // RPL_TRYAGAIN
+    @NumericFilter(439) // ERR_TARGETTOOFAST
+    @Handler
+    public void onThrottle(ClientReceiveNumericEvent event) {
+        this.penalize();
+    }
+
+    /**
+     * Called when the server reports a failure, penalizing only those
+     * reporting the client is sending too fast.
+     *
+     * @param event the event instance
+     */
+    @Handler
+    public void onFail(FailEvent event) {
+        if (AdaptiveDelaySender.isThrottleCode(event.getCode())) {
+            this.penalize();
+        }
+    }
+
+    /**
+     * Gets if a standard reply code reports sending too fast, such as
+     * RATE_LIMITED.
+     *
+     * @param code standard reply code
+     * @return true if a throttling code
+     */
+    static boolean isThrottleCode(@NonNull String code) {
+        String upper = code.toUpperCase(Locale.ROOT);
+        return upper.contains("RATE_LIMIT") || upper.contains("FLOOD") || upper.contains("THROTTLE") || upper.contains("TOO_FAST");
+    }
+
+    @Override
+    public @NonNull Queue<String> shutdown() {
+        this.getClient().getEventManager().unregisterEventListener(this);
+        return super.shutdown();
+    }
+}
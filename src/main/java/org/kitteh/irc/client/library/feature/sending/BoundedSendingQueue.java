@@ -0,0 +1,440 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.client.ClientSendingQueueWatermarkEvent;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A {@link MessageSendingQueue} which holds a limited number of messages,
+ * handing them one at a time to another, rate limiting, queue. That queue
+ * must report any message it drops rather than sends, through {@link
+ * MessageSendingQueue#beginSending(Consumer, Consumer)}, or later messages
+ * wait on the dropped one forever.
+ * <p>
+ * When full, the {@link OverflowPolicy} decides what happens to new
+ * messages. Optionally, the number of messages queued for any single
+ * target (the first parameter of the message, such as the channel of a
+ * PRIVMSG) can be capped further, with the same policy applied within that
+ * target. A {@link ClientSendingQueueWatermarkEvent} is fired when the
+ * queue fills to its high watermark and again when it drains to its low
+ * watermark.
+ */
+public class BoundedSendingQueue implements MessageSendingQueue {
+    /**
+     * What to do with a message queued when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block the queueing thread until there is room. Messages are
+         * typically queued while holding the client's sending lock, so
+         * this should not be used from threads that must never stall.
+         */
+        BLOCK,
+        /**
+         * Discard the oldest queued message to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Discard the new message.
+         */
+        DROP_NEWEST,
+        /**
+         * Throw an {@link IllegalStateException}.
+         */
+        FAIL
+    }
+
+    /**
+     * Gets a supplier with no per-target cap and watermarks at three
+     * quarters and one quarter of capacity.
+     *
+     * @param delegate supplier of the queue doing the actual sending
+     * @param capacity maximum number of queued messages
+     * @param policy overflow policy
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, BoundedSendingQueue> getSupplier(@NonNull Function<Client.WithManagement, ? extends MessageSendingQueue> delegate, int capacity, @NonNull OverflowPolicy policy) {
+        return BoundedSendingQueue.getSupplier(delegate, capacity, capacity, policy, (capacity * 3) / 4, capacity / 4);
+    }
+
+    /**
+     * Gets a supplier.
+     *
+     * @param delegate supplier of the queue doing the actual sending
+     * @param capacity maximum number of queued messages
+     * @param perTargetCapacity maximum number of queued messages per target
+     * @param policy overflow policy
+     * @param highWatermark depth at which a high watermark event fires
+     * @param lowWatermark depth at which a low watermark event fires after
+     * the high watermark was reached
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, BoundedSendingQueue> getSupplier(@NonNull Function<Client.WithManagement, ? extends MessageSendingQueue> delegate, int capacity, int perTargetCapacity, @NonNull OverflowPolicy policy, int highWatermark, int lowWatermark) {
+        Sanity.nullCheck(delegate, "Delegate");
+        Sanity.nullCheck(policy, "Policy");
+        return client -> new BoundedSendingQueue(client, delegate.apply(client), capacity, perTargetCapacity, policy, highWatermark, lowWatermark);
+    }
+
+    private final Client client;
+    private final MessageSendingQueue delegate;
+    private final int capacity;
+    private final int perTargetCapacity;
+    private final OverflowPolicy policy;
+    private final int highWatermark;
+    private final int lowWatermark;
+
+    private final Object lock = new Object();
+    private final Deque<String> queue = new ArrayDeque<>();
+    private final Map<String, Integer> targetCounts = new HashMap<>();
+    private @Nullable String inFlight;
+    private @Nullable Consumer<String> consumer;
+    private boolean aboveHighWatermark = false;
+    private boolean shutdown = false;
+    private int highestDepth;
+    private long droppedCount;
+
+    /**
+     * Constructs the sending queue.
+     *
+     * @param client the client
+     * @param delegate queue doing the actual sending
+     * @param capacity maximum number of queued messages
+     * @param perTargetCapacity maximum number of queued messages per target
+     * @param policy overflow policy
+     * @param highWatermark depth at which a high watermark event fires
+     * @param lowWatermark depth at which a low watermark event fires after
+     * the high watermark was reached
+     */
+    public BoundedSendingQueue(@NonNull Client client, @NonNull MessageSendingQueue delegate, int capacity, int perTargetCapacity, @NonNull OverflowPolicy policy, int highWatermark, int lowWatermark) {
+        this.client = Sanity.nullCheck(client, "Client");
+        this.delegate = Sanity.nullCheck(delegate, "Delegate");
+        this.policy = Sanity.nullCheck(policy, "Policy");
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        Sanity.truthiness(perTargetCapacity > 0, "Per-target capacity must be positive");
+        Sanity.truthiness(highWatermark <= capacity, "High watermark cannot exceed capacity");
+        Sanity.truthiness(lowWatermark < highWatermark, "Low watermark must be below high watermark");
+        this.capacity = capacity;
+        this.perTargetCapacity = perTargetCapacity;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * Gets the target of a message, being the first parameter after the
+     * command.
+     *
+     * @param message message
+     * @return target or null if none
+     */
+    static @Nullable String getTarget(@NonNull String message) {
+        int position = 0;
+        if (message.startsWith("@")) {
+            position = message.indexOf(' ') + 1;
+            if (position == 0) {
+                return null;
+            }
+        }
+        if (message.startsWith(":", position)) {
+            position = message.indexOf(' ', position) + 1;
+            if (position == 0) {
+                return null;
+            }
+        }
+        int commandEnd = message.indexOf(' ', position);
+        if (commandEnd == -1) {
+            return null;
+        }
+        int targetStart = commandEnd + 1;
+        if (message.startsWith(":", targetStart)) {
+            return null;
+        }
+        int targetEnd = message.indexOf(' ', targetStart);
+        String target = (targetEnd == -1) ? message.substring(targetStart) : message.substring(targetStart, targetEnd);
+        return target.isEmpty() ? null : target;
+    }
+
+    @Override
+    public void beginSending(@NonNull Consumer<String> consumer) {
+        Sanity.nullCheck(consumer, "Consumer");
+        synchronized (this.lock) {
+            this.consumer = consumer;
+        }
+        this.delegate.beginSending(this::sent, this::dropped);
+    }
+
+    private void sent(@NonNull String message) {
+        this.release(message, true);
+    }
+
+    private void dropped(@NonNull String message) {
+        this.release(message, false);
+    }
+
+    private void release(@NonNull String message, boolean sent) {
+        Consumer<String> currentConsumer = null;
+        boolean lowWatermarkReached = false;
+        int depth;
+        synchronized (this.lock) {
+            if (!sent && this.shutdown) {
+                // Left in flight, so shutdown() returns it as unsent
+                return;
+            }
+            if (sent) {
+                currentConsumer = this.consumer;
+            }
+            // The delegate is now done with the in-flight message
+            this.inFlight = null;
+            if (!this.shutdown) {
+                this.inFlight = this.queue.poll();
+                if (this.inFlight != null) {
+                    this.decrementTarget(this.inFlight);
+                    this.delegate.queue(this.inFlight);
+                }
+            }
+            depth = this.getDepthInternal();
+            if (this.aboveHighWatermark && (depth <= this.lowWatermark)) {
+                this.aboveHighWatermark = false;
+                lowWatermarkReached = true;
+            }
+            this.lock.notifyAll();
+        }
+        if (currentConsumer != null) {
+            currentConsumer.accept(message);
+        }
+        if (lowWatermarkReached) {
+            this.client.getEventManager().callEvent(new ClientSendingQueueWatermarkEvent(this.client, depth, this.capacity, false));
+        }
+    }
+
+    @Override
+    public boolean contains(@NonNull String message) {
+        Sanity.nullCheck(message, "Message");
+        synchronized (this.lock) {
+            return message.equals(this.inFlight) || this.queue.contains(message);
+        }
+    }
+
+    @Override
+    public @NonNull Optional<Consumer<String>> getConsumer() {
+        synchronized (this.lock) {
+            return Optional.ofNullable(this.consumer);
+        }
+    }
+
+    /**
+     * Gets the number of messages currently queued, including the message
+     * waiting to be sent by the delegate queue.
+     *
+     * @return queue depth
+     */
+    public int getDepth() {
+        synchronized (this.lock) {
+            return this.getDepthInternal();
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return this.getDepth();
+    }
+
+    private int getDepthInternal() {
+        return this.queue.size() + ((this.inFlight == null) ? 0 : 1);
+    }
+
+    /**
+     * Gets the highest depth this queue has reached.
+     *
+     * @return highest depth
+     */
+    public int getHighestDepth() {
+        synchronized (this.lock) {
+            return this.highestDepth;
+        }
+    }
+
+    /**
+     * Gets the number of messages discarded due to overflow.
+     *
+     * @return count of dropped messages
+     */
+    public long getDroppedCount() {
+        synchronized (this.lock) {
+            return this.droppedCount;
+        }
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return maximum number of queued messages
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the overflow policy.
+     *
+     * @return policy
+     */
+    public @NonNull OverflowPolicy getPolicy() {
+        return this.policy;
+    }
+
+    @Override
+    public void pause() {
+        this.delegate.pause();
+    }
+
+    @Override
+    public void queue(@NonNull String message) {
+        Sanity.nullCheck(message, "Message");
+        String target = BoundedSendingQueue.getTarget(message);
+        boolean highWatermarkReached = false;
+        int depth;
+        synchronized (this.lock) {
+            if (this.shutdown) {
+                return;
+            }
+            while ((this.getDepthInternal() >= this.capacity) || ((target != null) && (this.getTargetCount(target) >= this.perTargetCapacity))) {
+                boolean targetFull = this.getDepthInternal() < this.capacity;
+                switch (this.policy) {
+                    case BLOCK:
+                        try {
+                            this.lock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            this.droppedCount++;
+                            return;
+                        }
+                        if (this.shutdown) {
+                            return;
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        if (!this.dropOldest(targetFull ? target : null)) {
+                            // Nothing droppable, as the only candidate is already being sent
+                            this.droppedCount++;
+                            return;
+                        }
+                        break;
+                    case DROP_NEWEST:
+                        this.droppedCount++;
+                        return;
+                    case FAIL:
+                    default:
+                        throw new IllegalStateException("Sending queue full" + (targetFull ? (" for target " + target) : "") + ", could not queue: " + message);
+                }
+            }
+            if (this.inFlight == null) {
+                this.inFlight = message;
+                this.delegate.queue(message);
+            } else {
+                this.queue.add(message);
+                if (target != null) {
+                    this.targetCounts.merge(target, 1, Integer::sum);
+                }
+            }
+            depth = this.getDepthInternal();
+            if (depth > this.highestDepth) {
+                this.highestDepth = depth;
+            }
+            if (!this.aboveHighWatermark && (depth >= this.highWatermark)) {
+                this.aboveHighWatermark = true;
+                highWatermarkReached = true;
+            }
+        }
+        if (highWatermarkReached) {
+            this.client.getEventManager().callEvent(new ClientSendingQueueWatermarkEvent(this.client, depth, this.capacity, true));
+        }
+    }
+
+    private boolean dropOldest(@Nullable String target) {
+        Iterator<String> iterator = this.queue.iterator();
+        while (iterator.hasNext()) {
+            String message = iterator.next();
+            if ((target == null) || target.equals(BoundedSendingQueue.getTarget(message))) {
+                iterator.remove();
+                this.decrementTarget(message);
+                this.droppedCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getTargetCount(@NonNull String target) {
+        return this.targetCounts.getOrDefault(target, 0);
+    }
+
+    private void decrementTarget(@NonNull String message) {
+        String target = BoundedSendingQueue.getTarget(message);
+        if (target != null) {
+            this.targetCounts.computeIfPresent(target, (key, count) -> (count > 1) ? (count - 1) : null);
+        }
+    }
+
+    @Override
+    public @NonNull Queue<String> shutdown() {
+        synchronized (this.lock) {
+            this.shutdown = true;
+            this.lock.notifyAll();
+        }
+        // Not under the lock, as the delegate's sending thread calls back into sent() while holding its own
+        this.delegate.shutdown();
+        synchronized (this.lock) {
+            // The delegate only ever holds the in-flight message, which is unsent if still unacknowledged
+            ArrayDeque<String> remaining = new ArrayDeque<>();
+            if (this.inFlight != null) {
+                remaining.add(this.inFlight);
+            }
+            remaining.addAll(this.queue);
+            this.queue.clear();
+            this.targetCounts.clear();
+            this.inFlight = null;
+            return remaining;
+        }
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("client", this.client).add("capacity", this.capacity).add("policy", this.policy).add("delegate", this.delegate).toString();
+    }
+}
@@ -40,6 +40,18 @@ public interface MessageSendingQueue {
      */
     void beginSending(@NonNull Consumer<String> consumer);
 
+    /**
+     * Starts sending messages to the given consumer, handing any message
+     * dropped instead of sent to the other consumer. By default, messages
+     * are assumed to never be dropped.
+     *
+     * @param consumer the consumer to consume
+     * @param dropConsumer the consumer of dropped messages
+     */
+    default void beginSending(@NonNull Consumer<String> consumer, @NonNull Consumer<String> dropConsumer) {
+        this.beginSending(consumer);
+    }
+
     /**
      * Gets if the queue currently has within it a particular message.
      *
@@ -55,6 +67,15 @@ public interface MessageSendingQueue {
      */
     @NonNull Optional<Consumer<String>> getConsumer();
 
+    /**
+     * Gets the number of messages waiting to be sent.
+     *
+     * @return queue size, or -1 if unknown
+     */
+    default int getQueueSize() {
+        return -1;
+    }
+
     /**
      * Pauses message sending.
      */
@@ -39,6 +39,8 @@ public class QueueProcessingThreadSender extends QueueProcessingThread<String> i
     private final Client client;
     private Consumer<String> consumer = string -> {
     };
+    private Consumer<String> dropConsumer = string -> {
+    };
     private final Object sendingLock = new Object();
     private volatile boolean waiting = true;
 
@@ -61,11 +63,19 @@ public class QueueProcessingThreadSender extends QueueProcessingThread<String> i
                 try {
                     this.sendingLock.wait();
                 } catch (InterruptedException e) {
+                    this.dropConsumer.accept(message);
                     return;
                 }
             }
-            if (this.checkReady(message)) {
+            long start = System.nanoTime();
+            boolean ready = this.checkReady(message);
+            if (this.client instanceof Client.WithManagement) {
+                ((Client.WithManagement) this.client).getMetrics().recordRateLimitWait(System.nanoTime() - start);
+            }
+            if (ready) {
                 this.consumer.accept(message);
+            } else {
+                this.dropConsumer.accept(message);
             }
         }
     }
@@ -105,6 +115,15 @@ public class QueueProcessingThreadSender extends QueueProcessingThread<String> i
         }
     }
 
+    @Override
+    public void beginSending(@NonNull Consumer<String> consumer, @NonNull Consumer<String> dropConsumer) {
+        Sanity.nullCheck(dropConsumer, "Drop consumer");
+        synchronized (this.sendingLock) {
+            this.dropConsumer = dropConsumer;
+        }
+        this.beginSending(consumer);
+    }
+
     @Override
     public @NonNull Optional<Consumer<String>> getConsumer() {
         return Optional.ofNullable(this.consumer);
@@ -0,0 +1,272 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A {@link MessageSendingQueue} which, rather than sleeping on a thread of
+ * its own, schedules the next send on a shared {@link
+ * ScheduledExecutorService} for the exact moment the rate limit allows it.
+ * <p>
+ * Up to a set number of messages are permitted within a rolling period.
+ * One message per period matches the behaviour of {@link
+ * SingleDelaySender}, while for example twenty messages per thirty
+ * seconds matches the standard Twitch limit.
+ * <p>
+ * By default all instances share a single daemon thread. Any scheduler may
+ * be provided instead, including a Netty {@code EventLoopGroup}.
+ */
+public class ScheduledDelaySender implements MessageSendingQueue {
+    private static @Nullable ScheduledExecutorService defaultScheduler;
+
+    /**
+     * Gets the scheduler shared by all senders not given their own.
+     *
+     * @return the shared scheduler
+     */
+    public static synchronized @NonNull ScheduledExecutorService getDefaultScheduler() {
+        if (ScheduledDelaySender.defaultScheduler == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "KICL Scheduled Sending Queue");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            ScheduledDelaySender.defaultScheduler = executor;
+        }
+        return ScheduledDelaySender.defaultScheduler;
+    }
+
+    /**
+     * Gets a supplier with a set delay of milliseconds between messages,
+     * using the default scheduler.
+     *
+     * @param delay delay to set in milliseconds
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, ScheduledDelaySender> getSupplier(int delay) {
+        return ScheduledDelaySender.getSupplier(ScheduledDelaySender.getDefaultScheduler(), 1, delay);
+    }
+
+    /**
+     * Gets a supplier permitting a number of messages per period.
+     *
+     * @param scheduler scheduler on which to send
+     * @param messages messages permitted per period
+     * @param period period in milliseconds
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, ScheduledDelaySender> getSupplier(@NonNull ScheduledExecutorService scheduler, int messages, int period) {
+        Sanity.nullCheck(scheduler, "Scheduler");
+        return client -> new ScheduledDelaySender(client, "ScheduledDelay " + messages + '/' + period, scheduler, messages, period);
+    }
+
+    private final Client client;
+    private final String name;
+    private final ScheduledExecutorService scheduler;
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final Object lock = new Object();
+    private final long[] timestamps;
+    private final int period;
+    private int currentIndex = 0;
+    private volatile @Nullable Consumer<String> consumer;
+    private boolean sending = false;
+    private boolean shutdown = false;
+    private @Nullable ScheduledFuture<?> scheduled;
+    // Identifies the current chain of process runs, so one outliving a pause is ignored
+    private long generation;
+    private boolean sendInProgress = false;
+
+    /**
+     * Constructs the sending queue.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param scheduler scheduler on which to send
+     * @param messages messages permitted per period
+     * @param period period in milliseconds
+     */
+    public ScheduledDelaySender(@NonNull Client client, @NonNull String name, @NonNull ScheduledExecutorService scheduler, int messages, int period) {
+        this.client = Sanity.nullCheck(client, "Client");
+        this.name = Sanity.nullCheck(name, "Name");
+        this.scheduler = Sanity.nullCheck(scheduler, "Scheduler");
+        Sanity.truthiness(messages > 0, "Messages per period must be positive");
+        Sanity.truthiness(period >= 0, "Period cannot be negative");
+        this.timestamps = new long[messages];
+        this.period = period;
+    }
+
+    private void schedule() {
+        synchronized (this.lock) {
+            if (!this.sending || this.shutdown || this.sendInProgress || (this.scheduled != null) || this.queue.isEmpty()) {
+                return;
+            }
+            long remaining = this.getRemaining(System.currentTimeMillis());
+            long generation = ++this.generation;
+            this.scheduled = this.scheduler.schedule(() -> this.process(generation), Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancel() {
+        this.generation++;
+        if (this.scheduled != null) {
+            this.scheduled.cancel(false);
+            this.scheduled = null;
+        }
+    }
+
+    private long getRemaining(long now) {
+        return this.period - (now - this.timestamps[this.currentIndex]);
+    }
+
+    private void process(long generation) {
+        String message;
+        Consumer<String> currentConsumer;
+        synchronized (this.lock) {
+            if (generation != this.generation) {
+                return;
+            }
+            if (!this.sending || this.shutdown) {
+                this.scheduled = null;
+                return;
+            }
+            long now = System.currentTimeMillis();
+            long remaining = this.getRemaining(now);
+            if (remaining > 0) {
+                this.scheduled = this.scheduler.schedule(() -> this.process(generation), remaining, TimeUnit.MILLISECONDS);
+                return;
+            }
+            message = this.queue.poll();
+            if (message == null) {
+                this.scheduled = null;
+                return;
+            }
+            this.timestamps[this.currentIndex++] = now;
+            if (this.currentIndex >= this.timestamps.length) {
+                this.currentIndex = 0;
+            }
+            currentConsumer = this.consumer;
+            this.sendInProgress = true;
+        }
+        try {
+            if (currentConsumer != null) {
+                currentConsumer.accept(message);
+            }
+        } catch (final Exception thrown) {
+            this.client.getExceptionListener().queue(thrown);
+        }
+        // Only now allow the next send to be scheduled, keeping messages in order
+        synchronized (this.lock) {
+            this.sendInProgress = false;
+            if (generation == this.generation) {
+                this.scheduled = null;
+            }
+        }
+        this.schedule();
+    }
+
+    /**
+     * Gets the client.
+     *
+     * @return the client
+     */
+    protected @NonNull Client getClient() {
+        return this.client;
+    }
+
+    @Override
+    public void beginSending(@NonNull Consumer<String> consumer) {
+        Sanity.nullCheck(consumer, "Consumer");
+        synchronized (this.lock) {
+            this.consumer = consumer;
+            this.sending = true;
+        }
+        this.schedule();
+    }
+
+    @Override
+    public boolean contains(@NonNull String message) {
+        return this.queue.contains(Sanity.nullCheck(message, "Message"));
+    }
+
+    @Override
+    public @NonNull Optional<Consumer<String>> getConsumer() {
+        return Optional.ofNullable(this.consumer);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return this.queue.size();
+    }
+
+    @Override
+    public void pause() {
+        synchronized (this.lock) {
+            this.sending = false;
+            this.cancel();
+        }
+    }
+
+    @Override
+    public void queue(@NonNull String message) {
+        Sanity.nullCheck(message, "Message");
+        synchronized (this.lock) {
+            if (this.shutdown) {
+                return;
+            }
+            this.queue.add(message);
+        }
+        this.schedule();
+    }
+
+    @Override
+    public @NonNull Queue<String> shutdown() {
+        synchronized (this.lock) {
+            this.shutdown = true;
+            this.cancel();
+            return new ArrayDeque<>(this.queue);
+        }
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("client", this.client).add("name", this.name).toString();
+    }
+}
@@ -29,7 +29,8 @@ import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEven
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Represents a BATCH capability reference tag.
@@ -38,7 +39,8 @@ public class BatchReferenceTag {
     private final String referenceTag;
     private final String batchType;
     private final List<String> batchTypeParameters;
-    private final List<ClientReceiveServerMessageEvent> events = new CopyOnWriteArrayList<>();
+    private final Queue<ClientReceiveServerMessageEvent> events = new ConcurrentLinkedQueue<>();
+    private volatile boolean streaming;
 
     /**
      * Constructs a reference tag.
@@ -91,7 +93,31 @@ public class BatchReferenceTag {
     }
 
     /**
-     * Gets the events, in order, assigned to this tag.
+     * Gets if this batch is streamed, with each message processed as it
+     * arrives instead of held until the batch ends.
+     *
+     * @return true if streamed
+     * @see #setStreaming(boolean)
+     */
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    /**
+     * Sets if this batch is streamed. When streamed, each message is
+     * processed as it arrives, immediately after the
+     * {@link org.kitteh.irc.client.library.event.batch.ClientBatchMessageEvent}
+     * for it, and is not added to this tag's events.
+     *
+     * @param streaming true to stream
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Gets the events, in order, assigned to this tag. Always empty for a
+     * streamed batch.
      *
      * @return events
      */
@@ -100,11 +126,12 @@ public class BatchReferenceTag {
     }
 
     /**
-     * Adds an event to the tag.
+     * Adds an event to the tag, retaining it.
      *
      * @param event event to add
+     * @see ClientReceiveServerMessageEvent#retain()
      */
     public void addEvent(@NonNull ClientReceiveServerMessageEvent event) {
-        this.events.add(event);
+        this.events.add(event.retain());
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of the parameters of a server line, storing only where
+ * each parameter begins and ends within the line. A parameter's string is
+ * created the first time it is read.
+ */
+public final class LineParameters extends AbstractList<String> implements RandomAccess {
+    /**
+     * Collects parameter bounds while parsing a line. Reusable, but not
+     * thread-safe.
+     */
+    public static final class Builder {
+        private int[] bounds = new int[32];
+        private int size;
+
+        /**
+         * Adds a parameter.
+         *
+         * @param start index of the parameter's first character
+         * @param end index after the parameter's last character
+         * @return this builder
+         */
+        public @NonNull Builder add(int start, int end) {
+            if ((this.size * 2) == this.bounds.length) {
+                this.bounds = Arrays.copyOf(this.bounds, this.bounds.length * 2);
+            }
+            this.bounds[this.size * 2] = start;
+            this.bounds[(this.size * 2) + 1] = end;
+            this.size++;
+            return this;
+        }
+
+        /**
+         * Empties this builder for the next line.
+         *
+         * @return this builder
+         */
+        public @NonNull Builder clear() {
+            this.size = 0;
+            return this;
+        }
+
+        /**
+         * Creates the parameter list for the line the bounds refer to.
+         *
+         * @param line line parsed
+         * @return immutable parameter list
+         */
+        public @NonNull LineParameters build(@NonNull String line) {
+            return new LineParameters(Sanity.nullCheck(line, "Line"), Arrays.copyOf(this.bounds, this.size * 2));
+        }
+
+        @Override
+        public @NonNull String toString() {
+            return new ToStringer(this).add("size", this.size).toString();
+        }
+    }
+
+    private final String line;
+    private final int[] bounds;
+    private String[] strings;
+
+    private LineParameters(@NonNull String line, int @NonNull [] bounds) {
+        this.line = line;
+        this.bounds = bounds;
+    }
+
+    @Override
+    public @NonNull String get(int index) {
+        if ((index < 0) || (index >= this.size())) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        if (this.strings == null) {
+            this.strings = new String[this.size()];
+        }
+        String string = this.strings[index];
+        if (string == null) {
+            string = this.line.substring(this.bounds[index * 2], this.bounds[(index * 2) + 1]);
+            this.strings[index] = string;
+        }
+        return string;
+    }
+
+    @Override
+    public int size() {
+        return this.bounds.length / 2;
+    }
+}
@@ -27,47 +27,117 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.kitteh.irc.client.library.Client;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * A listener is a receiver of items that, if given a consumer, operates a
- * queue processing thread to send items to that consumer. Items are only
- * queued if a consumer is present.
+ * thread to send items to that consumer. Items are only queued if a
+ * consumer is present.
+ * <p>
+ * By default the queue is unbounded. If a capacity is set, the queue acts
+ * as a ring buffer: once full, the oldest item is discarded for each new
+ * item and counted in {@link #getDroppedCount()}. A batch consumer may be
+ * set to receive all items waiting at once instead of one at a time.
  *
  * @param <Type> type of object listened to
  */
 public class Listener<Type> {
-    private final class ListenerThread extends QueueProcessingThread<Type> {
-        private volatile Consumer<Type> consumer;
+    /**
+     * Capacity indicating no limit on queued items.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    /**
+     * Maximum number of items passed to a batch consumer at once.
+     */
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private final class ListenerThread extends Thread {
+        private final Queue<Type> queue = new ArrayDeque<>();
+        private volatile Consumer<List<Type>> consumer;
 
-        private ListenerThread(@NonNull String clientName, @NonNull Consumer<Type> consumer) {
-            super("KICL Listener (" + clientName + ')');
+        private ListenerThread(@NonNull String clientName, @NonNull Consumer<List<Type>> consumer) {
+            this.setName("KICL Listener (" + clientName + ')');
             this.consumer = consumer;
+            this.start();
         }
 
         @Override
-        protected void processElement(@NonNull Type element) {
+        public void run() {
+            dance:
+            while (!this.isInterrupted()) {
+                List<Type> batch;
+                synchronized (this.queue) {
+                    while (this.queue.isEmpty()) {
+                        try {
+                            this.queue.wait();
+                        } catch (InterruptedException e) {
+                            break dance;
+                        }
+                    }
+                    batch = this.drain();
+                }
+                this.accept(batch);
+            }
+            this.interrupt();
+            this.cleanup();
+        }
+
+        private void cleanup() {
+            List<Type> batch;
+            do {
+                synchronized (this.queue) {
+                    batch = this.drain();
+                }
+                if (!batch.isEmpty()) {
+                    this.accept(batch);
+                }
+            } while (!batch.isEmpty());
+        }
+
+        private @NonNull List<Type> drain() {
+            List<Type> batch = new ArrayList<>(Math.min(this.queue.size(), Listener.MAX_BATCH_SIZE));
+            while (!this.queue.isEmpty() && (batch.size() < Listener.MAX_BATCH_SIZE)) {
+                batch.add(this.queue.poll());
+            }
+            return batch;
+        }
+
+        private void accept(@NonNull List<Type> batch) {
             try {
-                this.consumer.accept(element);
+                this.consumer.accept(Collections.unmodifiableList(batch));
             } catch (final Throwable thrown) {
                 // NOOP
             }
         }
 
-        @Override
-        protected void cleanup(@NonNull Queue<Type> remainingQueue) {
-            while (!remainingQueue.isEmpty()) {
-                try {
-                    this.consumer.accept(remainingQueue.poll());
-                } catch (final Throwable thrown) {
-                    // NOOP
+        private void queue(@NonNull Type item) {
+            synchronized (this.queue) {
+                int capacity = Listener.this.capacity;
+                while (this.queue.size() >= capacity) {
+                    this.queue.poll();
+                    Listener.this.dropped.incrementAndGet();
                 }
+                this.queue.add(item);
+                this.queue.notify();
+            }
+        }
+
+        private int size() {
+            synchronized (this.queue) {
+                return this.queue.size();
             }
         }
     }
 
     private final String clientName;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int capacity = Listener.UNBOUNDED;
     private @Nullable ListenerThread thread;
 
     /**
@@ -76,7 +146,29 @@ public class Listener<Type> {
      */
     public Listener(@NonNull Client client, @Nullable Consumer<Type> consumer) {
         this.clientName = Sanity.nullCheck(client, "Client").getName();
-        this.thread = (consumer == null) ? null : new ListenerThread(this.clientName, consumer);
+        this.thread = (consumer == null) ? null : new ListenerThread(this.clientName, Listener.wrap(consumer));
+    }
+
+    /**
+     * @param client the client
+     * @param consumer consumer or null for no consumer
+     * @param capacity maximum number of queued items
+     */
+    public Listener(@NonNull Client client, @Nullable Consumer<Type> consumer, int capacity) {
+        this(client, consumer);
+        this.setCapacity(capacity);
+    }
+
+    private static <Type> @NonNull Consumer<List<Type>> wrap(@NonNull Consumer<Type> consumer) {
+        return batch -> {
+            for (Type item : batch) {
+                try {
+                    consumer.accept(item);
+                } catch (final Throwable thrown) {
+                    // NOOP
+                }
+            }
+        };
     }
 
     /**
@@ -85,11 +177,21 @@ public class Listener<Type> {
      * @param item item to queue
      */
     public void queue(@NonNull Type item) {
-        if (this.thread != null) {
-            this.thread.queue(item);
+        ListenerThread currentThread = this.thread;
+        if (currentThread != null) {
+            currentThread.queue(Sanity.nullCheck(item, "Item"));
         }
     }
 
+    /**
+     * Gets if a consumer is set, and thus if queued items will be used.
+     *
+     * @return true if a consumer is set
+     */
+    public boolean hasConsumer() {
+        return this.thread != null;
+    }
+
     /**
      * Removes the consumer from the listener.
      */
@@ -105,6 +207,21 @@ public class Listener<Type> {
      * @param consumer new consumer
      */
     public void setConsumer(@NonNull Consumer<Type> consumer) {
+        this.setConsumerInternal(Listener.wrap(Sanity.nullCheck(consumer, "Consumer")));
+    }
+
+    /**
+     * Sets a consumer for the listener which receives all waiting items at
+     * once, up to {@link #MAX_BATCH_SIZE}, starting a queue processing
+     * thread if none existed.
+     *
+     * @param consumer new batch consumer
+     */
+    public void setBatchConsumer(@NonNull Consumer<List<Type>> consumer) {
+        this.setConsumerInternal(Sanity.nullCheck(consumer, "Consumer"));
+    }
+
+    private void setConsumerInternal(@NonNull Consumer<List<Type>> consumer) {
         if (this.thread == null) {
             this.thread = new ListenerThread(this.clientName, consumer);
         } else {
@@ -112,6 +229,45 @@ public class Listener<Type> {
         }
     }
 
+    /**
+     * Sets the maximum number of items held for the consumer. Once full,
+     * the oldest item is discarded for each new item.
+     *
+     * @param capacity maximum number of queued items, or {@link #UNBOUNDED}
+     */
+    public void setCapacity(int capacity) {
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the maximum number of items held for the consumer.
+     *
+     * @return capacity, or {@link #UNBOUNDED}
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the number of items discarded because the queue was full.
+     *
+     * @return count of dropped items
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Gets the number of items waiting for the consumer.
+     *
+     * @return queue size
+     */
+    public int getQueueSize() {
+        ListenerThread currentThread = this.thread;
+        return (currentThread == null) ? 0 : currentThread.size();
+    }
+
     /**
      * Shuts down the listener. The listener cannot be brought back from this
      * state, and this method should typically only be called by the Client
@@ -125,6 +281,6 @@ public class Listener<Type> {
 
     @Override
     public @NonNull String toString() {
-        return new ToStringer(this).add("clientName", this.clientName).toString();
+        return new ToStringer(this).add("clientName", this.clientName).add("capacity", this.capacity).toString();
     }
 }
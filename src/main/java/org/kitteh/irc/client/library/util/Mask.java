@@ -25,6 +25,7 @@ package org.kitteh.irc.client.library.util;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 
 /**
  * Represents a mask that can match a {@link User}.
@@ -55,6 +56,52 @@ public class Mask {
         return this.string;
     }
 
+    /**
+     * Gets if this mask matches a user's nick!user@host, with {@code *}
+     * matching any run of characters and {@code ?} any one character,
+     * ignoring case according to the user's server.
+     *
+     * @param user user to match
+     * @return true if the user matches
+     */
+    public boolean matches(@NonNull User user) {
+        Sanity.nullCheck(user, "User");
+        CaseMapping caseMapping = user.getClient().getServerInfo().getCaseMapping();
+        return Mask.matches(caseMapping.toLowerCase(this.string), caseMapping.toLowerCase(user.getName()));
+    }
+
+    /**
+     * Matches a wildcard pattern against a string, both already lowercased.
+     *
+     * @param pattern pattern with {@code *} and {@code ?} wildcards
+     * @param subject string to match
+     * @return true if the pattern matches the whole subject
+     */
+    static boolean matches(@NonNull String pattern, @NonNull String subject) {
+        int p = 0;
+        int s = 0;
+        int star = -1;
+        int mark = 0;
+        while (s < subject.length()) {
+            if ((p < pattern.length()) && ((pattern.charAt(p) == '?') || (pattern.charAt(p) == subject.charAt(s)))) {
+                p++;
+                s++;
+            } else if ((p < pattern.length()) && (pattern.charAt(p) == '*')) {
+                star = p++;
+                mark = s;
+            } else if (star >= 0) {
+                p = star + 1;
+                s = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while ((p < pattern.length()) && (pattern.charAt(p) == '*')) {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
     @Override
     public int hashCode() {
         return (2 * this.string.hashCode()) + 5;
@@ -0,0 +1,232 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An immutable list of values carrying {@link Mask}s, such as a channel's
+ * ban list, indexed for finding the values matching a user without testing
+ * every mask.
+ * <p>
+ * Masks of the form nick!user@host are indexed by their exact host, by the
+ * literal suffix of a host starting with a wildcard (*.example.com), by the
+ * literal prefix of a host ending with a wildcard (192.0.2.*), by exact
+ * nick, or by exact user, in that order of preference. Only masks with
+ * none of those are tested one by one. The index is built on first match.
+ *
+ * @param <T> type of value
+ */
+public final class MaskIndex<T> {
+    private static final class Entry<T> {
+        private final T value;
+        private final String pattern;
+        private final int order;
+
+        private Entry(@NonNull T value, @NonNull String pattern, int order) {
+            this.value = value;
+            this.pattern = pattern;
+            this.order = order;
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>();
+        private final List<Entry<T>> entries = new ArrayList<>(1);
+
+        private @NonNull Node<T> add(@NonNull String key, boolean reverse) {
+            Node<T> node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(reverse ? (key.length() - 1 - i) : i), c -> new Node<>());
+            }
+            return node;
+        }
+    }
+
+    private static final class Index<T> {
+        private final Map<String, List<Entry<T>>> hosts = new HashMap<>();
+        private final Node<T> hostSuffixes = new Node<>();
+        private final Node<T> hostPrefixes = new Node<>();
+        private final Map<String, List<Entry<T>>> nicks = new HashMap<>();
+        private final Map<String, List<Entry<T>>> users = new HashMap<>();
+        private final List<Entry<T>> others = new ArrayList<>();
+
+        private void add(@NonNull Entry<T> entry) {
+            String pattern = entry.pattern;
+            int bang = pattern.indexOf('!');
+            int at = pattern.lastIndexOf('@');
+            if ((bang < 0) || (at < bang)) {
+                this.others.add(entry);
+                return;
+            }
+            String nick = pattern.substring(0, bang);
+            String user = pattern.substring(bang + 1, at);
+            String host = pattern.substring(at + 1);
+            if (Index.isLiteral(host, 0, host.length())) {
+                this.hosts.computeIfAbsent(host, k -> new ArrayList<>(1)).add(entry);
+            } else if ((host.length() > 1) && (host.charAt(0) == '*') && Index.isLiteral(host, 1, host.length())) {
+                this.hostSuffixes.add(host.substring(1), true).entries.add(entry);
+            } else if ((host.length() > 1) && (host.charAt(host.length() - 1) == '*') && Index.isLiteral(host, 0, host.length() - 1)) {
+                this.hostPrefixes.add(host.substring(0, host.length() - 1), false).entries.add(entry);
+            } else if (Index.isLiteral(nick, 0, nick.length())) {
+                this.nicks.computeIfAbsent(nick, k -> new ArrayList<>(1)).add(entry);
+            } else if (Index.isLiteral(user, 0, user.length())) {
+                this.users.computeIfAbsent(user, k -> new ArrayList<>(1)).add(entry);
+            } else {
+                this.others.add(entry);
+            }
+        }
+
+        private static boolean isLiteral(@NonNull String string, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = string.charAt(i);
+                if ((c == '*') || (c == '?')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void collect(@NonNull List<Entry<T>> candidates, @NonNull String nick, @NonNull String user, @NonNull String host) {
+            candidates.addAll(this.hosts.getOrDefault(host, Collections.emptyList()));
+            Node<T> node = this.hostSuffixes;
+            for (int i = host.length() - 1; (i >= 0) && (node != null); i--) {
+                node = node.children.get(host.charAt(i));
+                if (node != null) {
+                    candidates.addAll(node.entries);
+                }
+            }
+            node = this.hostPrefixes;
+            for (int i = 0; (i < host.length()) && (node != null); i++) {
+                node = node.children.get(host.charAt(i));
+                if (node != null) {
+                    candidates.addAll(node.entries);
+                }
+            }
+            candidates.addAll(this.nicks.getOrDefault(nick, Collections.emptyList()));
+            candidates.addAll(this.users.getOrDefault(user, Collections.emptyList()));
+            candidates.addAll(this.others);
+        }
+    }
+
+    private final CaseMapping caseMapping;
+    private final List<T> values;
+    private final Function<T, Mask> maskFunction;
+    private volatile @Nullable Index<T> index;
+
+    /**
+     * Constructs an index over the given values.
+     *
+     * @param caseMapping case mapping for comparing masks
+     * @param values values, in the order matches are to be returned
+     * @param maskFunction function getting each value's mask
+     */
+    public MaskIndex(@NonNull CaseMapping caseMapping, @NonNull Collection<T> values, @NonNull Function<T, Mask> maskFunction) {
+        this.caseMapping = Sanity.nullCheck(caseMapping, "Case mapping");
+        this.values = Collections.unmodifiableList(new ArrayList<>(Sanity.nullCheck(values, "Values")));
+        this.maskFunction = Sanity.nullCheck(maskFunction, "Mask function");
+    }
+
+    /**
+     * Gets all values.
+     *
+     * @return unmodifiable list of values
+     */
+    public @NonNull List<T> getAll() {
+        return this.values;
+    }
+
+    /**
+     * Gets the values whose masks match the given user.
+     *
+     * @param user user to match
+     * @return unmodifiable list of matching values, in list order
+     */
+    public @NonNull List<T> getMatching(@NonNull User user) {
+        Sanity.nullCheck(user, "User");
+        return this.getMatching(user.getNick(), user.getUserString(), user.getHost());
+    }
+
+    /**
+     * Gets the values whose masks match the given nick!user@host.
+     *
+     * @param nick nick
+     * @param user user string
+     * @param host host
+     * @return unmodifiable list of matching values, in list order
+     */
+    public @NonNull List<T> getMatching(@NonNull String nick, @NonNull String user, @NonNull String host) {
+        String lowerNick = this.caseMapping.toLowerCase(Sanity.nullCheck(nick, "Nick"));
+        String lowerUser = this.caseMapping.toLowerCase(Sanity.nullCheck(user, "User"));
+        String lowerHost = this.caseMapping.toLowerCase(Sanity.nullCheck(host, "Host"));
+        String subject = lowerNick + '!' + lowerUser + '@' + lowerHost;
+        List<Entry<T>> candidates = new ArrayList<>();
+        this.getIndex().collect(candidates, lowerNick, lowerUser, lowerHost);
+        List<Entry<T>> matches = new ArrayList<>();
+        for (Entry<T> candidate : candidates) {
+            if (Mask.matches(candidate.pattern, subject)) {
+                matches.add(candidate);
+            }
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        matches.sort(Comparator.comparingInt(entry -> entry.order));
+        List<T> result = new ArrayList<>(matches.size());
+        for (Entry<T> match : matches) {
+            result.add(match.value);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private @NonNull Index<T> getIndex() {
+        Index<T> index = this.index;
+        if (index == null) {
+            index = new Index<>();
+            for (int i = 0; i < this.values.size(); i++) {
+                T value = this.values.get(i);
+                index.add(new Entry<>(value, this.caseMapping.toLowerCase(this.maskFunction.apply(value).asString()), i));
+            }
+            this.index = index;
+        }
+        return index;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("values", this.values).toString();
+    }
+}
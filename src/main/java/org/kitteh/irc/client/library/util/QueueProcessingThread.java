@@ -28,6 +28,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Self starting processor of queued items on its own thread.
@@ -36,6 +37,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  */
 public abstract class QueueProcessingThread<Type> extends Thread {
     private final Queue<Type> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
 
     /**
      * Creates a thread and starts itself.
@@ -60,7 +62,9 @@ public abstract class QueueProcessingThread<Type> extends Thread {
                     }
                 }
             }
-            this.processElement(this.queue.poll());
+            Type element = this.queue.poll();
+            this.size.decrementAndGet();
+            this.processElement(element);
         }
         this.interrupt();
         this.cleanup(this.queue);
@@ -101,6 +105,16 @@ public abstract class QueueProcessingThread<Type> extends Thread {
         return new ArrayDeque<>(this.queue);
     }
 
+    /**
+     * Gets the number of items waiting in the queue, without the cost of
+     * counting them.
+     *
+     * @return queue size
+     */
+    public int getQueueSize() {
+        return this.size.get();
+    }
+
     /**
      * Queues an item.
      *
@@ -110,6 +124,7 @@ public abstract class QueueProcessingThread<Type> extends Thread {
         Sanity.nullCheck(item, "Item");
         synchronized (this.queue) {
             this.queue.add(item);
+            this.size.incrementAndGet();
             this.queue.notify();
         }
     }
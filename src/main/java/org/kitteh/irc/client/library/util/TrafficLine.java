@@ -0,0 +1,97 @@
+/*
+ * * Copyright (C) 2013-2021 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.time.Instant;
+
+/**
+ * A raw line of traffic between the client and the server, along with the
+ * direction it travelled and when it was seen by the client.
+ */
+public final class TrafficLine {
+    /**
+     * The direction a line travelled.
+     */
+    public enum Direction {
+        /**
+         * Received from the server.
+         */
+        INPUT,
+        /**
+         * Sent to the server.
+         */
+        OUTPUT
+    }
+
+    private final Direction direction;
+    private final String line;
+    private final Instant timestamp;
+
+    /**
+     * Constructs a traffic line.
+     *
+     * @param direction direction of travel
+     * @param line the raw line, without line ending
+     * @param timestamp time the client saw the line
+     */
+    public TrafficLine(@NonNull Direction direction, @NonNull String line, @NonNull Instant timestamp) {
+        this.direction = Sanity.nullCheck(direction, "Direction");
+        this.line = Sanity.nullCheck(line, "Line");
+        this.timestamp = Sanity.nullCheck(timestamp, "Timestamp");
+    }
+
+    /**
+     * Gets the direction the line travelled.
+     *
+     * @return direction
+     */
+    public @NonNull Direction getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Gets the raw line.
+     *
+     * @return line, without line ending
+     */
+    public @NonNull String getLine() {
+        return this.line;
+    }
+
+    /**
+     * Gets the time the client saw the line.
+     *
+     * @return timestamp
+     */
+    public @NonNull Instant getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return new ToStringer(this).add("direction", this.direction).add("line", this.line).add("timestamp", this.timestamp).toString();
+    }
+}
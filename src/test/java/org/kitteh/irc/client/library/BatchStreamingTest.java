@@ -0,0 +1,97 @@
+package org.kitteh.irc.client.library;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.event.batch.ClientBatchEndEvent;
+import org.kitteh.irc.client.library.event.batch.ClientBatchStartEvent;
+import org.kitteh.irc.client.library.event.channel.ChannelMessageEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests streamed and buffered batches against the fake server.
+ */
+public class BatchStreamingTest {
+    /**
+     * Streams chathistory batches and records when messages arrive.
+     */
+    public static class Recorder {
+        private final CountDownLatch latch = new CountDownLatch(3);
+        private final List<String> seen = new CopyOnWriteArrayList<>();
+        private final List<String> ended = new CopyOnWriteArrayList<>();
+
+        /**
+         * Streams chathistory.
+         *
+         * @param event event
+         */
+        @Handler
+        public void start(ClientBatchStartEvent event) {
+            if ("chathistory".equals(event.getReferenceTag().getType())) {
+                event.setStreaming(true);
+            }
+        }
+
+        /**
+         * Records a batch ending.
+         *
+         * @param event event
+         */
+        @Handler
+        public void end(ClientBatchEndEvent event) {
+            this.ended.add(event.getReferenceTag().getReferenceTag());
+            this.seen.add("end " + event.getReferenceTag().getReferenceTag());
+        }
+
+        /**
+         * Records a message.
+         *
+         * @param event event
+         */
+        @Handler
+        public void message(ChannelMessageEvent event) {
+            this.seen.add(event.getMessage());
+            this.latch.countDown();
+        }
+    }
+
+    /**
+     * Tests that a streamed batch delivers messages before it ends, and a
+     * buffered batch after.
+     *
+     * @throws Exception if interrupted or timed out
+     */
+    @Test
+    public void testStreaming() throws Exception {
+        try (FakeServer server = new FakeServer("lemon")) {
+            Client client = server.configure(Client.builder().nick("Kitteh")).build();
+            Recorder recorder = new Recorder();
+            client.getEventManager().registerEventListener(recorder);
+            client.addChannel("#kitteh");
+            client.connect();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!client.getChannel("#kitteh").map(Channel::hasCompleteUserData).orElse(false)) {
+                Assert.assertTrue("Timed out joining", System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+
+            server.broadcast(Arrays.asList(
+                    ':' + FakeServer.NAME + " BATCH +meow chathistory #kitteh",
+                    "@batch=meow :lemon!lemon@fake.test PRIVMSG #kitteh :one",
+                    "@batch=meow :lemon!lemon@fake.test PRIVMSG #kitteh :two",
+                    ':' + FakeServer.NAME + " BATCH -meow",
+                    ':' + FakeServer.NAME + " BATCH +purr other",
+                    "@batch=purr :lemon!lemon@fake.test PRIVMSG #kitteh :three",
+                    ':' + FakeServer.NAME + " BATCH -purr"));
+            Assert.assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(Arrays.asList("one", "two", "end meow", "end purr", "three"), recorder.seen);
+            client.shutdown();
+        }
+    }
+}
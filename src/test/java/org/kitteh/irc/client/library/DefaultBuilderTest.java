@@ -1,5 +1,6 @@
 package org.kitteh.irc.client.library;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -17,4 +18,24 @@ public final class DefaultBuilderTest {
             throw new AssertionError("Cannot into reflection", e);
         }
     }
+
+    /**
+     * Tests that batch and traffic listeners reach the built client.
+     */
+    @Test
+    public void batchListeners() {
+        Client.WithManagement client = (Client.WithManagement) Client.builder()
+                .listeners().inputBatch(lines -> {
+                }).traffic(lines -> {
+                }).capacity(100).then()
+                .build();
+        try {
+            Assert.assertTrue(client.getInputListener().hasConsumer());
+            Assert.assertFalse(client.getOutputListener().hasConsumer());
+            Assert.assertTrue(client.getTrafficListener().hasConsumer());
+            Assert.assertEquals(100, client.getTrafficListener().getCapacity());
+        } finally {
+            client.shutdown();
+        }
+    }
 }
@@ -23,6 +23,7 @@ import org.kitteh.irc.client.library.feature.ISupportManager;
 import org.kitteh.irc.client.library.feature.MessageTagManager;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageMap;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
 import org.kitteh.irc.client.library.feature.network.NetworkHandler;
 import org.kitteh.irc.client.library.feature.network.ProxyType;
 import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
@@ -32,6 +33,7 @@ import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.HostWithPort;
 import org.kitteh.irc.client.library.util.Listener;
 import org.kitteh.irc.client.library.util.Pair;
+import org.kitteh.irc.client.library.util.TrafficLine;
 
 import javax.net.ssl.TrustManagerFactory;
 import java.net.InetAddress;
@@ -53,17 +55,24 @@ public class FakeClient implements Client.WithManagement {
     private final Listener<Exception> listenerException = new Listener<>(this, null);
     private final Listener<String> listenerInput = new Listener<>(this, null);
     private final Listener<String> listenerOutput = new Listener<>(this, null);
+    private final Listener<TrafficLine> listenerTraffic = new Listener<>(this, null);
     private Cutter messageCutter = new Cutter.DefaultWordCutter();
     private final DefaultMessageTagManager messageTagManager = new DefaultMessageTagManager(this);
     private final DefaultServerInfo serverInfo = new DefaultServerInfo(this);
     private DefaultMessageMap defaultMessageMap = new SimpleDefaultMessageMap(null);
     private boolean secure = true;
+    private final ClientMetrics metrics = new ClientMetrics(() -> 0, () -> 0);
 
     @Override
     public void processLine(@NonNull String line) {
 
     }
 
+    @Override
+    public void processTask(@NonNull Runnable task) {
+
+    }
+
     @Override
     public void sendNickChange(@NonNull String newNick) {
 
@@ -197,6 +206,36 @@ public class FakeClient implements Client.WithManagement {
 
     }
 
+    @Override
+    public @NonNull Listener<TrafficLine> getTrafficListener() {
+        return this.listenerTraffic;
+    }
+
+    @Override
+    public @NonNull ClientMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public void setEventRecycling(boolean recycling) {
+
+    }
+
+    @Override
+    public boolean isRetainingWhoReplies() {
+        return true;
+    }
+
+    @Override
+    public void setRetainWhoReplies(boolean retain) {
+
+    }
+
+    @Override
+    public void setTrafficListener(@Nullable Consumer<List<TrafficLine>> listener) {
+
+    }
+
     @Override
     public @NonNull String getRequestedNick() {
         return "";
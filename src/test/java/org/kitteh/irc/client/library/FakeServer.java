@@ -0,0 +1,341 @@
+package org.kitteh.irc.client.library;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.kitteh.irc.client.library.feature.sending.SingleDelaySender;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded stand-in for an IRC server, bound to the loopback interface.
+ * Scripts registration, CAP negotiation, ISUPPORT, and NAMES/WHO bursts on
+ * JOIN, and can then push arbitrary lines at every registered connection.
+ */
+public class FakeServer implements AutoCloseable {
+    /**
+     * Server name used as the source of numerics.
+     */
+    public static final String NAME = "irc.fake.test";
+    /**
+     * Capabilities offered during CAP negotiation.
+     */
+    public static final String CAPABILITIES = "multi-prefix away-notify account-notify batch extended-join server-time message-tags";
+    /**
+     * ISUPPORT parameters sent after registration.
+     */
+    public static final String ISUPPORT = "PREFIX=(ov)@+ CHANTYPES=# CHANMODES=b,k,l,imnpst MODES=4 NETWORK=Fake CASEMAPPING=rfc1459 NICKLEN=30";
+
+    /**
+     * A client connection.
+     */
+    public final class Session extends SimpleChannelInboundHandler<String> {
+        private @Nullable Channel channel;
+        private @Nullable String nick;
+        private boolean user;
+        private boolean capNegotiating;
+        private volatile boolean registered;
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void channelActive(@NonNull ChannelHandlerContext ctx) {
+            this.channel = ctx.channel();
+            FakeServer.this.sessions.add(this);
+        }
+
+        @Override
+        public void channelInactive(@NonNull ChannelHandlerContext ctx) {
+            FakeServer.this.sessions.remove(this);
+        }
+
+        @Override
+        protected void channelRead0(@NonNull ChannelHandlerContext ctx, @NonNull String line) {
+            String[] split = line.split(" ", 3);
+            String command = split[0].toUpperCase();
+            switch (command) {
+                case "CAP":
+                    this.cap(split);
+                    break;
+                case "NICK":
+                    this.nick = split[1];
+                    this.tryRegister();
+                    break;
+                case "USER":
+                    this.user = true;
+                    this.tryRegister();
+                    break;
+                case "PING":
+                    this.send(':' + NAME + " PONG " + NAME + ' ' + ((split.length > 1) ? split[1] : NAME));
+                    break;
+                case "JOIN":
+                    for (String channelName : split[1].split(",")) {
+                        this.join(channelName);
+                    }
+                    break;
+                case "PART":
+                    this.channels.remove(split[1]);
+                    this.send(this.prefix() + " PART " + split[1]);
+                    break;
+                case "MODE":
+                    if ((split.length == 2) && this.channels.contains(split[1])) {
+                        this.send(':' + NAME + " 324 " + this.nick + ' ' + split[1] + " +nt");
+                    }
+                    break;
+                case "WHO":
+                    this.who(split[1]);
+                    break;
+                case "QUIT":
+                    ctx.close();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void cap(@NonNull String[] split) {
+            switch (split[1].toUpperCase()) {
+                case "LS":
+                    this.capNegotiating = true;
+                    this.send(':' + NAME + " CAP * LS :" + CAPABILITIES);
+                    break;
+                case "REQ":
+                    this.send(':' + NAME + " CAP * ACK " + split[2]);
+                    break;
+                case "END":
+                    this.capNegotiating = false;
+                    this.tryRegister();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void tryRegister() {
+            if (this.registered || this.capNegotiating || (this.nick == null) || !this.user) {
+                return;
+            }
+            this.registered = true;
+            this.write(':' + NAME + " 001 " + this.nick + " :Welcome to the Fake network " + this.nick);
+            this.write(':' + NAME + " 002 " + this.nick + " :Your host is " + NAME);
+            this.write(':' + NAME + " 003 " + this.nick + " :This server was created today");
+            this.write(':' + NAME + " 004 " + this.nick + ' ' + NAME + " fake-1.0 iow bklmnopstv");
+            this.write(':' + NAME + " 005 " + this.nick + ' ' + ISUPPORT + " :are supported by this server");
+            this.write(':' + NAME + " 422 " + this.nick + " :MOTD File is missing");
+            this.flush();
+        }
+
+        private void join(@NonNull String channelName) {
+            this.channels.add(channelName);
+            this.write(this.prefix() + " JOIN " + channelName);
+            StringBuilder names = new StringBuilder();
+            names.append('@').append(this.nick);
+            for (String member : FakeServer.this.members) {
+                if (names.length() + member.length() > 400) {
+                    this.write(':' + NAME + " 353 " + this.nick + " = " + channelName + " :" + names);
+                    names.setLength(0);
+                } else {
+                    names.append(' ');
+                }
+                names.append(member);
+            }
+            this.write(':' + NAME + " 353 " + this.nick + " = " + channelName + " :" + names);
+            this.write(':' + NAME + " 366 " + this.nick + ' ' + channelName + " :End of /NAMES list.");
+            this.flush();
+        }
+
+        private void who(@NonNull String target) {
+            String channelName = target.split(" ", 2)[0];
+            if (this.channels.contains(channelName)) {
+                this.write(':' + NAME + " 352 " + this.nick + ' ' + channelName + ' ' + this.nick.toLowerCase() + " fake.test " + NAME + ' ' + this.nick + " H@ :0 " + this.nick);
+                for (String member : FakeServer.this.members) {
+                    String nick = FakeServer.stripPrefix(member);
+                    this.write(':' + NAME + " 352 " + this.nick + ' ' + channelName + ' ' + nick.toLowerCase() + " fake.test " + NAME + ' ' + nick + " H" + member.substring(0, member.length() - nick.length()) + " :0 " + nick);
+                }
+            }
+            this.write(':' + NAME + " 315 " + this.nick + ' ' + channelName + " :End of /WHO list.");
+            this.flush();
+        }
+
+        private @NonNull String prefix() {
+            return ':' + this.nick + '!' + this.nick.toLowerCase() + "@fake.test";
+        }
+
+        /**
+         * Gets the nickname registered by this connection.
+         *
+         * @return nick or null if not yet sent
+         */
+        public @Nullable String getNick() {
+            return this.nick;
+        }
+
+        /**
+         * Gets if this connection has completed registration.
+         *
+         * @return true if registered
+         */
+        public boolean isRegistered() {
+            return this.registered;
+        }
+
+        /**
+         * Writes a line without flushing.
+         *
+         * @param line line to write, without line ending
+         */
+        public void write(@NonNull String line) {
+            if (this.channel != null) {
+                this.channel.write(line + "\r\n");
+            }
+        }
+
+        /**
+         * Flushes written lines.
+         */
+        public void flush() {
+            if (this.channel != null) {
+                this.channel.flush();
+            }
+        }
+
+        /**
+         * Writes and flushes a line.
+         *
+         * @param line line to send, without line ending
+         */
+        public void send(@NonNull String line) {
+            this.write(line);
+            this.flush();
+        }
+    }
+
+    private final EventLoopGroup group = new NioEventLoopGroup(1);
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final List<String> members;
+    private final Channel serverChannel;
+
+    /**
+     * Starts a server on an ephemeral loopback port.
+     *
+     * @param members other users present in every channel joined, with
+     * optional @ or + prefix
+     * @throws InterruptedException if interrupted while binding
+     */
+    public FakeServer(@NonNull Collection<String> members) throws InterruptedException {
+        this.members = new ArrayList<>(members);
+        this.serverChannel = new ServerBootstrap()
+                .group(this.group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(@NonNull SocketChannel channel) {
+                        channel.pipeline().addLast(
+                                new LineBasedFrameDecoder(8192),
+                                new StringDecoder(StandardCharsets.UTF_8),
+                                new StringEncoder(StandardCharsets.UTF_8),
+                                new Session());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port.
+     *
+     * @param members other users present in every channel joined, with
+     * optional @ or + prefix
+     * @throws InterruptedException if interrupted while binding
+     */
+    public FakeServer(@NonNull String... members) throws InterruptedException {
+        this(Arrays.asList(members));
+    }
+
+    private static @NonNull String stripPrefix(@NonNull String member) {
+        int start = 0;
+        while ((start < member.length()) && ((member.charAt(start) == '@') || (member.charAt(start) == '+'))) {
+            start++;
+        }
+        return member.substring(start);
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return ((InetSocketAddress) this.serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * Gets the currently connected sessions.
+     *
+     * @return sessions
+     */
+    public @NonNull Set<Session> getSessions() {
+        return this.sessions;
+    }
+
+    /**
+     * Sends a line to every registered session.
+     *
+     * @param line line to send, without line ending
+     */
+    public void broadcast(@NonNull String line) {
+        for (Session session : this.sessions) {
+            if (session.isRegistered()) {
+                session.send(line);
+            }
+        }
+    }
+
+    /**
+     * Sends lines to every registered session, flushing once per session.
+     *
+     * @param lines lines to send, without line endings
+     */
+    public void broadcast(@NonNull Collection<String> lines) {
+        for (Session session : this.sessions) {
+            if (session.isRegistered()) {
+                lines.forEach(session::write);
+                session.flush();
+            }
+        }
+    }
+
+    /**
+     * Configures a client builder to connect to this server without TLS or
+     * message sending delay.
+     *
+     * @param builder builder to configure
+     * @return the builder
+     */
+    public Client.@NonNull Builder configure(Client.@NonNull Builder builder) {
+        return builder.server().host("127.0.0.1").port(this.getPort(), Client.Builder.Server.SecurityType.INSECURE).then()
+                .management().messageSendingQueueSupplier(SingleDelaySender.getSupplier(0)).then();
+    }
+
+    @Override
+    public void close() {
+        this.serverChannel.close().syncUninterruptibly();
+        this.group.shutdownGracefully().syncUninterruptibly();
+    }
+}
@@ -0,0 +1,455 @@
+package org.kitteh.irc.client.library;
+
+import net.engio.mbassy.listener.Handler;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.event.channel.ChannelJoinEvent;
+import org.kitteh.irc.client.library.event.channel.ChannelMessageEvent;
+import org.kitteh.irc.client.library.event.channel.ChannelModeEvent;
+import org.kitteh.irc.client.library.event.channel.ChannelPartEvent;
+import org.kitteh.irc.client.library.exception.KittehNagException;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connects a number of real clients to a {@link FakeServer}, waits for them
+ * to register and sync a channel, then floods PRIVMSG, JOIN, PART and MODE
+ * traffic at all of them and measures how the clients keep up.
+ * <p>
+ * Latency is measured from the server writing a PRIVMSG to the socket to a
+ * client's handler receiving the corresponding event.
+ */
+public class LoadHarness {
+    /**
+     * Results of a run.
+     */
+    public static final class Result {
+        private final int clients;
+        private final long events;
+        private final long expectedEvents;
+        private final long exceptions;
+        private final Duration elapsed;
+        private final long[] latencies;
+        private final long gcCount;
+        private final long gcTime;
+        private final int peakThreads;
+
+        private Result(int clients, long events, long expectedEvents, long exceptions, @NonNull Duration elapsed, long @NonNull [] latencies, long gcCount, long gcTime, int peakThreads) {
+            this.clients = clients;
+            this.events = events;
+            this.expectedEvents = expectedEvents;
+            this.exceptions = exceptions;
+            this.elapsed = elapsed;
+            this.latencies = latencies;
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+            this.peakThreads = peakThreads;
+        }
+
+        /**
+         * Gets the number of clients connected.
+         *
+         * @return client count
+         */
+        public int getClients() {
+            return this.clients;
+        }
+
+        /**
+         * Gets the number of flood events handled across all clients.
+         *
+         * @return events handled
+         */
+        public long getEvents() {
+            return this.events;
+        }
+
+        /**
+         * Gets the number of flood events which should have been handled
+         * across all clients.
+         *
+         * @return events expected
+         */
+        public long getExpectedEvents() {
+            return this.expectedEvents;
+        }
+
+        /**
+         * Gets the number of exceptions reported by the clients.
+         *
+         * @return exception count
+         */
+        public long getExceptions() {
+            return this.exceptions;
+        }
+
+        /**
+         * Gets the time from the start of the flood until the last event
+         * was handled, or the timeout if not all events arrived.
+         *
+         * @return elapsed time
+         */
+        public @NonNull Duration getElapsed() {
+            return this.elapsed;
+        }
+
+        /**
+         * Gets handled events per second across all clients.
+         *
+         * @return throughput
+         */
+        public double getEventsPerSecond() {
+            return this.events / Math.max(this.elapsed.toNanos() / 1_000_000_000D, 1e-9);
+        }
+
+        /**
+         * Gets a latency percentile.
+         *
+         * @param percentile percentile, between 0 and 100
+         * @return latency, or zero if no messages arrived
+         */
+        public @NonNull Duration getLatency(double percentile) {
+            if (this.latencies.length == 0) {
+                return Duration.ZERO;
+            }
+            int index = (int) Math.ceil((percentile / 100D) * this.latencies.length) - 1;
+            return Duration.ofNanos(this.latencies[Math.min(Math.max(index, 0), this.latencies.length - 1)]);
+        }
+
+        /**
+         * Gets the number of garbage collections during the flood.
+         *
+         * @return collections
+         */
+        public long getGcCount() {
+            return this.gcCount;
+        }
+
+        /**
+         * Gets the time spent in garbage collection during the flood.
+         *
+         * @return milliseconds collecting
+         */
+        public long getGcTime() {
+            return this.gcTime;
+        }
+
+        /**
+         * Gets the peak live thread count during the flood.
+         *
+         * @return threads
+         */
+        public int getPeakThreads() {
+            return this.peakThreads;
+        }
+
+        @Override
+        public @NonNull String toString() {
+            return new ToStringer(this)
+                    .add("clients", this.clients)
+                    .add("events", this.events)
+                    .add("expectedEvents", this.expectedEvents)
+                    .add("exceptions", this.exceptions)
+                    .add("elapsed", this.elapsed)
+                    .add("eventsPerSecond", (long) this.getEventsPerSecond())
+                    .add("latencyP50", this.getLatency(50))
+                    .add("latencyP99", this.getLatency(99))
+                    .add("latencyMax", this.getLatency(100))
+                    .add("gcCount", this.gcCount)
+                    .add("gcTime", this.gcTime)
+                    .add("peakThreads", this.peakThreads)
+                    .toString();
+        }
+    }
+
+    /**
+     * Per-client listener counting flood events.
+     */
+    public static final class Counter {
+        private final AtomicLong events = new AtomicLong();
+        private final long[] latencies;
+        private int latencyCount;
+
+        private Counter(int messages) {
+            this.latencies = new long[messages];
+        }
+
+        /**
+         * Records a message and its latency.
+         *
+         * @param event event
+         */
+        @Handler
+        public void message(ChannelMessageEvent event) {
+            long now = System.nanoTime();
+            String message = event.getMessage();
+            if (message.startsWith(LoadHarness.MESSAGE_PREFIX)) {
+                synchronized (this.latencies) {
+                    if (this.latencyCount < this.latencies.length) {
+                        this.latencies[this.latencyCount++] = now - Long.parseLong(message.substring(LoadHarness.MESSAGE_PREFIX.length()));
+                    }
+                }
+                this.events.incrementAndGet();
+            }
+        }
+
+        /**
+         * Records a flood user joining.
+         *
+         * @param event event
+         */
+        @Handler
+        public void join(ChannelJoinEvent event) {
+            if (event.getUser().getNick().startsWith(LoadHarness.FLOOD_NICK)) {
+                this.events.incrementAndGet();
+            }
+        }
+
+        /**
+         * Records a flood user parting.
+         *
+         * @param event event
+         */
+        @Handler
+        public void part(ChannelPartEvent event) {
+            if (event.getUser().getNick().startsWith(LoadHarness.FLOOD_NICK)) {
+                this.events.incrementAndGet();
+            }
+        }
+
+        /**
+         * Records a mode change.
+         *
+         * @param event event
+         */
+        @Handler
+        public void mode(ChannelModeEvent event) {
+            if (event.getActor().getName().startsWith(LoadHarness.OPERATOR + '!')) {
+                this.events.incrementAndGet();
+            }
+        }
+    }
+
+    private static final String CHANNEL = "#load";
+    private static final String FLOOD_NICK = "Flood";
+    private static final String MESSAGE_PREFIX = "load ";
+    private static final String OPERATOR = "Operator";
+    private static final int BATCH = 64;
+
+    private int clients = 4;
+    private int members = 500;
+    private int privmsgs = 10000;
+    private int joinParts = 500;
+    private int modes = 500;
+    private Duration timeout = Duration.ofMinutes(1);
+
+    /**
+     * Sets the number of clients to connect.
+     *
+     * @param clients client count
+     * @return this harness
+     */
+    public @NonNull LoadHarness clients(int clients) {
+        this.clients = clients;
+        return this;
+    }
+
+    /**
+     * Sets the number of users in the channel's NAMES and WHO bursts.
+     *
+     * @param members member count
+     * @return this harness
+     */
+    public @NonNull LoadHarness members(int members) {
+        this.members = members;
+        return this;
+    }
+
+    /**
+     * Sets the number of channel messages to flood.
+     *
+     * @param privmsgs message count
+     * @return this harness
+     */
+    public @NonNull LoadHarness privmsgs(int privmsgs) {
+        this.privmsgs = privmsgs;
+        return this;
+    }
+
+    /**
+     * Sets the number of users to join and then part the channel.
+     *
+     * @param joinParts join/part pairs
+     * @return this harness
+     */
+    public @NonNull LoadHarness joinParts(int joinParts) {
+        this.joinParts = joinParts;
+        return this;
+    }
+
+    /**
+     * Sets the number of channel mode changes to flood.
+     *
+     * @param modes mode change count
+     * @return this harness
+     */
+    public @NonNull LoadHarness modes(int modes) {
+        this.modes = modes;
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for setup and for the flood to be handled.
+     *
+     * @param timeout timeout for each phase
+     * @return this harness
+     */
+    public @NonNull LoadHarness timeout(@NonNull Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @return results
+     * @throws InterruptedException if interrupted
+     * @throws IllegalStateException if the clients fail to sync the channel
+     * within the timeout
+     */
+    public @NonNull Result run() throws InterruptedException {
+        List<String> memberList = new ArrayList<>(this.members + 1);
+        memberList.add('@' + OPERATOR);
+        for (int i = 0; i < this.members; i++) {
+            memberList.add(((i % 10 == 0) ? "+" : "") + "Member" + i);
+        }
+        List<Client> clientList = new ArrayList<>(this.clients);
+        List<Counter> counters = new ArrayList<>(this.clients);
+        AtomicLong exceptions = new AtomicLong();
+        try (FakeServer server = new FakeServer(memberList)) {
+            for (int i = 0; i < this.clients; i++) {
+                Client client = server.configure(Client.builder().nick("Load" + i))
+                        .listeners().exception(exception -> {
+                            if (!(exception instanceof KittehNagException)) {
+                                exceptions.incrementAndGet();
+                            }
+                        }).then()
+                        .build();
+                Counter counter = new Counter(this.privmsgs);
+                client.getEventManager().registerEventListener(counter);
+                client.addChannel(CHANNEL);
+                client.connect();
+                clientList.add(client);
+                counters.add(counter);
+            }
+            long deadline = System.nanoTime() + this.timeout.toNanos();
+            for (Client client : clientList) {
+                while (!client.getChannel(CHANNEL).map(Channel::hasCompleteUserData).orElse(false)) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("Timed out waiting for " + client.getNick() + " to sync " + CHANNEL);
+                    }
+                    Thread.sleep(10);
+                }
+            }
+
+            long expectedPerClient = this.privmsgs + (2L * this.joinParts) + this.modes;
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long gcCountStart = this.getGcCount();
+            long gcTimeStart = this.getGcTime();
+            long start = System.nanoTime();
+
+            this.flood(server);
+
+            deadline = System.nanoTime() + this.timeout.toNanos();
+            long end;
+            while (true) {
+                end = System.nanoTime();
+                if ((this.sum(counters) >= (expectedPerClient * this.clients)) || (end > deadline)) {
+                    break;
+                }
+                Thread.sleep(1);
+            }
+
+            long[] latencies = counters.stream().flatMapToLong(counter -> {
+                synchronized (counter.latencies) {
+                    return Arrays.stream(Arrays.copyOf(counter.latencies, counter.latencyCount));
+                }
+            }).sorted().toArray();
+            return new Result(this.clients, this.sum(counters), expectedPerClient * this.clients, exceptions.get(),
+                    Duration.ofNanos(end - start), latencies,
+                    this.getGcCount() - gcCountStart, this.getGcTime() - gcTimeStart, threads.getPeakThreadCount());
+        } finally {
+            clientList.forEach(Client::shutdown);
+        }
+    }
+
+    private void flood(@NonNull FakeServer server) {
+        List<String> batch = new ArrayList<>(BATCH);
+        int privmsg = 0;
+        int joinPart = 0;
+        int mode = 0;
+        while ((privmsg < this.privmsgs) || (joinPart < this.joinParts) || (mode < this.modes)) {
+            if (privmsg < this.privmsgs) {
+                int member = privmsg % Math.max(this.members, 1);
+                batch.add(":Member" + member + "!member@fake.test PRIVMSG " + CHANNEL + " :" + MESSAGE_PREFIX + System.nanoTime());
+                privmsg++;
+            }
+            if (joinPart < this.joinParts) {
+                String nick = FLOOD_NICK + joinPart;
+                batch.add(':' + nick + "!flood@fake.test JOIN " + CHANNEL);
+                batch.add(':' + nick + "!flood@fake.test PART " + CHANNEL + " :bye");
+                joinPart++;
+            }
+            if (mode < this.modes) {
+                batch.add(':' + OPERATOR + "!op@fake.test MODE " + CHANNEL + ' ' + (((mode & 1) == 0) ? "+m" : "-m"));
+                mode++;
+            }
+            if (batch.size() >= BATCH) {
+                server.broadcast(batch);
+                batch.clear();
+            }
+        }
+        server.broadcast(batch);
+    }
+
+    private long sum(@NonNull List<Counter> counters) {
+        return counters.stream().mapToLong(counter -> counter.events.get()).sum();
+    }
+
+    private long getGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+    }
+
+    private long getGcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+    }
+
+    /**
+     * Runs a load test from the command line and prints the results.
+     *
+     * @param args clients, privmsgs and members, all optional
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        LoadHarness harness = new LoadHarness();
+        if (args.length > 0) {
+            harness.clients(Integer.parseInt(args[0]));
+        }
+        if (args.length > 1) {
+            harness.privmsgs(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            harness.members(Integer.parseInt(args[2]));
+        }
+        System.out.println(harness.run());
+    }
+}
@@ -0,0 +1,34 @@
+package org.kitteh.irc.client.library;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+
+/**
+ * Runs a small load against the fake server.
+ */
+public class LoadHarnessTest {
+    /**
+     * Tests that every flooded event reaches every client.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testSmallLoad() throws InterruptedException {
+        LoadHarness.Result result = new LoadHarness()
+                .clients(3)
+                .members(50)
+                .privmsgs(300)
+                .joinParts(20)
+                .modes(20)
+                .timeout(Duration.ofSeconds(30))
+                .run();
+        Assert.assertEquals(result.toString(), result.getExpectedEvents(), result.getEvents());
+        Assert.assertEquals(result.toString(), 0, result.getExceptions());
+        Assert.assertEquals(3 * (300 + 40 + 20), result.getExpectedEvents());
+        Assert.assertTrue(result.getLatency(50).compareTo(Duration.ZERO) > 0);
+        Assert.assertTrue(result.getLatency(100).compareTo(result.getLatency(50)) >= 0);
+        Assert.assertTrue(result.getPeakThreads() > 0);
+    }
+}
@@ -0,0 +1,36 @@
+package org.kitteh.irc.client.library.defaults;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests command classification.
+ */
+public class CommandTableTest {
+    /**
+     * Tests numeric detection.
+     */
+    @Test
+    public void testNumeric() {
+        String line = ":irc.kitteh.org 001 kitteh :Welcome";
+        Assert.assertEquals(1, CommandTable.getNumeric(line, 16, 19));
+        Assert.assertSame(CommandTable.getNumericCommand(line, 16, 1), CommandTable.getNumericCommand(":irc 001 lemon", 5, 1));
+        Assert.assertEquals("001", CommandTable.getNumericCommand(line, 16, 1));
+        Assert.assertEquals(-1, CommandTable.getNumeric("PRIVMSG", 0, 7));
+        Assert.assertEquals(-1, CommandTable.getNumeric("1234", 0, 4));
+        Assert.assertEquals(-1, CommandTable.getNumeric("1a3", 0, 3));
+        Assert.assertEquals(999, CommandTable.getNumeric("999", 0, 3));
+    }
+
+    /**
+     * Tests known command lookup.
+     */
+    @Test
+    public void testKnown() {
+        String line = ":kitteh!kitteh@kitteh.org privmsg #kitteh :meow";
+        Assert.assertSame("PRIVMSG", CommandTable.getKnownCommand(line, 26, 33));
+        Assert.assertSame("JOIN", CommandTable.getKnownCommand(" JOIN", 1, 5));
+        Assert.assertNull(CommandTable.getKnownCommand("MEOW", 0, 4));
+        Assert.assertNull(CommandTable.getKnownCommand("SUPERCALIFRAGILISTICEXPIALIDOCIOUS", 0, 34));
+    }
+}
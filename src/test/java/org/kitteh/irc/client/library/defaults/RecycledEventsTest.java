@@ -0,0 +1,77 @@
+package org.kitteh.irc.client.library.defaults;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.DefaultServerMessage;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.util.BatchReferenceTag;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests recycled raw server message events.
+ */
+public class RecycledEventsTest {
+    /**
+     * Tests that the command event is reused and that a retained event
+     * keeps its contents.
+     */
+    @Test
+    public void testCommandReuse() {
+        Client client = Mockito.mock(Client.class);
+        RecycledEvents recycled = new RecycledEvents(client);
+        Actor kitteh = this.actor(client, "kitteh");
+        Actor lemon = this.actor(client, "lemon");
+
+        ClientReceiveCommandEvent first = recycled.command(new DefaultServerMessage.StringCommand("PRIVMSG", ":kitteh PRIVMSG #kitteh :meow", Collections.emptyList()), kitteh, "PRIVMSG", Arrays.asList("#kitteh", "meow"));
+        ClientReceiveCommandEvent retained = first.retain();
+        Assert.assertNotSame(first, retained);
+
+        ClientReceiveCommandEvent second = recycled.command(new DefaultServerMessage.StringCommand("JOIN", ":lemon JOIN #lemon", Collections.emptyList()), lemon, "JOIN", Collections.singletonList("#lemon"));
+        Assert.assertSame(first, second);
+        Assert.assertEquals("JOIN", second.getCommand());
+        Assert.assertSame(lemon, second.getActor());
+        Assert.assertEquals(Collections.singletonList("#lemon"), second.getParameters());
+        Assert.assertEquals(":lemon JOIN #lemon", second.getRawMessage());
+
+        Assert.assertEquals("PRIVMSG", retained.getCommand());
+        Assert.assertSame(kitteh, retained.getActor());
+        Assert.assertEquals(Arrays.asList("#kitteh", "meow"), retained.getParameters());
+        Assert.assertSame(retained, retained.retain());
+    }
+
+    /**
+     * Tests the numeric event and retention when held for a batch.
+     */
+    @Test
+    public void testNumericBatch() {
+        Client client = Mockito.mock(Client.class);
+        RecycledEvents recycled = new RecycledEvents(client);
+        Actor server = this.actor(client, "irc.kitteh.org");
+
+        ClientReceiveNumericEvent event = recycled.numeric(new DefaultServerMessage.NumericCommand(1, ":irc.kitteh.org 001 kitteh", Collections.emptyList()), server, "001", 1, Collections.singletonList("kitteh"));
+        Assert.assertEquals(1, event.getNumeric());
+        BatchReferenceTag tag = new BatchReferenceTag("meow", "netsplit", new ArrayList<>());
+        tag.addEvent(event);
+
+        recycled.numeric(new DefaultServerMessage.NumericCommand(2, ":irc.kitteh.org 002 lemon", Collections.emptyList()), server, "002", 2, Collections.singletonList("lemon"));
+        Assert.assertEquals(2, event.getNumeric());
+        List<String> held = tag.getEvents().get(0).getParameters();
+        Assert.assertEquals(Collections.singletonList("kitteh"), held);
+        Assert.assertEquals(1, ((ClientReceiveNumericEvent) tag.getEvents().get(0)).getNumeric());
+    }
+
+    private Actor actor(Client client, String name) {
+        Actor actor = Mockito.mock(Actor.class);
+        Mockito.when(actor.getClient()).thenReturn(client);
+        Mockito.when(actor.getName()).thenReturn(name);
+        return actor;
+    }
+}
@@ -0,0 +1,96 @@
+package org.kitteh.irc.client.library.defaults.element.mode;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportChanModes;
+import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportPrefix;
+import org.kitteh.irc.client.library.defaults.feature.DefaultServerInfo;
+import org.kitteh.irc.client.library.element.mode.ChannelMode;
+import org.kitteh.irc.client.library.element.mode.ModeStatus;
+import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests parsing and querying mode status lists.
+ */
+public class ModeStatusListTest {
+    private Client client;
+
+    /**
+     * Sets up a client with CHANMODES and PREFIX.
+     */
+    @Before
+    public void before() {
+        this.client = Mockito.mock(Client.class);
+        DefaultServerInfo serverInfo = new DefaultServerInfo(this.client);
+        serverInfo.addISupportParameter(new DefaultISupportChanModes(this.client, DefaultISupportChanModes.NAME, "bq,k,l,imnt"));
+        serverInfo.addISupportParameter(new DefaultISupportPrefix(this.client, DefaultISupportPrefix.NAME, "(ov)@+"));
+        Mockito.when(this.client.getServerInfo()).thenReturn(serverInfo);
+    }
+
+    /**
+     * Tests parsing split parameters, including parameters taken only on
+     * setting.
+     */
+    @Test
+    public void testFromChannelParameters() {
+        DefaultModeStatusList<ChannelMode> list = DefaultModeStatusList.fromChannel(this.client, Arrays.asList("+on-l+lq", "kitteh", "5", "*!*@lemon"));
+        List<ModeStatus<ChannelMode>> all = list.getAll();
+        Assert.assertEquals(5, all.size());
+        Assert.assertEquals("kitteh", all.get(0).getParameter().get());
+        Assert.assertFalse(all.get(1).getParameter().isPresent());
+        Assert.assertEquals(ModeStatus.Action.REMOVE, all.get(2).getAction());
+        Assert.assertFalse(all.get(2).getParameter().isPresent());
+        Assert.assertEquals("5", all.get(3).getParameter().get());
+        Assert.assertEquals("*!*@lemon", all.get(4).getParameter().get());
+        Assert.assertEquals("+on-l+lq kitteh 5 *!*@lemon", list.getAsString());
+        Assert.assertEquals(list.getAsString(), DefaultModeStatusList.fromChannel(this.client, "+on-l+lq kitteh 5 *!*@lemon").getAsString());
+    }
+
+    /**
+     * Tests lookups by mode.
+     */
+    @Test
+    public void testGetByMode() {
+        DefaultModeStatusList<ChannelMode> list = DefaultModeStatusList.fromChannel(this.client, Arrays.asList("+bbo", "a!*@*", "b!*@*", "kitteh"));
+        ChannelMode ban = this.client.getServerInfo().getChannelMode('b').get();
+        Assert.assertTrue(list.containsMode('b'));
+        Assert.assertTrue(list.contains(ban));
+        Assert.assertFalse(list.containsMode('q'));
+        Assert.assertEquals(2, list.getByMode('b').size());
+        Assert.assertEquals(2, list.getByMode(ban).size());
+        Assert.assertEquals("kitteh", list.getByMode('o').get(0).getParameter().get());
+        Assert.assertTrue(list.getByMode('q').isEmpty());
+    }
+
+    /**
+     * Tests user mode parsing.
+     */
+    @Test
+    public void testFromUser() {
+        DefaultModeStatusList<UserMode> list = DefaultModeStatusList.fromUser(this.client, Arrays.asList("+i-w"));
+        Assert.assertEquals(2, list.getAll().size());
+        Assert.assertTrue(list.containsMode('w'));
+    }
+
+    /**
+     * Tests a missing mode parameter.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingParameter() {
+        DefaultModeStatusList.fromChannel(this.client, Arrays.asList("+o"));
+    }
+
+    /**
+     * Tests an unknown mode.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownMode() {
+        DefaultModeStatusList.fromChannel(this.client, Arrays.asList("+Z"));
+    }
+}
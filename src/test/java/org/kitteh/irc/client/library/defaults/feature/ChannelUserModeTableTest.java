@@ -0,0 +1,100 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.mode.DefaultChannelUserMode;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Tests the channel user mode bitmask table.
+ */
+public class ChannelUserModeTableTest {
+    private final Client client = Mockito.mock(Client.class);
+    private final ChannelUserMode owner = new DefaultChannelUserMode(this.client, 'q', '~');
+    private final ChannelUserMode op = new DefaultChannelUserMode(this.client, 'o', '@');
+    private final ChannelUserMode voice = new DefaultChannelUserMode(this.client, 'v', '+');
+    private final ChannelUserModeTable table = new ChannelUserModeTable(Arrays.asList(this.owner, this.op, this.voice));
+
+    /**
+     * Tests encoding and decoding in PREFIX order.
+     */
+    @Test
+    public void testRoundTrip() {
+        int mask = this.table.encode(new HashSet<>(Arrays.asList(this.voice, this.owner)));
+        Assert.assertEquals(0b101, mask);
+        SortedSet<ChannelUserMode> modes = this.table.decode(mask);
+        Assert.assertEquals(Arrays.asList(this.owner, this.voice), Arrays.asList(modes.toArray()));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(this.owner, this.voice)), modes);
+        Assert.assertTrue(modes.contains(this.voice));
+        Assert.assertFalse(modes.contains(this.op));
+        Assert.assertSame(this.owner, modes.first());
+        Assert.assertSame(this.voice, modes.last());
+        Assert.assertEquals(Collections.singleton(this.owner), modes.headSet(this.op));
+        Assert.assertEquals(Collections.singleton(this.voice), modes.tailSet(this.op));
+        Assert.assertSame(modes, this.table.decode(mask));
+        Assert.assertTrue(this.table.decode(0).isEmpty());
+    }
+
+    /**
+     * Tests that decoded sets cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiable() {
+        this.table.decode(0b010).add(this.voice);
+    }
+
+    /**
+     * Tests re-encoding a mask after PREFIX changes.
+     */
+    @Test
+    public void testTranslate() {
+        ChannelUserModeTable other = new ChannelUserModeTable(Arrays.asList(this.op, this.voice));
+        Assert.assertEquals(0b11, other.translate(this.table, 0b111));
+        Assert.assertEquals(0b110, this.table.translate(other, 0b11));
+    }
+
+    /**
+     * Tests that the tracker keeps memberships when told PREFIX changed,
+     * and that taking snapshots alone does not re-encode them.
+     */
+    @Test
+    public void testTrackerPrefixChange() {
+        Client.WithManagement client = Mockito.mock(Client.WithManagement.class);
+        ServerInfo.WithManagement serverInfo = Mockito.mock(ServerInfo.WithManagement.class);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(client.getMetrics()).thenReturn(new ClientMetrics(() -> 0, () -> -1));
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(serverInfo.getSnapshot()).thenReturn(this.snapshot(Arrays.asList(this.op, this.voice)));
+        DefaultActorTracker tracker = new DefaultActorTracker(client);
+        tracker.setQueryChannelInformation(false);
+        tracker.trackChannel("#kitteh");
+        tracker.trackChannelNick("#kitteh", "kitteh", new HashSet<>(Arrays.asList(this.op, this.voice)));
+
+        Mockito.when(serverInfo.getSnapshot()).thenReturn(this.snapshot(Arrays.asList(this.owner, this.op, this.voice)));
+        Channel before = tracker.getTrackedChannel("#kitteh").get();
+        Assert.assertEquals(Arrays.asList(this.op, this.voice), Arrays.asList(before.getUserModes("kitteh").get().toArray()));
+
+        tracker.trackPrefixChange();
+        Channel after = tracker.getTrackedChannel("#kitteh").get();
+        Assert.assertNotSame(before, after);
+        Assert.assertEquals(Arrays.asList(this.op, this.voice), Arrays.asList(after.getUserModes("kitteh").get().toArray()));
+        tracker.trackChannelNick("#kitteh", "lemon", Collections.singleton(this.owner));
+        Assert.assertEquals(Collections.singletonList(this.owner), Arrays.asList(tracker.getTrackedChannel("#kitteh").get().getUserModes("lemon").get().toArray()));
+    }
+
+    private ServerInfo.Snapshot snapshot(List<ChannelUserMode> modes) {
+        return new ServerInfo.Snapshot(0, CaseMapping.RFC1459, -1, Collections.emptyList(), Collections.singletonList('#'), modes, Collections.emptyList());
+    }
+}
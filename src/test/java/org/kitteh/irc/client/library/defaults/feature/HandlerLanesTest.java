@@ -0,0 +1,126 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.FakeClient;
+import org.kitteh.irc.client.library.defaults.element.DefaultServerMessage;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.helper.ActorEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.feature.Partitioned;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests running partitioned handlers on lanes.
+ */
+public class HandlerLanesTest {
+    /**
+     * Listener recording the order of channel events.
+     */
+    public static class Recorder {
+        private final CountDownLatch latch = new CountDownLatch(200);
+        private final Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        /**
+         * Records an event.
+         *
+         * @param event event
+         */
+        @Partitioned
+        @Handler
+        public void channel(ChannelEvent event) {
+            this.seen.computeIfAbsent(event.getChannel().getName(), name -> new CopyOnWriteArrayList<>()).add(event.hashCode());
+            this.threads.add(Thread.currentThread().getName());
+            this.latch.countDown();
+        }
+    }
+
+    /**
+     * Tests that partitioned handlers run off the calling thread and keep
+     * order within a channel.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testOrdering() throws InterruptedException {
+        FakeClient client = new FakeClient();
+        DefaultEventManager eventManager = new DefaultEventManager(client);
+        Recorder recorder = new Recorder();
+        eventManager.registerEventListener(recorder);
+
+        for (int i = 0; i < 100; i++) {
+            eventManager.callEvent(this.event(client, "#kitteh", i));
+            eventManager.callEvent(this.event(client, "#meow", i));
+        }
+        Assert.assertTrue(recorder.latch.await(5, TimeUnit.SECONDS));
+        for (List<Integer> order : recorder.seen.values()) {
+            Assert.assertEquals(100, order.size());
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(i, (int) order.get(i));
+            }
+        }
+        Assert.assertTrue(recorder.threads.stream().allMatch(thread -> thread.startsWith("KICL Handler Lane")));
+        eventManager.getHandlerLanes().shutdown();
+    }
+
+    /**
+     * Tests partition key selection.
+     */
+    @Test
+    public void testPartition() {
+        FakeClient client = new FakeClient();
+        Assert.assertEquals("#kitteh", HandlerLanes.getPartition(this.event(client, "#KITTEH", 0)));
+        Assert.assertEquals("", HandlerLanes.getPartition("meow"));
+
+        ActorEvent<?> actorEvent = Mockito.mock(ActorEvent.class);
+        User user = Mockito.mock(User.class);
+        Mockito.when(user.getName()).thenReturn("Kitteh!kitteh@kitteh.org");
+        Mockito.when(user.getClient()).thenReturn(client);
+        Mockito.doReturn(user).when(actorEvent).getActor();
+        Mockito.when(actorEvent.getClient()).thenReturn(client);
+        Assert.assertEquals("kitteh!kitteh@kitteh.org", HandlerLanes.getPartition(actorEvent));
+
+        ClientReceiveCommandEvent privmsg = new ClientReceiveCommandEvent(client, new DefaultServerMessage.StringCommand("PRIVMSG", "", Collections.emptyList()), user, "PRIVMSG", Arrays.asList("Kitteh", "#meow"));
+        Assert.assertEquals("kitteh!kitteh@kitteh.org", HandlerLanes.getPartition(privmsg));
+        privmsg = new ClientReceiveCommandEvent(client, new DefaultServerMessage.StringCommand("PRIVMSG", "", Collections.emptyList()), user, "PRIVMSG", Arrays.asList("#Meow", "hi"));
+        Assert.assertEquals("#meow", HandlerLanes.getPartition(privmsg));
+
+        ClientReceiveNumericEvent names = new ClientReceiveNumericEvent(client, new DefaultServerMessage.NumericCommand(353, "", Collections.emptyList()), user, "353", 353, Arrays.asList("Kitteh", "=", "#Meow", "Kitteh"));
+        Assert.assertEquals("#meow", HandlerLanes.getPartition(names));
+    }
+
+    private ChannelEvent event(FakeClient client, String channelName, int hash) {
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getName()).thenReturn(channelName);
+        return new ChannelEvent() {
+            @Override
+            public Channel getChannel() {
+                return channel;
+            }
+
+            @Override
+            public FakeClient getClient() {
+                return client;
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.FakeClient;
+import org.kitteh.irc.client.library.defaults.listener.AbstractDefaultListenerBase;
+import org.kitteh.irc.client.library.defaults.listener.DefaultQuitListener;
+import org.kitteh.irc.client.library.exception.KittehNagException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests timing and quarantining of event handlers.
+ */
+public class HandlerMonitorTest {
+    /**
+     * Listener with a slow handler.
+     */
+    public static class Slow {
+        private final CountDownLatch latch = new CountDownLatch(3);
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        /**
+         * Sleeps.
+         *
+         * @param event event
+         * @throws InterruptedException if interrupted
+         */
+        @Handler
+        public void slow(String event) throws InterruptedException {
+            Thread.sleep(30);
+            this.threads.add(Thread.currentThread().getName());
+            this.latch.countDown();
+        }
+    }
+
+    /**
+     * Tests that a consistently slow handler is nagged about, timed, and
+     * quarantined to the async lane.
+     *
+     * @throws Exception if the handler method cannot be found or the test is
+     * interrupted
+     */
+    @Test
+    public void testQuarantine() throws Exception {
+        FakeClient client = new FakeClient();
+        List<Exception> exceptions = new CopyOnWriteArrayList<>();
+        client.getExceptionListener().setConsumer(exceptions::add);
+        DefaultEventManager eventManager = new DefaultEventManager(client);
+        HandlerMonitor monitor = eventManager.getHandlerMonitor();
+        monitor.setEnabled(true);
+        monitor.setSlowThreshold(10);
+        monitor.setQuarantineAfter(2);
+        Slow slow = new Slow();
+        eventManager.registerEventListener(slow);
+
+        eventManager.callEvent("meow");
+        eventManager.callEvent("meow");
+        Assert.assertEquals(1, monitor.getQuarantinedHandlers().size());
+        Assert.assertEquals(Slow.class.getMethod("slow", String.class), monitor.getQuarantinedHandlers().iterator().next());
+
+        eventManager.callEvent("meow");
+        Assert.assertTrue(slow.latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Thread.currentThread().getName(), slow.threads.get(0));
+        Assert.assertTrue(slow.threads.get(2).startsWith("KICL Quarantined Handlers"));
+
+        Assert.assertEquals(2, monitor.getHandlerTimes().get(Slow.class.getMethod("slow", String.class)).getCount());
+        Thread.sleep(100);
+        Assert.assertEquals(2, exceptions.size());
+        Assert.assertTrue(exceptions.stream().allMatch(exception -> exception instanceof KittehNagException));
+
+        monitor.release(Slow.class.getMethod("slow", String.class));
+        Assert.assertTrue(monitor.getQuarantinedHandlers().isEmpty());
+        monitor.shutdown();
+    }
+
+    /**
+     * Tests that nothing is timed until enabled, and that the default
+     * listeners are never monitored.
+     *
+     * @throws Exception if the test is interrupted
+     */
+    @Test
+    public void testDisabledAndDefaults() throws Exception {
+        DefaultEventManager eventManager = new DefaultEventManager(new FakeClient());
+        HandlerMonitor monitor = eventManager.getHandlerMonitor();
+        Assert.assertFalse(monitor.isEnabled());
+        monitor.setSlowThreshold(10);
+        monitor.setQuarantineAfter(1);
+        Slow slow = new Slow();
+        eventManager.registerEventListener(slow);
+        eventManager.callEvent("meow");
+        eventManager.callEvent("meow");
+        Assert.assertTrue(monitor.getHandlerTimes().isEmpty());
+        Assert.assertTrue(monitor.getQuarantinedHandlers().isEmpty());
+
+        Assert.assertTrue(HandlerMonitor.isMonitorable(Slow.class));
+        Assert.assertFalse(HandlerMonitor.isMonitorable(DefaultQuitListener.class));
+        Assert.assertFalse(HandlerMonitor.isMonitorable(AbstractDefaultListenerBase.class));
+        monitor.shutdown();
+    }
+}
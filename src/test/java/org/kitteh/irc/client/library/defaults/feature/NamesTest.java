@@ -0,0 +1,84 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.mode.DefaultChannelUserMode;
+import org.kitteh.irc.client.library.defaults.listener.DefaultNamesListener;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.event.channel.ChannelNamesUpdatedEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.feature.ActorTracker;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Tests NAMES handling.
+ */
+public class NamesTest {
+    /**
+     * Tests that NAMES replies are collected and committed to the tracker
+     * once, with prefixes resolved, when the list ends.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNamesBatch() {
+        Client.WithManagement client = Mockito.mock(Client.WithManagement.class);
+        EventManager eventManager = Mockito.mock(EventManager.class);
+        ActorTracker tracker = Mockito.mock(ActorTracker.class);
+        ServerInfo.WithManagement serverInfo = Mockito.mock(ServerInfo.WithManagement.class);
+        ChannelUserMode op = new DefaultChannelUserMode(client, 'o', '@');
+        ChannelUserMode voice = new DefaultChannelUserMode(client, 'v', '+');
+        Mockito.when(client.getEventManager()).thenReturn(eventManager);
+        Mockito.when(client.getActorTracker()).thenReturn(tracker);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(serverInfo.isValidChannel("#kitteh")).thenReturn(true);
+        Mockito.when(serverInfo.getSnapshot()).thenReturn(new ServerInfo.Snapshot(0, CaseMapping.RFC1459, -1, Collections.emptyList(), Collections.singletonList('#'), Arrays.asList(op, voice), Collections.emptyList()));
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getClient()).thenReturn(client);
+        Mockito.when(tracker.getChannel("#kitteh")).thenReturn(Optional.of(channel));
+        DefaultNamesListener listener = new DefaultNamesListener(client);
+
+        listener.names(this.numeric(client, 353, "kitteh", "=", "#kitteh", "@kitteh +lemon"));
+        listener.names(this.numeric(client, 353, "kitteh", "=", "#kitteh", "@+cat dog"));
+        Mockito.verify(tracker, Mockito.never()).trackChannelNicks(Mockito.anyString(), Mockito.anyMap());
+        Mockito.verify(tracker, Mockito.never()).getChannel(Mockito.anyString());
+
+        listener.namesComplete(this.numeric(client, 366, "kitteh", "#kitteh", "End of /NAMES list."));
+        ArgumentCaptor<Map> names = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(tracker).trackChannelNicks(Mockito.eq("#kitteh"), names.capture());
+        Mockito.verify(tracker, Mockito.never()).trackChannelNick(Mockito.anyString(), Mockito.anyString(), Mockito.anySet());
+        Map<String, Set<ChannelUserMode>> nicks = names.getValue();
+        Assert.assertEquals(Arrays.asList("kitteh", "lemon", "cat", "dog"), Arrays.asList(nicks.keySet().toArray()));
+        Assert.assertEquals(Collections.singleton(op), nicks.get("kitteh"));
+        Assert.assertEquals(Collections.singleton(voice), nicks.get("lemon"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(op, voice)), nicks.get("cat"));
+        Assert.assertTrue(nicks.get("dog").isEmpty());
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(eventManager).callEvent(event.capture());
+        ChannelNamesUpdatedEvent updated = (ChannelNamesUpdatedEvent) event.getValue();
+        Assert.assertSame(channel, updated.getChannel());
+        Assert.assertEquals(3, updated.getSource().size());
+    }
+
+    private ClientReceiveNumericEvent numeric(Client client, int numeric, String... parameters) {
+        Actor server = Mockito.mock(Actor.class);
+        Mockito.when(server.getClient()).thenReturn(client);
+        return new ClientReceiveNumericEvent(client, Mockito.mock(ServerMessage.class), server, String.valueOf(numeric), numeric, Arrays.asList(parameters));
+    }
+}
@@ -0,0 +1,92 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.listener.DefaultQuitListener;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.batch.ClientBatchEndEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.user.NetsplitEvent;
+import org.kitteh.irc.client.library.event.user.UserQuitEvent;
+import org.kitteh.irc.client.library.feature.ActorTracker;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.MessageTagManager;
+import org.kitteh.irc.client.library.util.BatchReferenceTag;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests netsplit handling.
+ */
+public class NetsplitTest {
+    /**
+     * Tests recognising netsplit quit messages.
+     */
+    @Test
+    public void testNetsplitMessage() {
+        Assert.assertTrue(NetsplitEvent.isNetsplitMessage("hub.kitteh.org leaf.kitteh.org"));
+        Assert.assertTrue(NetsplitEvent.isNetsplitMessage("*.net *.split"));
+        Assert.assertFalse(NetsplitEvent.isNetsplitMessage("Quit: meow"));
+        Assert.assertFalse(NetsplitEvent.isNetsplitMessage("see you at kitteh.org"));
+        Assert.assertFalse(NetsplitEvent.isNetsplitMessage("kitteh.org "));
+        Assert.assertFalse(NetsplitEvent.isNetsplitMessage(""));
+    }
+
+    /**
+     * Tests that a netsplit batch removes all users at once and fires one
+     * event, and that the replayed quits are marked as netsplit.
+     */
+    @Test
+    public void testNetsplitBatch() {
+        Client.WithManagement client = Mockito.mock(Client.WithManagement.class);
+        EventManager eventManager = Mockito.mock(EventManager.class);
+        ActorTracker tracker = Mockito.mock(ActorTracker.class);
+        Mockito.when(client.getEventManager()).thenReturn(eventManager);
+        Mockito.when(client.getActorTracker()).thenReturn(tracker);
+        DefaultQuitListener listener = new DefaultQuitListener(client);
+
+        BatchReferenceTag tag = new BatchReferenceTag("meow", "netsplit", Arrays.asList("hub.kitteh.org", "leaf.kitteh.org"));
+        ClientReceiveCommandEvent kitteh = this.quit(client, "kitteh");
+        ClientReceiveCommandEvent lemon = this.quit(client, "lemon");
+        tag.addEvent(kitteh);
+        tag.addEvent(lemon);
+        listener.netsplit(new ClientBatchEndEvent(client, Mockito.mock(ServerMessage.class), tag));
+
+        Mockito.verify(tracker).trackUsersQuit(Arrays.asList("kitteh", "lemon"));
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(eventManager).callEvent(events.capture());
+        NetsplitEvent netsplit = (NetsplitEvent) events.getValue();
+        Assert.assertEquals(Arrays.asList("hub.kitteh.org", "leaf.kitteh.org"), netsplit.getServers());
+        Assert.assertEquals(2, netsplit.getUsers().size());
+
+        listener.quit(kitteh);
+        Mockito.verify(eventManager, Mockito.times(2)).callEvent(events.capture());
+        Assert.assertTrue(((UserQuitEvent) events.getValue()).isNetsplit());
+        Mockito.verify(tracker, Mockito.never()).trackUserQuit(Mockito.anyString());
+
+        // Once replayed, the same batch reference no longer marks quits
+        listener.quit(lemon);
+        ClientReceiveCommandEvent later = this.quit(client, "kitteh");
+        listener.quit(later);
+        Mockito.verify(eventManager, Mockito.times(4)).callEvent(events.capture());
+        Assert.assertFalse(((UserQuitEvent) events.getValue()).isNetsplit());
+        Mockito.verify(tracker).trackUserQuit("kitteh");
+    }
+
+    private ClientReceiveCommandEvent quit(Client client, String nick) {
+        User user = Mockito.mock(User.class);
+        Mockito.when(user.getClient()).thenReturn(client);
+        Mockito.when(user.getNick()).thenReturn(nick);
+        ServerMessage message = Mockito.mock(ServerMessage.class);
+        List<MessageTag> tags = Collections.singletonList(new MessageTagManager.DefaultMessageTag("batch", "meow"));
+        Mockito.when(message.getTags()).thenReturn(tags);
+        return new ClientReceiveCommandEvent(client, message, user, "QUIT", Collections.singletonList("Quit: meow"));
+    }
+}
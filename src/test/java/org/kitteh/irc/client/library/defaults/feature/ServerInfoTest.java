@@ -4,8 +4,11 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportChanModes;
+import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportChanTypes;
+import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportPrefix;
 import org.kitteh.irc.client.library.defaults.element.mode.DefaultChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
+import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.mockito.Mockito;
 
 import java.util.List;
@@ -38,4 +41,36 @@ public class ServerInfoTest {
         Assert.assertEquals(8, modesRedux.stream().filter(mode -> mode.getType() == ChannelMode.Type.D_PARAMETER_NEVER).count());
         Assert.assertEquals(ChannelMode.Type.C_PARAMETER_ON_SET, serverInfo.getChannelMode('d').get().getType());
     }
+
+    /**
+     * Tests that the snapshot is reused until the information changes.
+     */
+    @Test
+    public void testSnapshot() {
+        final Client client = Mockito.mock(Client.class);
+        final DefaultServerInfo serverInfo = new DefaultServerInfo(client);
+        ServerInfo.Snapshot snapshot = serverInfo.getSnapshot();
+        Assert.assertSame(snapshot, serverInfo.getSnapshot());
+        Assert.assertSame(snapshot.getChannelModes(), serverInfo.getChannelModes());
+        Assert.assertTrue(serverInfo.isValidChannel("&kitteh"));
+        Assert.assertEquals('o', serverInfo.getTargetedChannelInfo("@#kitteh").get().getChar());
+
+        serverInfo.addISupportParameter(new DefaultISupportChanTypes(client, DefaultISupportChanTypes.NAME, "#"));
+        serverInfo.addISupportParameter(new DefaultISupportPrefix(client, DefaultISupportPrefix.NAME, "(qov)~@+"));
+        ServerInfo.Snapshot updated = serverInfo.getSnapshot();
+        Assert.assertNotSame(snapshot, updated);
+        Assert.assertTrue(updated.getRevision() > snapshot.getRevision());
+        Assert.assertEquals('q', updated.getChannelUserModeByPrefix('~').get().getChar());
+        Assert.assertEquals('~', updated.getChannelUserMode('q').get().getNickPrefix());
+        Assert.assertFalse(updated.getChannelUserModeByPrefix('%').isPresent());
+        Assert.assertTrue(updated.isChannelPrefix('#'));
+        Assert.assertFalse(updated.isChannelPrefix('&'));
+        Assert.assertTrue(serverInfo.isValidChannel("#kitteh"));
+        Assert.assertFalse(serverInfo.isValidChannel("&kitteh"));
+        Assert.assertFalse(serverInfo.isValidChannel("#kit teh"));
+        Assert.assertFalse(serverInfo.isValidChannel("#kit,teh"));
+        Assert.assertFalse(serverInfo.isValidChannel("#"));
+        Assert.assertEquals('q', serverInfo.getTargetedChannelInfo("~#kitteh").get().getChar());
+        Assert.assertFalse(serverInfo.getTargetedChannelInfo("##kitteh").isPresent());
+    }
 }
@@ -0,0 +1,74 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.feature.WhoReply;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the tracker's lookups by host, account, and server.
+ */
+public class UserIndexTest {
+    /**
+     * Tests that the indexes follow WHO replies, changes, and quits, and
+     * that WHO replies for untracked channels track nobody.
+     */
+    @Test
+    public void testIndexes() {
+        Client.WithManagement client = Mockito.mock(Client.WithManagement.class);
+        ServerInfo.WithManagement serverInfo = Mockito.mock(ServerInfo.WithManagement.class);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(client.getNick()).thenReturn("me");
+        Mockito.when(client.getMetrics()).thenReturn(new ClientMetrics(() -> 0, () -> -1));
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(serverInfo.getSnapshot()).thenReturn(new ServerInfo.Snapshot(0, CaseMapping.RFC1459, -1, Collections.emptyList(),
+                Collections.singletonList('#'), Collections.emptyList(), Collections.emptyList()));
+        DefaultActorTracker tracker = new DefaultActorTracker(client);
+
+        tracker.trackChannelWho("#elsewhere", Collections.singletonList(
+                new WhoReply("kitteh", "~meow", "kitteh.org", "irc.a", "Kitteh", "meow", false, false, Collections.emptySet())));
+        Assert.assertFalse(tracker.getTrackedUser("kitteh").isPresent());
+        Assert.assertTrue(tracker.getTrackedUsersByHost("kitteh.org").isEmpty());
+
+        tracker.trackChannel("#kitteh");
+        tracker.trackChannelWho("#kitteh", Arrays.asList(
+                new WhoReply("kitteh", "~meow", "kitteh.org", "irc.a", "Kitteh", "meow", false, false, Collections.emptySet()),
+                new WhoReply("lemon", "~lemon", "kitteh.org", "irc.b", "Lemon", false, false, Collections.emptySet())));
+        Assert.assertEquals(this.nicks("kitteh", "lemon"), this.nicks(tracker.getTrackedUsersByHost("KITTEH.org")));
+        Assert.assertEquals(this.nicks("kitteh"), this.nicks(tracker.getTrackedUsersByAccount("Meow")));
+        Assert.assertEquals(this.nicks("lemon"), this.nicks(tracker.getTrackedUsersByServer("irc.b")));
+
+        tracker.trackUserHostnameChange("lemon", "lemon.org");
+        tracker.setUserAccount("kitteh", null);
+        tracker.setUserServer("lemon", "irc.a");
+        Assert.assertEquals(this.nicks("kitteh"), this.nicks(tracker.getTrackedUsersByHost("kitteh.org")));
+        Assert.assertEquals(this.nicks("lemon"), this.nicks(tracker.getTrackedUsersByHost("lemon.org")));
+        Assert.assertTrue(tracker.getTrackedUsersByAccount("meow").isEmpty());
+        Assert.assertEquals(this.nicks("kitteh", "lemon"), this.nicks(tracker.getTrackedUsersByServer("irc.a")));
+        Assert.assertTrue(tracker.getTrackedUsersByServer("irc.b").isEmpty());
+
+        tracker.trackUserNickChange("lemon", "lime");
+        tracker.trackUserQuit("kitteh");
+        Assert.assertTrue(tracker.getTrackedUsersByHost("kitteh.org").isEmpty());
+        Assert.assertEquals(this.nicks("lime"), this.nicks(tracker.getTrackedUsersByServer("irc.a")));
+    }
+
+    private Set<String> nicks(String... nicks) {
+        return new HashSet<>(Arrays.asList(nicks));
+    }
+
+    private Set<String> nicks(Set<User> users) {
+        return users.stream().map(User::getNick).collect(Collectors.toSet());
+    }
+}
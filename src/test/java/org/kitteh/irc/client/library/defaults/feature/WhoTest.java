@@ -0,0 +1,156 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.mode.DefaultChannelUserMode;
+import org.kitteh.irc.client.library.defaults.listener.DefaultWhoListener;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.event.channel.ChannelUsersUpdatedEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.feature.ActorTracker;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.feature.WhoReply;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tests WHO handling.
+ */
+public class WhoTest {
+    private Client.WithManagement client;
+    private EventManager eventManager;
+    private ActorTracker tracker;
+    private Channel channel;
+    private ChannelUserMode op;
+
+    /**
+     * Tests that WHO and WHOX replies are collected and committed to the
+     * tracker once when the list ends.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWhoBatch() {
+        DefaultWhoListener listener = this.listener(true);
+
+        listener.who(this.numeric(352, "kitteh", "#kitteh", "~meow", "kitteh.org", "irc.kitteh.org", "kitteh", "H@*", "0 Kitteh"));
+        listener.who(this.numeric(354, "kitteh", "#kitteh", "~lemon", "lemon.org", "irc.kitteh.org", "lemon", "G", "lemonaccount", "Lemon"));
+        listener.who(this.numeric(354, "kitteh", "#kitteh", "~dog", "dog.org", "irc.kitteh.org", "dog", "H", "0", "Dog"));
+        listener.who(this.numeric(352, "kitteh", "*", "~cat", "cat.org", "irc.kitteh.org", "cat", "H", "0 Cat"));
+        Mockito.verify(this.tracker, Mockito.never()).trackChannelWho(Mockito.anyString(), Mockito.anyCollection());
+
+        listener.whoComplete(this.numeric(315, "kitteh", "#kitteh", "End of /WHO list."));
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.tracker).trackChannelWho(Mockito.eq("#kitteh"), captor.capture());
+        Mockito.verify(this.tracker, Mockito.never()).trackUser(Mockito.any());
+        List<WhoReply> replies = captor.getValue();
+        Assert.assertEquals(3, replies.size());
+
+        WhoReply kitteh = replies.get(0);
+        Assert.assertEquals("kitteh!~meow@kitteh.org", kitteh.getMask());
+        Assert.assertEquals("0 Kitteh", kitteh.getRealName());
+        Assert.assertFalse(kitteh.isAccountReported());
+        Assert.assertFalse(kitteh.isAway());
+        Assert.assertTrue(kitteh.isOperator());
+        Assert.assertEquals(Collections.singleton(this.op), kitteh.getModes());
+
+        WhoReply lemon = replies.get(1);
+        Assert.assertTrue(lemon.isAccountReported());
+        Assert.assertEquals(Optional.of("lemonaccount"), lemon.getAccount());
+        Assert.assertTrue(lemon.isAway());
+        Assert.assertTrue(lemon.getModes().isEmpty());
+
+        WhoReply dog = replies.get(2);
+        Assert.assertTrue(dog.isAccountReported());
+        Assert.assertFalse(dog.getAccount().isPresent());
+
+        Mockito.verify(this.tracker).setChannelListReceived("#kitteh");
+        Assert.assertEquals(4, this.fired().getSource().size());
+    }
+
+    /**
+     * Tests that individual replies are not kept when retention is off.
+     */
+    @Test
+    public void testWhoRepliesNotRetained() {
+        DefaultWhoListener listener = this.listener(false);
+
+        listener.who(this.numeric(352, "kitteh", "#kitteh", "~meow", "kitteh.org", "irc.kitteh.org", "kitteh", "H@", "0 Kitteh"));
+        listener.whoComplete(this.numeric(315, "kitteh", "#kitteh", "End of /WHO list."));
+
+        Mockito.verify(this.tracker).trackChannelWho(Mockito.eq("#kitteh"), Mockito.anyCollection());
+        Assert.assertEquals(1, this.fired().getSource().size());
+    }
+
+    /**
+     * Tests that replies to a WHO for a nick are committed when that WHO
+     * ends, and are not held for a later channel WHO.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWhoNick() {
+        DefaultWhoListener listener = this.listener(true);
+        Mockito.when(this.client.getServerInfo().isValidChannel("#meow")).thenReturn(true);
+
+        listener.who(this.numeric(352, "kitteh", "#kitteh", "~dog", "dog.org", "irc.kitteh.org", "dog", "H", "0 Dog"));
+        listener.who(this.numeric(352, "kitteh", "#meow", "~dog", "dog.org", "irc.kitteh.org", "dog", "H@", "0 Dog"));
+        listener.whoComplete(this.numeric(315, "kitteh", "dog", "End of /WHO list."));
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.tracker).trackChannelWho(Mockito.eq("#kitteh"), captor.capture());
+        Assert.assertEquals(1, captor.getValue().size());
+        Mockito.verify(this.tracker).trackChannelWho(Mockito.eq("#meow"), captor.capture());
+        Assert.assertEquals(1, captor.getValue().size());
+        Mockito.verify(this.tracker, Mockito.never()).setChannelListReceived(Mockito.anyString());
+        Mockito.verify(this.eventManager, Mockito.never()).callEvent(Mockito.any());
+
+        listener.who(this.numeric(352, "kitteh", "#kitteh", "~meow", "kitteh.org", "irc.kitteh.org", "kitteh", "H", "0 Kitteh"));
+        listener.whoComplete(this.numeric(315, "kitteh", "#kitteh", "End of /WHO list."));
+        Mockito.verify(this.tracker, Mockito.times(2)).trackChannelWho(Mockito.eq("#kitteh"), captor.capture());
+        Assert.assertEquals(1, captor.getValue().size());
+        Assert.assertEquals(2, this.fired().getSource().size());
+    }
+
+    private DefaultWhoListener listener(boolean retain) {
+        this.client = Mockito.mock(Client.WithManagement.class);
+        this.eventManager = Mockito.mock(EventManager.class);
+        this.tracker = Mockito.mock(ActorTracker.class);
+        ServerInfo.WithManagement serverInfo = Mockito.mock(ServerInfo.WithManagement.class);
+        this.op = new DefaultChannelUserMode(this.client, 'o', '@');
+        Mockito.when(this.client.getEventManager()).thenReturn(this.eventManager);
+        Mockito.when(this.client.getActorTracker()).thenReturn(this.tracker);
+        Mockito.when(this.client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(this.client.isRetainingWhoReplies()).thenReturn(retain);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(serverInfo.isValidChannel("#kitteh")).thenReturn(true);
+        Mockito.when(serverInfo.getSnapshot()).thenReturn(new ServerInfo.Snapshot(0, CaseMapping.RFC1459, -1, Collections.emptyList(), Collections.singletonList('#'),
+                Arrays.asList(this.op, new DefaultChannelUserMode(this.client, 'v', '+')), Collections.emptyList()));
+        this.channel = Mockito.mock(Channel.class);
+        Mockito.when(this.channel.getClient()).thenReturn(this.client);
+        Mockito.when(this.tracker.getChannel("#kitteh")).thenReturn(Optional.of(this.channel));
+        return new DefaultWhoListener(this.client);
+    }
+
+    private ChannelUsersUpdatedEvent fired() {
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(this.eventManager).callEvent(event.capture());
+        ChannelUsersUpdatedEvent updated = (ChannelUsersUpdatedEvent) event.getValue();
+        Assert.assertSame(this.channel, updated.getChannel());
+        return updated;
+    }
+
+    private ClientReceiveNumericEvent numeric(int numeric, String... parameters) {
+        Actor server = Mockito.mock(Actor.class);
+        Mockito.when(server.getClient()).thenReturn(this.client);
+        return new ClientReceiveNumericEvent(this.client, Mockito.mock(ServerMessage.class), server, String.valueOf(numeric), numeric, Arrays.asList(parameters));
+    }
+}
@@ -0,0 +1,83 @@
+package org.kitteh.irc.client.library.feature.journal;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitteh.irc.client.library.util.TrafficLine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the traffic journal.
+ */
+public class TrafficJournalTest {
+    /**
+     * Where journals go.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TrafficLine line(int i) {
+        return new TrafficLine((i % 2 == 0) ? TrafficLine.Direction.INPUT : TrafficLine.Direction.OUTPUT, ":kitteh!meow@purr PRIVMSG #kitteh :Line number " + i + " é猫", Instant.ofEpochMilli(1000L * i));
+    }
+
+    /**
+     * Tests writing, rotating and reading back ranges.
+     *
+     * @throws IOException on failure
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path directory = this.folder.getRoot().toPath();
+        List<TrafficLine> written = new ArrayList<>();
+        try (TrafficJournal journal = new TrafficJournal(directory, "test", TrafficJournal.MINIMUM_SEGMENT_SIZE, 0)) {
+            for (int i = 0; i < 1000; i++) {
+                TrafficLine line = TrafficJournalTest.line(i);
+                written.add(line);
+                journal.accept(Collections.singletonList(line));
+            }
+            Assert.assertTrue(journal.getSegmentCount() > 1);
+
+            List<TrafficLine> all = journal.read(Instant.EPOCH, Instant.ofEpochMilli(Long.MAX_VALUE));
+            Assert.assertEquals(1000, all.size());
+            for (int i = 0; i < 1000; i++) {
+                Assert.assertEquals(written.get(i).getLine(), all.get(i).getLine());
+                Assert.assertEquals(written.get(i).getDirection(), all.get(i).getDirection());
+                Assert.assertEquals(written.get(i).getTimestamp(), all.get(i).getTimestamp());
+            }
+
+            List<TrafficLine> range = journal.read(Instant.ofEpochMilli(500_000), Instant.ofEpochMilli(509_000));
+            Assert.assertEquals(10, range.size());
+            Assert.assertEquals(written.get(500).getLine(), range.get(0).getLine());
+        }
+
+        // Reopening indexes existing segments
+        try (TrafficJournal journal = new TrafficJournal(directory, "test", TrafficJournal.MINIMUM_SEGMENT_SIZE, 0)) {
+            Assert.assertEquals(1000, journal.read(Instant.EPOCH, Instant.ofEpochMilli(Long.MAX_VALUE)).size());
+        }
+    }
+
+    /**
+     * Tests that old segments are removed.
+     *
+     * @throws IOException on failure
+     */
+    @Test
+    public void testRetention() throws IOException {
+        try (TrafficJournal journal = new TrafficJournal(this.folder.getRoot().toPath(), "test", TrafficJournal.MINIMUM_SEGMENT_SIZE, 2)) {
+            for (int i = 0; i < 1000; i++) {
+                journal.accept(Collections.singletonList(TrafficJournalTest.line(i)));
+            }
+            Assert.assertEquals(2, journal.getSegmentCount());
+            List<TrafficLine> all = journal.read(Instant.EPOCH, Instant.ofEpochMilli(Long.MAX_VALUE));
+            Assert.assertEquals(TrafficJournalTest.line(999).getLine(), all.get(all.size() - 1).getLine());
+            Assert.assertTrue(all.size() < 1000);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.kitteh.irc.client.library.feature.journal;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.util.TrafficLine;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tests replaying traffic.
+ */
+public class TrafficReplayTest {
+    /**
+     * Listener recording received commands.
+     */
+    public static class Commands {
+        private final List<String> commands = new CopyOnWriteArrayList<>();
+
+        /**
+         * Records a command.
+         *
+         * @param event event
+         */
+        @Handler
+        public void command(ClientReceiveCommandEvent event) {
+            this.commands.add(event.getCommand());
+        }
+    }
+
+    /**
+     * Replays a short session and checks the tracker saw it.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testReplay() throws InterruptedException {
+        Client.WithManagement client = (Client.WithManagement) Client.builder().nick("Kitteh").listeners().exception(null).then().build();
+        try {
+            List<TrafficLine> lines = new ArrayList<>();
+            String[] input = {
+                    ":irc.kitteh.org 001 Kitteh :Welcome to the network",
+                    ":irc.kitteh.org 005 Kitteh PREFIX=(ov)@+ CHANTYPES=# :are supported by this server",
+                    ":Kitteh!meow@kitteh.org JOIN #kitteh",
+                    ":irc.kitteh.org 353 Kitteh = #kitteh :Kitteh @Purr +Meow",
+                    ":irc.kitteh.org 366 Kitteh #kitteh :End of /NAMES list.",
+                    ":Purr!purr@kitteh.org PRIVMSG #kitteh :hello",
+                    ":Meow!meow@kitteh.org PART #kitteh :bye"
+            };
+            for (int i = 0; i < input.length; i++) {
+                lines.add(new TrafficLine(TrafficLine.Direction.INPUT, input[i], Instant.ofEpochMilli(i)));
+                lines.add(new TrafficLine(TrafficLine.Direction.OUTPUT, "PRIVMSG #kitteh :ignored", Instant.ofEpochMilli(i)));
+            }
+            Commands commands = new Commands();
+            client.getEventManager().registerEventListener(commands);
+            TrafficReplay.Result result = new TrafficReplay(client).replay(lines);
+            Assert.assertEquals(Arrays.asList("JOIN", "PRIVMSG", "PART"), commands.commands);
+            Assert.assertEquals(input.length, result.getLines());
+            Assert.assertTrue(result.getEvents() >= input.length);
+            Assert.assertEquals(1, result.getChannels().size());
+            Channel channel = result.getChannels().iterator().next();
+            Assert.assertEquals("#kitteh", channel.getName());
+            Assert.assertEquals(2, channel.getNicknames().size());
+        } finally {
+            client.shutdown();
+        }
+    }
+}
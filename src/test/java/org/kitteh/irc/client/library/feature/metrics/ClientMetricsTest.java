@@ -0,0 +1,48 @@
+package org.kitteh.irc.client.library.feature.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.FakeClient;
+import org.kitteh.irc.client.library.defaults.feature.DefaultEventManager;
+
+/**
+ * Tests client metrics.
+ */
+public class ClientMetricsTest {
+    /**
+     * Tests counters and gauges.
+     */
+    @Test
+    public void testCounters() {
+        ClientMetrics metrics = new ClientMetrics(() -> 3, () -> -1);
+        metrics.recordLineIn();
+        metrics.recordLineIn();
+        metrics.recordBytesIn(20);
+        metrics.recordLineOut();
+        metrics.recordBytesOut(7);
+        metrics.recordReconnect();
+        Assert.assertEquals(2, metrics.getLinesIn());
+        Assert.assertEquals(20, metrics.getBytesIn());
+        Assert.assertEquals(1, metrics.getLinesOut());
+        Assert.assertEquals(7, metrics.getBytesOut());
+        Assert.assertEquals(1, metrics.getReconnects());
+        Assert.assertEquals(3, metrics.getInputQueueDepth());
+        Assert.assertEquals(-1, metrics.getSendQueueDepth());
+    }
+
+    /**
+     * Tests that the event manager times dispatch per event class.
+     */
+    @Test
+    public void testDispatchTime() {
+        FakeClient client = new FakeClient();
+        DefaultEventManager eventManager = new DefaultEventManager(client);
+        eventManager.callEvent("meow");
+        eventManager.callEvent("purr");
+        eventManager.callEvent(42);
+        Assert.assertEquals(2, client.getMetrics().getDispatchTime(String.class).get().getCount());
+        Assert.assertEquals(1, client.getMetrics().getDispatchTime(Integer.class).get().getCount());
+        Assert.assertFalse(client.getMetrics().getDispatchTime(Long.class).isPresent());
+        Assert.assertEquals(2, client.getMetrics().getDispatchTimes().size());
+    }
+}
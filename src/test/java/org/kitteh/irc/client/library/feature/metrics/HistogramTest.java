@@ -0,0 +1,54 @@
+package org.kitteh.irc.client.library.feature.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the histogram.
+ */
+public class HistogramTest {
+    /**
+     * Tests that every bucket covers the values mapped to it.
+     */
+    @Test
+    public void testBuckets() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = Histogram.getIndex(value);
+            Assert.assertTrue("Value " + value, Histogram.getHighestValue(index) >= value);
+            if (index > 0) {
+                Assert.assertTrue("Value " + value, Histogram.getHighestValue(index - 1) < value);
+            }
+        }
+    }
+
+    /**
+     * Tests recording and percentiles.
+     */
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+        Assert.assertEquals(1001, histogram.getCount());
+        Assert.assertEquals(500500, histogram.getSum());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(0));
+        long median = histogram.getValueAtPercentile(50);
+        Assert.assertTrue("Median " + median, (median >= 500) && (median <= 500 * 1.125));
+        long p99 = histogram.getValueAtPercentile(99);
+        Assert.assertTrue("P99 " + p99, (p99 >= 990) && (p99 <= 1000));
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * Tests rejecting an invalid percentile.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadPercentile() {
+        new Histogram().getValueAtPercentile(101);
+    }
+}
@@ -0,0 +1,121 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.DefaultServerMessage;
+import org.kitteh.irc.client.library.defaults.feature.DefaultEventManager;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.client.FailEvent;
+import org.kitteh.irc.client.library.feature.metrics.ClientMetrics;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the adaptive delay sender.
+ */
+public class AdaptiveDelaySenderTest {
+    private Client.WithManagement client;
+    private DefaultEventManager eventManager;
+    private AdaptiveDelaySender sender;
+
+    /**
+     * Sets up a client with a real event manager.
+     */
+    @Before
+    public void before() {
+        this.client = Mockito.mock(Client.WithManagement.class);
+        this.eventManager = new DefaultEventManager(this.client);
+        Mockito.when(this.client.getEventManager()).thenReturn(this.eventManager);
+        Mockito.when(this.client.getName()).thenReturn("Kitteh");
+        Mockito.when(this.client.getMetrics()).thenReturn(new ClientMetrics(() -> 0, () -> -1));
+        this.sender = new AdaptiveDelaySender(this.client, "Test", 0, 0, 1000);
+    }
+
+    /**
+     * Stops the sender.
+     */
+    @After
+    public void after() {
+        this.sender.shutdown();
+    }
+
+    /**
+     * Tests that throttle numerics raise the delay, up to the maximum.
+     */
+    @Test
+    public void testThrottle() {
+        Assert.assertEquals(0, this.sender.getDelay());
+        this.fireNumeric(263, "RPL_TRYAGAIN");
+        Assert.assertEquals(1, this.sender.getDelay());
+        this.sender.penalize();
+        Assert.assertEquals(2, this.sender.getDelay());
+        for (int i = 0; i < 20; i++) {
+            this.fireNumeric(439, "ERR_TARGETTOOFAST");
+        }
+        Assert.assertEquals(1000, this.sender.getDelay());
+    }
+
+    /**
+     * Tests that only FAIL replies about sending too fast raise the delay.
+     */
+    @Test
+    public void testFail() {
+        this.fireFail("CHATHISTORY", "INVALID_TARGET");
+        this.fireFail("REGISTER", "ACCOUNT_EXISTS");
+        Assert.assertEquals(0, this.sender.getDelay());
+        this.fireFail("*", "RATE_LIMITED");
+        Assert.assertEquals(1, this.sender.getDelay());
+    }
+
+    /**
+     * Tests that a PONG to a sent PING measures round trip time.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testRoundTrip() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        this.sender.beginSending(message -> latch.countDown());
+        this.sender.queue("PING MEOW");
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(this.sender.getRoundTripTime().isPresent());
+        this.eventManager.callEvent(new ClientReceiveCommandEvent(this.client, new DefaultServerMessage.StringCommand("PONG", ":irc.kitteh.org PONG irc.kitteh.org :MEOW", new ArrayList<>()), this.server(), "PONG", Arrays.asList("irc.kitteh.org", "MEOW")));
+        Assert.assertTrue(this.sender.getRoundTripTime().isPresent());
+    }
+
+    /**
+     * Tests that a shut down sender no longer listens.
+     */
+    @Test
+    public void testShutdownUnregisters() {
+        Assert.assertTrue(this.eventManager.getRegisteredEventListeners().contains(this.sender));
+        this.sender.shutdown();
+        Assert.assertFalse(this.eventManager.getRegisteredEventListeners().contains(this.sender));
+    }
+
+    private Actor server() {
+        Actor actor = Mockito.mock(Actor.class);
+        Mockito.when(actor.getClient()).thenReturn(this.client);
+        return actor;
+    }
+
+    private void fireFail(String command, String code) {
+        String line = ":irc.kitteh.org FAIL " + command + ' ' + code + " :Nope";
+        this.eventManager.callEvent(new FailEvent(this.client, new DefaultServerMessage.StringCommand("FAIL", line, new ArrayList<>()), command, code, Collections.emptyList(), "Nope"));
+    }
+
+    private void fireNumeric(int numeric, String text) {
+        String line = ":irc.kitteh.org " + numeric + " Kitteh PRIVMSG :" + text;
+        this.eventManager.callEvent(new ClientReceiveNumericEvent(this.client, new DefaultServerMessage.NumericCommand(numeric, line, new ArrayList<>()), this.server(), String.valueOf(numeric), numeric, Arrays.asList("Kitteh", "PRIVMSG", text)));
+    }
+}
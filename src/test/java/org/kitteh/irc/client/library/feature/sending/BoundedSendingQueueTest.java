@@ -0,0 +1,215 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.client.ClientSendingQueueWatermarkEvent;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Tests the bounded sending queue.
+ */
+public class BoundedSendingQueueTest {
+    private Client client;
+    private EventManager eventManager;
+
+    /**
+     * Sets up a mock client.
+     */
+    @Before
+    public void before() {
+        this.client = Mockito.mock(Client.class);
+        this.eventManager = Mockito.mock(EventManager.class);
+        Mockito.when(this.client.getName()).thenReturn("Kitteh");
+        Mockito.when(this.client.getEventManager()).thenReturn(this.eventManager);
+    }
+
+    private BoundedSendingQueue create(int capacity, int perTarget, BoundedSendingQueue.OverflowPolicy policy) {
+        return new BoundedSendingQueue(this.client, new QueueProcessingThreadSender(this.client, "Test"), capacity, perTarget, policy, capacity, capacity / 2);
+    }
+
+    /**
+     * Tests target extraction.
+     */
+    @Test
+    public void testTarget() {
+        Assert.assertEquals("#kitteh", BoundedSendingQueue.getTarget("PRIVMSG #kitteh :meow"));
+        Assert.assertEquals("#kitteh", BoundedSendingQueue.getTarget("@+draft/reply=a TAGMSG #kitteh"));
+        Assert.assertEquals("kitteh", BoundedSendingQueue.getTarget(":me!u@h NOTICE kitteh :purr"));
+        Assert.assertNull(BoundedSendingQueue.getTarget("QUIT :bye"));
+        Assert.assertNull(BoundedSendingQueue.getTarget("AWAY"));
+    }
+
+    /**
+     * Tests dropping the newest messages.
+     */
+    @Test
+    public void testDropNewest() {
+        BoundedSendingQueue queue = this.create(3, 3, BoundedSendingQueue.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            queue.queue("PRIVMSG #kitteh :" + i);
+        }
+        Assert.assertEquals(3, queue.getDepth());
+        Assert.assertEquals(2, queue.getDroppedCount());
+        Assert.assertEquals(Arrays.asList("PRIVMSG #kitteh :0", "PRIVMSG #kitteh :1", "PRIVMSG #kitteh :2"), new ArrayList<>(queue.shutdown()));
+        Mockito.verify(this.eventManager).callEvent(ArgumentMatchers.any(ClientSendingQueueWatermarkEvent.class));
+    }
+
+    /**
+     * Tests dropping the oldest queued messages, never the one already
+     * handed to the delegate.
+     */
+    @Test
+    public void testDropOldest() {
+        BoundedSendingQueue queue = this.create(3, 3, BoundedSendingQueue.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            queue.queue("PRIVMSG #kitteh :" + i);
+        }
+        Assert.assertEquals(2, queue.getDroppedCount());
+        Assert.assertEquals(Arrays.asList("PRIVMSG #kitteh :0", "PRIVMSG #kitteh :3", "PRIVMSG #kitteh :4"), new ArrayList<>(queue.shutdown()));
+    }
+
+    /**
+     * Tests the per-target cap.
+     */
+    @Test
+    public void testPerTarget() {
+        BoundedSendingQueue queue = this.create(10, 2, BoundedSendingQueue.OverflowPolicy.DROP_NEWEST);
+        queue.queue("PRIVMSG #kitteh :0");
+        for (int i = 1; i < 5; i++) {
+            queue.queue("PRIVMSG #kitteh :" + i);
+            queue.queue("PRIVMSG #other :" + i);
+        }
+        Assert.assertTrue(queue.contains("PRIVMSG #kitteh :2"));
+        Assert.assertFalse(queue.contains("PRIVMSG #kitteh :3"));
+        Assert.assertTrue(queue.contains("PRIVMSG #other :2"));
+        Assert.assertFalse(queue.contains("PRIVMSG #other :3"));
+        queue.shutdown();
+    }
+
+    /**
+     * Tests failing fast.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testFail() {
+        BoundedSendingQueue queue = this.create(2, 2, BoundedSendingQueue.OverflowPolicy.FAIL);
+        try {
+            queue.queue("PRIVMSG #kitteh :0");
+            queue.queue("PRIVMSG #kitteh :1");
+            queue.queue("PRIVMSG #kitteh :2");
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    /**
+     * Tests that all messages are delivered in order once sending begins.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testDelivery() throws InterruptedException {
+        BoundedSendingQueue queue = this.create(10, 10, BoundedSendingQueue.OverflowPolicy.BLOCK);
+        List<String> sent = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(20);
+        queue.beginSending(message -> {
+            sent.add(message);
+            latch.countDown();
+        });
+        for (int i = 0; i < 20; i++) {
+            queue.queue("PRIVMSG #kitteh :" + i);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals("PRIVMSG #kitteh :" + i, sent.get(i));
+        }
+        Assert.assertEquals(0, queue.getDepth());
+        queue.shutdown();
+    }
+
+    /**
+     * Tests that shutdown returns the in-flight message only if the
+     * delegate never sent it, including when a send completes while the
+     * delegate shuts down.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShutdownInFlight() {
+        for (boolean sendDuringShutdown : new boolean[]{true, false}) {
+            MessageSendingQueue delegate = Mockito.mock(MessageSendingQueue.class);
+            AtomicReference<Consumer<String>> delegateConsumer = new AtomicReference<>();
+            Mockito.doAnswer(invocation -> {
+                delegateConsumer.set(invocation.getArgument(0));
+                return null;
+            }).when(delegate).beginSending(ArgumentMatchers.any(), ArgumentMatchers.any());
+            Mockito.when(delegate.shutdown()).thenAnswer(invocation -> {
+                if (sendDuringShutdown) {
+                    delegateConsumer.get().accept("PRIVMSG #kitteh :1");
+                }
+                return new ArrayDeque<>();
+            });
+            BoundedSendingQueue queue = new BoundedSendingQueue(this.client, delegate, 10, 10, BoundedSendingQueue.OverflowPolicy.FAIL, 10, 5);
+            List<String> sent = new ArrayList<>();
+            queue.beginSending(sent::add);
+            for (int i = 0; i < 3; i++) {
+                queue.queue("PRIVMSG #kitteh :" + i);
+            }
+            delegateConsumer.get().accept("PRIVMSG #kitteh :0");
+            Mockito.verify(delegate).queue("PRIVMSG #kitteh :1");
+
+            List<String> remaining = new ArrayList<>(queue.shutdown());
+            Mockito.verify(delegate, Mockito.never()).queue("PRIVMSG #kitteh :2");
+            if (sendDuringShutdown) {
+                Assert.assertEquals(Arrays.asList("PRIVMSG #kitteh :0", "PRIVMSG #kitteh :1"), sent);
+                Assert.assertEquals(Collections.singletonList("PRIVMSG #kitteh :2"), remaining);
+            } else {
+                Assert.assertEquals(Collections.singletonList("PRIVMSG #kitteh :0"), sent);
+                Assert.assertEquals(Arrays.asList("PRIVMSG #kitteh :1", "PRIVMSG #kitteh :2"), remaining);
+            }
+        }
+    }
+
+    /**
+     * Tests that a message the delegate refuses to send frees the slot for
+     * the next one, even when blocking.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testDelegateDrop() throws InterruptedException {
+        QueueProcessingThreadSender delegate = new QueueProcessingThreadSender(this.client, "Test") {
+            @Override
+            protected boolean checkReady(String message) {
+                return !message.endsWith("drop");
+            }
+        };
+        BoundedSendingQueue queue = new BoundedSendingQueue(this.client, delegate, 2, 2, BoundedSendingQueue.OverflowPolicy.BLOCK, 2, 1);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(2);
+        queue.beginSending(message -> {
+            sent.add(message);
+            latch.countDown();
+        });
+        queue.queue("PRIVMSG #kitteh :drop");
+        queue.queue("PRIVMSG #kitteh :1");
+        queue.queue("PRIVMSG #kitteh :drop");
+        queue.queue("PRIVMSG #kitteh :2");
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("PRIVMSG #kitteh :1", "PRIVMSG #kitteh :2"), sent);
+        Assert.assertEquals(0, queue.getDepth());
+        queue.shutdown();
+    }
+}
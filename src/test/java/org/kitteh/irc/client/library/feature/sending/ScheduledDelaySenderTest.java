@@ -0,0 +1,110 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Tests the scheduled delay sender.
+ */
+public class ScheduledDelaySenderTest {
+    /**
+     * Tests that messages arrive in order and respect the rate.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testRate() throws InterruptedException {
+        ScheduledDelaySender sender = new ScheduledDelaySender(Mockito.mock(Client.class), "Test", ScheduledDelaySender.getDefaultScheduler(), 2, 200);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            sender.queue("PRIVMSG #kitteh :" + i);
+        }
+        long start = System.currentTimeMillis();
+        sender.beginSending(message -> {
+            sent.add(message);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // Two immediately, two after 200ms, the last after 400ms
+        Assert.assertTrue((System.currentTimeMillis() - start) >= 400);
+        Assert.assertEquals(Arrays.asList("PRIVMSG #kitteh :0", "PRIVMSG #kitteh :1", "PRIVMSG #kitteh :2", "PRIVMSG #kitteh :3", "PRIVMSG #kitteh :4"), sent);
+        sender.shutdown();
+    }
+
+    /**
+     * Tests that pausing holds messages and shutdown returns them.
+     */
+    @Test
+    public void testPauseAndShutdown() {
+        ScheduledDelaySender sender = new ScheduledDelaySender(Mockito.mock(Client.class), "Test", ScheduledDelaySender.getDefaultScheduler(), 1, 0);
+        sender.queue("PRIVMSG #kitteh :meow");
+        Assert.assertTrue(sender.contains("PRIVMSG #kitteh :meow"));
+        Assert.assertFalse(sender.getConsumer().isPresent());
+        Queue<String> remaining = sender.shutdown();
+        Assert.assertEquals(1, remaining.size());
+        sender.queue("PRIVMSG #kitteh :purr");
+        Assert.assertFalse(sender.contains("PRIVMSG #kitteh :purr"));
+    }
+
+    /**
+     * Tests that pausing and resuming during a send, as on reconnect,
+     * leaves a single chain of sends on a multi-threaded scheduler.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResumeDuringSend() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        ScheduledDelaySender sender = new ScheduledDelaySender(Mockito.mock(Client.class), "Test", scheduler, 1, 0);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger active = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch latch = new CountDownLatch(20);
+        Consumer<String>[] consumer = new Consumer[1];
+        consumer[0] = message -> {
+            if (active.incrementAndGet() > 1) {
+                overlapped.set(true);
+            }
+            sent.add(message);
+            if (sent.size() % 5 == 1) {
+                sender.pause();
+                sender.beginSending(consumer[0]);
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            latch.countDown();
+        };
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sender.queue("PRIVMSG #kitteh :" + i);
+            expected.add("PRIVMSG #kitteh :" + i);
+        }
+        sender.beginSending(consumer[0]);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(overlapped.get());
+        Assert.assertEquals(expected, sent);
+        sender.shutdown();
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,62 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests LineParameters.
+ */
+public class LineParametersTest {
+    /**
+     * Tests reading parameters from their bounds.
+     */
+    @Test
+    public void testBounds() {
+        String line = ":kitteh!kitteh@kitteh.org PRIVMSG #kitteh :meow meow";
+        LineParameters.Builder builder = new LineParameters.Builder();
+        List<String> parameters = builder.add(34, 41).add(43, line.length()).build(line);
+        Assert.assertEquals(2, parameters.size());
+        Assert.assertEquals("#kitteh", parameters.get(0));
+        Assert.assertSame(parameters.get(0), parameters.get(0));
+        Assert.assertEquals(Arrays.asList("#kitteh", "meow meow"), parameters);
+
+        Assert.assertEquals(Collections.emptyList(), builder.clear().build(line));
+    }
+
+    /**
+     * Tests growing past the initial capacity.
+     */
+    @Test
+    public void testGrowth() {
+        StringBuilder line = new StringBuilder();
+        LineParameters.Builder builder = new LineParameters.Builder();
+        for (int i = 0; i < 100; i++) {
+            int start = line.length();
+            line.append(i).append(' ');
+            builder.add(start, line.length() - 1);
+        }
+        List<String> parameters = builder.build(line.toString());
+        Assert.assertEquals(100, parameters.size());
+        Assert.assertEquals("99", parameters.get(99));
+    }
+
+    /**
+     * Tests that the list cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        new LineParameters.Builder().add(0, 1).build("a").add("b");
+    }
+
+    /**
+     * Tests reading beyond the parameters.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        new LineParameters.Builder().add(0, 1).build("a").get(1);
+    }
+}
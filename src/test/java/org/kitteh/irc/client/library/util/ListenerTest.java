@@ -0,0 +1,89 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.FakeClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the Listener.
+ */
+public class ListenerTest {
+    /**
+     * Tests that a full listener drops the oldest items.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testCapacity() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        Listener<String> listener = new Listener<>(new FakeClient(), item -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException ignored) {
+            }
+            received.add(item);
+        }, 3);
+        listener.queue("0");
+        // Wait for the consumer to pick up the first item and block
+        long start = System.currentTimeMillis();
+        while ((listener.getQueueSize() > 0) && ((System.currentTimeMillis() - start) < 5000)) {
+            Thread.sleep(5);
+        }
+        for (int i = 1; i <= 5; i++) {
+            listener.queue(String.valueOf(i));
+        }
+        Assert.assertEquals(3, listener.getQueueSize());
+        Assert.assertEquals(2, listener.getDroppedCount());
+        blocker.countDown();
+        start = System.currentTimeMillis();
+        while ((received.size() < 4) && ((System.currentTimeMillis() - start) < 5000)) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(4, received.size());
+        Assert.assertEquals("0", received.get(0));
+        Assert.assertEquals("3", received.get(1));
+        Assert.assertEquals("5", received.get(3));
+        listener.shutdown();
+    }
+
+    /**
+     * Tests that a batch consumer receives everything in order.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testBatch() throws InterruptedException {
+        Listener<String> listener = new Listener<>(new FakeClient(), null);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(100);
+        listener.setBatchConsumer(batch -> {
+            received.addAll(batch);
+            batch.forEach(item -> latch.countDown());
+        });
+        for (int i = 0; i < 100; i++) {
+            listener.queue(String.valueOf(i));
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(String.valueOf(i), received.get(i));
+        }
+        listener.shutdown();
+    }
+
+    /**
+     * Tests that nothing queues without a consumer.
+     */
+    @Test
+    public void testNoConsumer() {
+        Listener<String> listener = new Listener<>(new FakeClient(), null);
+        listener.queue("meow");
+        Assert.assertEquals(0, listener.getQueueSize());
+    }
+}
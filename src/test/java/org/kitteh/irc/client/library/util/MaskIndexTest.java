@@ -0,0 +1,76 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the MaskIndex.
+ */
+public class MaskIndexTest {
+    private static final List<String> MASKS = Arrays.asList(
+            "*!*@bad.example.com",
+            "*!*@*.Example.COM",
+            "*!*@192.0.2.*",
+            "Kitten!*@*",
+            "*!~spam@*",
+            "*!*b?d*@*",
+            "*a*",
+            "invalid");
+
+    /**
+     * Tests the index against testing every mask.
+     */
+    @Test
+    public void testMatching() {
+        MaskIndex<String> index = new MaskIndex<>(CaseMapping.RFC1459, MASKS, Mask::fromString);
+        Assert.assertEquals(MASKS, index.getAll());
+        String[][] users = {
+                {"kitten", "meow", "bad.example.com"},
+                {"KITTEN", "~spam", "192.0.2.5"},
+                {"dog", "woof", "good.example.com"},
+                {"dog", "bud", "example.net"},
+                {"dog", "woof", "192.0.3.5"},
+                {"xyz", "woof", "host"}};
+        for (String[] user : users) {
+            String subject = CaseMapping.RFC1459.toLowerCase(user[0] + '!' + user[1] + '@' + user[2]);
+            List<String> expected = new ArrayList<>();
+            for (String mask : MASKS) {
+                if (Mask.matches(CaseMapping.RFC1459.toLowerCase(mask), subject)) {
+                    expected.add(mask);
+                }
+            }
+            Assert.assertEquals(String.join(" ", user), expected, index.getMatching(user[0], user[1], user[2]));
+        }
+        Assert.assertEquals(Arrays.asList("*!*@bad.example.com", "*!*@*.Example.COM", "Kitten!*@*", "*!*b?d*@*", "*a*"),
+                index.getMatching("kitten", "bud", "BAD.example.com"));
+    }
+
+    /**
+     * Tests the wildcard matcher.
+     */
+    @Test
+    public void testWildcards() {
+        Assert.assertTrue(Mask.matches("*", ""));
+        Assert.assertTrue(Mask.matches("a*b*c", "aXbYbZc"));
+        Assert.assertTrue(Mask.matches("a?c", "abc"));
+        Assert.assertFalse(Mask.matches("a?c", "ac"));
+        Assert.assertFalse(Mask.matches("a*b", "aXbY"));
+        Assert.assertFalse(Mask.matches("", "a"));
+    }
+
+    /**
+     * Tests an empty index.
+     */
+    @Test
+    public void testEmpty() {
+        MaskIndex<String> index = new MaskIndex<>(CaseMapping.ASCII, Collections.emptyList(), Mask::fromString);
+        Assert.assertTrue(index.getAll().isEmpty());
+        Assert.assertTrue(index.getMatching("a", "b", "c").isEmpty());
+    }
+}